@@ -2,8 +2,10 @@ package com.demo.devops.apiservice;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class ApiServiceApplication {
   public static void main(String[] args) {
     SpringApplication.run(ApiServiceApplication.class, args);
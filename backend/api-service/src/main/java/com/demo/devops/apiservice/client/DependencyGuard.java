@@ -0,0 +1,212 @@
+package com.demo.devops.apiservice.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Circuit breaker plus semaphore bulkhead for one downstream service. Calls are rejected without touching the
+// network while the circuit is open or the bulkhead is full, so a slow dependency cannot tie up request threads.
+public class DependencyGuard {
+  private static final Logger LOG = LoggerFactory.getLogger(DependencyGuard.class);
+
+  public enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  public record Policy(
+      int window,
+      int minimumCalls,
+      double failureRateThreshold,
+      double slowCallRateThreshold,
+      Duration openDuration,
+      int halfOpenCalls) {}
+
+  public record Snapshot(
+      String name,
+      State state,
+      int inFlight,
+      int maxConcurrent,
+      double failureRate,
+      double slowCallRate) {}
+
+  private final String name;
+  private final int maxConcurrent;
+  private final long slowCallNanos;
+  private final Policy policy;
+  private final LongSupplier nanoTime;
+  private final Semaphore bulkhead;
+  // Ring of the last policy.window() outcomes; bit 0 = failed, bit 1 = slow.
+  private final byte[] outcomes;
+  private final Counter successCounter;
+  private final Counter failureCounter;
+  private final Counter openRejectedCounter;
+  private final Counter bulkheadRejectedCounter;
+  private State state = State.CLOSED;
+  private int recorded;
+  private int next;
+  private int failures;
+  private int slowCalls;
+  private long openedAt;
+  private int probesStarted;
+  private int probesSucceeded;
+
+  public DependencyGuard(String name, MeterRegistry meterRegistry, int maxConcurrent, Duration slowCall, Policy policy) {
+    this(name, meterRegistry, maxConcurrent, slowCall, policy, System::nanoTime);
+  }
+
+  DependencyGuard(
+      String name,
+      MeterRegistry meterRegistry,
+      int maxConcurrent,
+      Duration slowCall,
+      Policy policy,
+      LongSupplier nanoTime) {
+    this.name = name;
+    this.maxConcurrent = Math.max(1, maxConcurrent);
+    this.slowCallNanos = slowCall.toNanos();
+    this.policy = policy;
+    this.nanoTime = nanoTime;
+    this.bulkhead = new Semaphore(this.maxConcurrent);
+    this.outcomes = new byte[Math.max(1, policy.window())];
+    this.successCounter = callCounter(meterRegistry, "success");
+    this.failureCounter = callCounter(meterRegistry, "failure");
+    this.openRejectedCounter = callCounter(meterRegistry, "rejected_open");
+    this.bulkheadRejectedCounter = callCounter(meterRegistry, "rejected_bulkhead");
+    Gauge.builder("api.dependency.circuit.state", this, guard -> guard.snapshot().state().ordinal())
+        .description("Circuit state per downstream dependency: 0 closed, 1 open, 2 half-open")
+        .tag("dependency", name)
+        .register(meterRegistry);
+    Gauge.builder("api.dependency.active", bulkhead, semaphore -> this.maxConcurrent - semaphore.availablePermits())
+        .description("Calls to a downstream dependency currently holding a bulkhead permit")
+        .tag("dependency", name)
+        .register(meterRegistry);
+  }
+
+  // Runs the call unless the circuit or the bulkhead turns it away, in which case the fallback is returned.
+  public <T> T call(Supplier<T> call, Predicate<T> succeeded, T fallback) {
+    return call(call, succeeded, fallback, slowCallNanos);
+  }
+
+  // As above, for a call with its own slow-call budget, e.g. a batch that is expected to take longer.
+  public <T> T call(Supplier<T> call, Predicate<T> succeeded, T fallback, Duration slowCall) {
+    return call(call, succeeded, fallback, slowCall.toNanos());
+  }
+
+  private <T> T call(Supplier<T> call, Predicate<T> succeeded, T fallback, long slowNanos) {
+    if (!bulkhead.tryAcquire()) {
+      bulkheadRejectedCounter.increment();
+      return fallback;
+    }
+    try {
+      if (!permit()) {
+        openRejectedCounter.increment();
+        return fallback;
+      }
+      long startedAt = nanoTime.getAsLong();
+      boolean success = false;
+      try {
+        T result = call.get();
+        success = succeeded.test(result);
+        return result;
+      } finally {
+        record(success, nanoTime.getAsLong() - startedAt >= slowNanos);
+      }
+    } finally {
+      bulkhead.release();
+    }
+  }
+
+  public synchronized Snapshot snapshot() {
+    transitionIfOpenExpired(nanoTime.getAsLong());
+    return new Snapshot(
+        name,
+        state,
+        maxConcurrent - bulkhead.availablePermits(),
+        maxConcurrent,
+        recorded == 0 ? 0 : (double) failures / recorded,
+        recorded == 0 ? 0 : (double) slowCalls / recorded);
+  }
+
+  private synchronized boolean permit() {
+    transitionIfOpenExpired(nanoTime.getAsLong());
+    if (state == State.CLOSED) {
+      return true;
+    }
+    if (state == State.HALF_OPEN && probesStarted < policy.halfOpenCalls()) {
+      probesStarted++;
+      return true;
+    }
+    return false;
+  }
+
+  private synchronized void record(boolean success, boolean slow) {
+    (success ? successCounter : failureCounter).increment();
+    if (state == State.HALF_OPEN) {
+      if (!success || slow) {
+        open("probe " + (success ? "slow" : "failed"));
+      } else if (++probesSucceeded >= policy.halfOpenCalls()) {
+        transition(State.CLOSED, "probes succeeded");
+      }
+      return;
+    }
+    if (state == State.OPEN) {
+      return;
+    }
+    if (recorded == outcomes.length) {
+      failures -= outcomes[next] & 1;
+      slowCalls -= (outcomes[next] >> 1) & 1;
+    } else {
+      recorded++;
+    }
+    outcomes[next] = (byte) ((success ? 0 : 1) | (slow ? 2 : 0));
+    failures += success ? 0 : 1;
+    slowCalls += slow ? 1 : 0;
+    next = (next + 1) % outcomes.length;
+    if (recorded >= policy.minimumCalls()) {
+      if ((double) failures / recorded >= policy.failureRateThreshold()) {
+        open("failure rate");
+      } else if ((double) slowCalls / recorded >= policy.slowCallRateThreshold()) {
+        open("slow call rate");
+      }
+    }
+  }
+
+  private void transitionIfOpenExpired(long now) {
+    if (state == State.OPEN && now - openedAt >= policy.openDuration().toNanos()) {
+      transition(State.HALF_OPEN, "open duration elapsed");
+    }
+  }
+
+  private void open(String reason) {
+    openedAt = nanoTime.getAsLong();
+    transition(State.OPEN, reason);
+  }
+
+  private void transition(State target, String reason) {
+    LOG.warn("dependency_circuit_transition dependency={} from={} to={} reason={}", name, state, target, reason);
+    state = target;
+    probesStarted = 0;
+    probesSucceeded = 0;
+    recorded = 0;
+    next = 0;
+    failures = 0;
+    slowCalls = 0;
+  }
+
+  private Counter callCounter(MeterRegistry meterRegistry, String outcome) {
+    return Counter.builder("api.dependency.calls")
+        .description("Calls to downstream dependencies by outcome, including calls turned away by the guard")
+        .tag("dependency", name)
+        .tag("outcome", outcome)
+        .register(meterRegistry);
+  }
+}
@@ -3,6 +3,7 @@ package com.demo.devops.apiservice.client;
 import com.demo.devops.apiservice.dto.MailRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.HttpEntity;
@@ -12,43 +13,74 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 @Component
 public class MailerClient {
   private static final String CSRF_COOKIE = "XSRF-TOKEN";
   private static final String CSRF_HEADER = "X-XSRF-TOKEN";
+  private static final String SENDING = "sending";
   private static final Logger LOG = LoggerFactory.getLogger(MailerClient.class);
 
   private final RestTemplate restTemplate;
+  private final RestTemplate batchRestTemplate;
   private final String mailerUrl;
   private final String mailerCsrfUrl;
+  private final String mailerBatchUrl;
   private final String apiKey;
+  private final long batchSlowCallBaseMs;
+  private final long batchSlowCallPerMessageMs;
+  private final DependencyGuard guard;
 
   public MailerClient(
       RestTemplateBuilder builder,
       @Value("${mailer.url}") String mailerUrl,
       @Value("${mailer.api-key}") String apiKey,
-      @Value("${mailer.timeout-ms}") long timeoutMs) {
+      @Value("${mailer.timeout-ms}") long timeoutMs,
+      @Value("${mailer.batch.timeout-ms:30000}") long batchTimeoutMs,
+      @Value("${mailer.slow-call-ms:2000}") long slowCallMs,
+      @Value("${mailer.batch.slow-call-per-message-ms:100}") long batchSlowCallPerMessageMs,
+      @Qualifier("mailerGuard") DependencyGuard guard) {
     this.mailerUrl = Objects.requireNonNull(mailerUrl, "mailer.url must not be null");
     this.mailerCsrfUrl = deriveUrl(this.mailerUrl, "/send", "/csrf");
+    this.mailerBatchUrl = deriveUrl(this.mailerUrl, "/send", "/send/batch");
     this.apiKey = Objects.requireNonNull(apiKey, "mailer.api-key must not be null");
+    this.batchSlowCallBaseMs = slowCallMs;
+    this.batchSlowCallPerMessageMs = batchSlowCallPerMessageMs;
+    this.guard = guard;
     this.restTemplate = builder
         .requestFactory(() -> buildRequestFactory(timeoutMs))
         .build();
+    this.batchRestTemplate = builder
+        .requestFactory(() -> buildRequestFactory(batchTimeoutMs))
+        .build();
   }
 
   public boolean send(MailRequest request) {
+    return guard.call(() -> post(request), sent -> sent, false);
+  }
+
+  // A batch gets its own read timeout and a slow-call budget that grows with its size, so a large batch that
+  // is merely taking its time is neither cut off nor counted against the mailer like a slow single send.
+  public BatchOutcome sendBatch(List<MailRequest> requests) {
+    return guard.call(
+        () -> postBatch(requests),
+        outcome -> outcome.status() == BatchOutcome.Status.ANSWERED
+            || outcome.status() == BatchOutcome.Status.REJECTED,
+        BatchOutcome.unavailable(),
+        Duration.ofMillis(batchSlowCallBaseMs + batchSlowCallPerMessageMs * requests.size()));
+  }
+
+  private boolean post(MailRequest request) {
     try {
-      String csrfToken = fetchCsrfToken();
-      HttpHeaders headers = new HttpHeaders();
-      headers.setContentType(MediaType.APPLICATION_JSON);
-      headers.set("x-mailer-key", Objects.requireNonNull(apiKey, "mailer.api-key must not be null"));
-      headers.set(CSRF_HEADER, csrfToken);
-      headers.add(HttpHeaders.COOKIE, CSRF_COOKIE + "=" + csrfToken);
-      HttpEntity<MailRequest> entity = new HttpEntity<>(request, headers);
+      HttpEntity<MailRequest> entity = new HttpEntity<>(request, mailerHeaders(fetchCsrfToken(restTemplate)));
       restTemplate.postForEntity(
           Objects.requireNonNull(mailerUrl, "mailer.url must not be null"),
           entity,
@@ -60,6 +92,81 @@ public class MailerClient {
     }
   }
 
+  private BatchOutcome postBatch(List<MailRequest> requests) {
+    try {
+      ResponseEntity<BatchResponse> response = batchRestTemplate.postForEntity(
+          mailerBatchUrl,
+          new HttpEntity<>(new BatchRequest(requests), mailerHeaders(fetchCsrfToken(batchRestTemplate))),
+          BatchResponse.class);
+      BatchResponse body = response.getBody();
+      if (body == null || body.results() == null || body.results().size() != requests.size()) {
+        throw new RestClientException("mailer batch response does not match the request");
+      }
+      List<BatchResult> results = new ArrayList<>(requests.size());
+      for (BatchResponseItem item : body.results()) {
+        results.add(SENDING.equals(item.status())
+            ? BatchResult.sending()
+            : new BatchResult(item.error() == null, item.error()));
+      }
+      return BatchOutcome.answered(results);
+    } catch (HttpClientErrorException ex) {
+      // The mailer is up but refused the request as a whole, e.g. one message failed validation.
+      LOG.warn("mailer_batch_request_rejected url={} size={} status={}",
+          mailerBatchUrl, requests.size(), ex.getStatusCode().value());
+      return BatchOutcome.rejected("mailer rejected the batch: " + ex.getStatusCode().value());
+    } catch (RestClientException ex) {
+      if (isReadTimeout(ex)) {
+        LOG.warn("mailer_batch_request_unconfirmed url={} size={} message={}",
+            mailerBatchUrl, requests.size(), ex.getMessage());
+        return BatchOutcome.unconfirmed();
+      }
+      LOG.warn("mailer_batch_request_failed url={} size={} message={}", mailerBatchUrl, requests.size(), ex.getMessage());
+      return BatchOutcome.unavailable();
+    }
+  }
+
+  // A message still "sending" is a repeat of one the mailer has not finished yet; its outcome is not final.
+  public record BatchResult(boolean accepted, boolean inProgress, String error) {
+    public BatchResult(boolean accepted, String error) {
+      this(accepted, false, error);
+    }
+
+    public static BatchResult sending() {
+      return new BatchResult(false, true, null);
+    }
+  }
+
+  // ANSWERED carries one result per message; REJECTED means a 4xx for the whole batch; UNCONFIRMED means the
+  // mailer took the batch but did not answer in time, so it may still send it; UNAVAILABLE covers the other
+  // transport errors, 5xx and calls turned away by the guard.
+  public record BatchOutcome(Status status, List<BatchResult> results, String error) {
+    public enum Status {
+      ANSWERED,
+      REJECTED,
+      UNCONFIRMED,
+      UNAVAILABLE
+    }
+
+    public static BatchOutcome answered(List<BatchResult> results) {
+      return new BatchOutcome(Status.ANSWERED, List.copyOf(results), null);
+    }
+
+    public static BatchOutcome rejected(String error) {
+      return new BatchOutcome(Status.REJECTED, List.of(), error);
+    }
+
+    public static BatchOutcome unconfirmed() {
+      return new BatchOutcome(Status.UNCONFIRMED, List.of(), null);
+    }
+
+    public static BatchOutcome unavailable() {
+      return new BatchOutcome(Status.UNAVAILABLE, List.of(), null);
+    }
+  }
+
+  private record BatchRequest(List<MailRequest> messages) {}
+  private record BatchResponse(List<BatchResponseItem> results) {}
+  private record BatchResponseItem(int index, String status, String error) {}
   private record CsrfTokenResponse(String token) {}
 
   private static SimpleClientHttpRequestFactory buildRequestFactory(long timeoutMs) {
@@ -70,9 +177,25 @@ public class MailerClient {
     return factory;
   }
 
-  private String fetchCsrfToken() {
+  private HttpHeaders mailerHeaders(String csrfToken) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.APPLICATION_JSON);
+    headers.set("x-mailer-key", Objects.requireNonNull(apiKey, "mailer.api-key must not be null"));
+    headers.set(CSRF_HEADER, csrfToken);
+    headers.add(HttpHeaders.COOKIE, CSRF_COOKIE + "=" + csrfToken);
+    return headers;
+  }
+
+  // The JDK reports a connect timeout with the same exception type, but then the mailer never saw the request.
+  private static boolean isReadTimeout(RestClientException ex) {
+    return ex.getCause() instanceof SocketTimeoutException timeout
+        && timeout.getMessage() != null
+        && timeout.getMessage().startsWith("Read timed out");
+  }
+
+  private String fetchCsrfToken(RestTemplate template) {
     ResponseEntity<CsrfTokenResponse> response =
-        restTemplate.exchange(mailerCsrfUrl, HttpMethod.GET, HttpEntity.EMPTY, CsrfTokenResponse.class);
+        template.exchange(mailerCsrfUrl, HttpMethod.GET, HttpEntity.EMPTY, CsrfTokenResponse.class);
     CsrfTokenResponse body = response.getBody();
     if (body == null || body.token() == null || body.token().isBlank()) {
       throw new RestClientException("mailer csrf token missing");
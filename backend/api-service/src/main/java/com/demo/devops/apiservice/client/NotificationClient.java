@@ -3,6 +3,7 @@ package com.demo.devops.apiservice.client;
 import com.demo.devops.apiservice.dto.NotificationRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.HttpEntity;
@@ -21,20 +22,27 @@ public class NotificationClient {
   private final RestTemplate restTemplate;
   private final String notifyUrl;
   private final String apiKey;
+  private final DependencyGuard guard;
 
   public NotificationClient(
       RestTemplateBuilder builder,
       @Value("${notify.url}") String notifyUrl,
       @Value("${notify.api-key}") String apiKey,
-      @Value("${notify.timeout-ms}") long timeoutMs) {
+      @Value("${notify.timeout-ms}") long timeoutMs,
+      @Qualifier("notifyGuard") DependencyGuard guard) {
     this.notifyUrl = Objects.requireNonNull(notifyUrl, "notify.url must not be null");
     this.apiKey = Objects.requireNonNull(apiKey, "notify.api-key must not be null");
+    this.guard = guard;
     this.restTemplate = builder
         .requestFactory(() -> buildRequestFactory(timeoutMs))
         .build();
   }
 
   public boolean send(NotificationRequest request) {
+    return guard.call(() -> post(request), sent -> sent, false);
+  }
+
+  private boolean post(NotificationRequest request) {
     HttpHeaders headers = new HttpHeaders();
     headers.setContentType(MediaType.APPLICATION_JSON);
     headers.set("x-notify-key", Objects.requireNonNull(apiKey, "notify.api-key must not be null"));
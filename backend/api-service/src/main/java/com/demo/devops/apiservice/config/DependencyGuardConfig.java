@@ -0,0 +1,42 @@
+package com.demo.devops.apiservice.config;
+
+import com.demo.devops.apiservice.client.DependencyGuard;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class DependencyGuardConfig {
+
+  @Bean
+  public DependencyGuard.Policy dependencyGuardPolicy(
+      @Value("${app.guard.window:20}") int window,
+      @Value("${app.guard.minimum-calls:10}") int minimumCalls,
+      @Value("${app.guard.failure-rate-threshold:0.5}") double failureRateThreshold,
+      @Value("${app.guard.slow-call-rate-threshold:0.5}") double slowCallRateThreshold,
+      @Value("${app.guard.open-duration:PT30S}") Duration openDuration,
+      @Value("${app.guard.half-open-calls:3}") int halfOpenCalls) {
+    return new DependencyGuard.Policy(
+        window, minimumCalls, failureRateThreshold, slowCallRateThreshold, openDuration, halfOpenCalls);
+  }
+
+  @Bean
+  public DependencyGuard mailerGuard(
+      MeterRegistry meterRegistry,
+      DependencyGuard.Policy dependencyGuardPolicy,
+      @Value("${mailer.max-concurrent:10}") int maxConcurrent,
+      @Value("${mailer.slow-call-ms:2000}") long slowCallMs) {
+    return new DependencyGuard("mailer", meterRegistry, maxConcurrent, Duration.ofMillis(slowCallMs), dependencyGuardPolicy);
+  }
+
+  @Bean
+  public DependencyGuard notifyGuard(
+      MeterRegistry meterRegistry,
+      DependencyGuard.Policy dependencyGuardPolicy,
+      @Value("${notify.max-concurrent:10}") int maxConcurrent,
+      @Value("${notify.slow-call-ms:1500}") long slowCallMs) {
+    return new DependencyGuard("notify", meterRegistry, maxConcurrent, Duration.ofMillis(slowCallMs), dependencyGuardPolicy);
+  }
+}
@@ -2,9 +2,19 @@ package com.demo.devops.apiservice.dto;
 
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
 
 public record MailRequest(
     @NotBlank @Email String to,
     @NotBlank String subject,
-    @NotBlank String text
-) {}
+    @NotBlank String text,
+    @Size(max = 200) String idempotencyKey
+) {
+  public MailRequest(String to, String subject, String text) {
+    this(to, subject, text, null);
+  }
+
+  public MailRequest withIdempotencyKey(String key) {
+    return new MailRequest(to, subject, text, key);
+  }
+}
@@ -0,0 +1,294 @@
+package com.demo.devops.apiservice.outbox;
+
+import com.demo.devops.apiservice.client.AuditClient;
+import com.demo.devops.apiservice.client.MailerClient;
+import com.demo.devops.apiservice.dto.MailRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class MailOutbox {
+  private static final Logger LOG = LoggerFactory.getLogger(MailOutbox.class);
+  private static final String API_SERVICE = "api-service";
+  private static final Duration IN_PROGRESS_RECHECK = Duration.ofSeconds(1);
+
+  private final MailerClient mailerClient;
+  private final AuditClient auditClient;
+  private final Executor auditExecutor;
+  private final boolean enabled;
+  private final OutboxStore store;
+  private final int batchSize;
+  private final int maxAttempts;
+  private final Duration initialBackoff;
+  private final Duration maxBackoff;
+  private final int maxPending;
+  // Ids start with the append time and a per-process sequence, so iteration order is FIFO.
+  private final ConcurrentSkipListMap<String, OutboxEntry> pending = new ConcurrentSkipListMap<>();
+  private final AtomicLong sequence = new AtomicLong();
+  private final Counter appendedCounter;
+  private final Counter relayedCounter;
+  private final Counter retriedCounter;
+  private final Counter failedCounter;
+  private final Counter auditsDroppedCounter;
+  private int consecutiveOutages;
+  private Instant pausedUntil = Instant.MIN;
+
+  @Autowired
+  public MailOutbox(
+      MailerClient mailerClient,
+      AuditClient auditClient,
+      ObjectMapper objectMapper,
+      MeterRegistry meterRegistry,
+      @Value("${app.outbox.enabled:false}") boolean enabled,
+      @Value("${app.outbox.dir:${java.io.tmpdir}/api-outbox}") Path dir,
+      @Value("${app.outbox.batch-size:50}") int batchSize,
+      @Value("${app.outbox.max-attempts:10}") int maxAttempts,
+      @Value("${app.outbox.initial-backoff:PT1S}") Duration initialBackoff,
+      @Value("${app.outbox.max-backoff:PT5M}") Duration maxBackoff,
+      @Value("${app.outbox.max-pending:10000}") int maxPending,
+      @Value("${app.outbox.audit-queue:1000}") int auditQueue) {
+    this(
+        mailerClient,
+        auditClient,
+        objectMapper,
+        meterRegistry,
+        enabled,
+        dir,
+        batchSize,
+        maxAttempts,
+        initialBackoff,
+        maxBackoff,
+        maxPending,
+        auditExecutor(auditQueue));
+  }
+
+  MailOutbox(
+      MailerClient mailerClient,
+      AuditClient auditClient,
+      ObjectMapper objectMapper,
+      MeterRegistry meterRegistry,
+      boolean enabled,
+      Path dir,
+      int batchSize,
+      int maxAttempts,
+      Duration initialBackoff,
+      Duration maxBackoff,
+      int maxPending,
+      Executor auditExecutor) {
+    this.mailerClient = mailerClient;
+    this.auditClient = auditClient;
+    this.auditExecutor = auditExecutor;
+    this.enabled = enabled;
+    this.store = enabled ? new OutboxStore(dir, objectMapper) : null;
+    this.batchSize = batchSize;
+    this.maxAttempts = maxAttempts;
+    this.initialBackoff = initialBackoff;
+    this.maxBackoff = maxBackoff;
+    this.maxPending = maxPending;
+    this.appendedCounter = outcomeCounter(meterRegistry, "appended");
+    this.relayedCounter = outcomeCounter(meterRegistry, "relayed");
+    this.retriedCounter = outcomeCounter(meterRegistry, "retried");
+    this.failedCounter = outcomeCounter(meterRegistry, "failed");
+    this.auditsDroppedCounter = Counter.builder("api.outbox.audits.dropped")
+        .description("Outbox audit events dropped because the audit queue was full")
+        .register(meterRegistry);
+    Gauge.builder("api.outbox.pending", pending, Map::size)
+        .description("Mail requests written to the outbox and not yet accepted by mailer-service")
+        .register(meterRegistry);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public OutboxEntry append(MailRequest request, String actor) {
+    if (pending.size() >= maxPending) {
+      throw new OutboxFullException();
+    }
+    Instant now = Instant.now();
+    String id = String.format("%013d-%010d-%s", now.toEpochMilli(), sequence.incrementAndGet(), UUID.randomUUID());
+    OutboxEntry entry = new OutboxEntry(id, request, actor, 0, now, now, null);
+    store.write(entry);
+    pending.put(id, entry);
+    appendedCounter.increment();
+    return entry;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void recover() {
+    if (!enabled) {
+      return;
+    }
+    for (OutboxEntry entry : store.loadPending()) {
+      pending.putIfAbsent(entry.id(), entry);
+    }
+    LOG.info("mail_outbox_recovered pending={}", pending.size());
+  }
+
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    if (auditExecutor instanceof ExecutorService executor) {
+      executor.shutdown();
+      executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${app.outbox.relay-interval:PT1S}")
+  public synchronized void relay() {
+    Instant now = Instant.now();
+    if (!enabled || now.isBefore(pausedUntil)) {
+      return;
+    }
+    List<OutboxEntry> batch;
+    do {
+      batch = ready(now);
+      if (batch.isEmpty() || !settle(batch, now)) {
+        return;
+      }
+    } while (batch.size() == batchSize);
+  }
+
+  // Returns false when the relay should stop for this pass, e.g. because the mailer is unreachable.
+  private boolean settle(List<OutboxEntry> batch, Instant now) {
+    // The entry id doubles as the idempotency key, so a batch resent after a lost response is not mailed twice.
+    MailerClient.BatchOutcome outcome = mailerClient.sendBatch(
+        batch.stream().map(entry -> entry.request().withIdempotencyKey(entry.id())).toList());
+    if (outcome.status() == MailerClient.BatchOutcome.Status.UNAVAILABLE) {
+      // Mailer is unreachable: hold the whole outbox back instead of spending every entry's attempts.
+      Duration delay = backoff(++consecutiveOutages);
+      pausedUntil = now.plus(delay);
+      LOG.warn("mail_outbox_relay_paused pending={} delayMs={}", pending.size(), delay.toMillis());
+      return false;
+    }
+    if (outcome.status() == MailerClient.BatchOutcome.Status.UNCONFIRMED) {
+      // The mailer may still be sending the batch; resending it later is answered from the mailer's dedup window.
+      batch.forEach(entry -> inProgress(entry, now));
+      return false;
+    }
+    consecutiveOutages = 0;
+    if (outcome.status() == MailerClient.BatchOutcome.Status.REJECTED) {
+      if (batch.size() == 1) {
+        rejected(batch.get(0), outcome.error(), now);
+        return true;
+      }
+      // One bad entry fails the whole request, so resend singly to charge the attempt to that entry alone.
+      for (OutboxEntry entry : batch) {
+        if (!settle(List.of(entry), now)) {
+          return false;
+        }
+      }
+      return true;
+    }
+    for (int i = 0; i < batch.size(); i++) {
+      MailerClient.BatchResult result = outcome.results().get(i);
+      if (result.inProgress()) {
+        inProgress(batch.get(i), now);
+      } else if (result.accepted()) {
+        delivered(batch.get(i));
+      } else {
+        rejected(batch.get(i), result.error(), now);
+      }
+    }
+    return true;
+  }
+
+  private List<OutboxEntry> ready(Instant now) {
+    List<OutboxEntry> batch = new ArrayList<>(batchSize);
+    for (OutboxEntry entry : pending.values()) {
+      if (!entry.nextAttemptAt().isAfter(now)) {
+        batch.add(entry);
+        if (batch.size() == batchSize) {
+          break;
+        }
+      }
+    }
+    return batch;
+  }
+
+  private void delivered(OutboxEntry entry) {
+    store.remove(entry.id());
+    pending.remove(entry.id());
+    relayedCounter.increment();
+    audit("EMAIL_SENT", entry.actor(), "sent to " + entry.request().to());
+  }
+
+  // The mailer is still sending an earlier attempt of this entry (e.g. one whose response was lost). Keep the
+  // entry without charging an attempt and ask again later, until the mailer reports how it ended.
+  private void inProgress(OutboxEntry entry, Instant now) {
+    pending.put(entry.id(), entry.waiting(now.plus(IN_PROGRESS_RECHECK)));
+  }
+
+  private void rejected(OutboxEntry entry, String error, Instant now) {
+    if (entry.attempts() + 1 >= maxAttempts) {
+      store.moveToFailed(entry.failed(error));
+      pending.remove(entry.id());
+      failedCounter.increment();
+      LOG.warn("mail_outbox_delivery_failed id={} attempts={} reason={}", entry.id(), entry.attempts() + 1, error);
+      audit("EMAIL_FAILED", entry.actor(), "mailer error");
+      return;
+    }
+    OutboxEntry retrying = entry.retrying(now.plus(backoff(entry.attempts() + 1)), error);
+    store.write(retrying);
+    pending.put(entry.id(), retrying);
+    retriedCounter.increment();
+  }
+
+  // Audit calls block for up to the audit timeout, so they run off the relay thread. When the audit service
+  // falls behind, events beyond the queue are dropped rather than holding mail back.
+  private void audit(String eventType, String actor, String details) {
+    try {
+      auditExecutor.execute(() -> auditClient.sendEvent(eventType, actor, details, API_SERVICE));
+    } catch (RejectedExecutionException ex) {
+      auditsDroppedCounter.increment();
+      LOG.warn("mail_outbox_audit_dropped eventType={} actor={}", eventType, actor);
+    }
+  }
+
+  Duration backoff(int attempts) {
+    long base = initialBackoff.toMillis() << Math.min(attempts - 1, 20);
+    long capped = Math.min(base, maxBackoff.toMillis());
+    return Duration.ofMillis(capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1));
+  }
+
+  private static ExecutorService auditExecutor(int capacity) {
+    return new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(capacity), runnable -> {
+      Thread thread = new Thread(runnable, "mail-outbox-audit");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+    return Counter.builder("api.outbox.messages")
+        .description("Outbox mail requests by relay outcome")
+        .tag("outcome", outcome)
+        .register(meterRegistry);
+  }
+}
@@ -0,0 +1,26 @@
+package com.demo.devops.apiservice.outbox;
+
+import com.demo.devops.apiservice.dto.MailRequest;
+import java.time.Instant;
+
+public record OutboxEntry(
+    String id,
+    MailRequest request,
+    String actor,
+    int attempts,
+    Instant createdAt,
+    Instant nextAttemptAt,
+    String lastError) {
+
+  OutboxEntry retrying(Instant nextAttemptAt, String error) {
+    return new OutboxEntry(id, request, actor, attempts + 1, createdAt, nextAttemptAt, error);
+  }
+
+  OutboxEntry waiting(Instant nextAttemptAt) {
+    return new OutboxEntry(id, request, actor, attempts, createdAt, nextAttemptAt, lastError);
+  }
+
+  OutboxEntry failed(String error) {
+    return new OutboxEntry(id, request, actor, attempts + 1, createdAt, null, error);
+  }
+}
@@ -0,0 +1,11 @@
+package com.demo.devops.apiservice.outbox;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class OutboxFullException extends RuntimeException {
+  public OutboxFullException() {
+    super("mail outbox is full");
+  }
+}
@@ -0,0 +1,79 @@
+package com.demo.devops.apiservice.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+class OutboxStore {
+  private static final Logger LOG = LoggerFactory.getLogger(OutboxStore.class);
+  private static final String SUFFIX = ".json";
+
+  private final Path pendingDir;
+  private final Path failedDir;
+  private final ObjectMapper objectMapper;
+
+  OutboxStore(Path root, ObjectMapper objectMapper) {
+    this.pendingDir = root.resolve("pending");
+    this.failedDir = root.resolve("failed");
+    this.objectMapper = objectMapper;
+    try {
+      Files.createDirectories(pendingDir);
+      Files.createDirectories(failedDir);
+    } catch (IOException ex) {
+      throw new UncheckedIOException("outbox directory is not writable: " + root, ex);
+    }
+  }
+
+  void write(OutboxEntry entry) {
+    writeAtomically(pendingDir, entry);
+  }
+
+  void remove(String id) {
+    try {
+      Files.deleteIfExists(pendingDir.resolve(id + SUFFIX));
+    } catch (IOException ex) {
+      LOG.warn("outbox_delete_failed id={} reason={}", id, ex.getMessage());
+    }
+  }
+
+  void moveToFailed(OutboxEntry entry) {
+    writeAtomically(failedDir, entry);
+    remove(entry.id());
+  }
+
+  List<OutboxEntry> loadPending() {
+    List<OutboxEntry> entries = new ArrayList<>();
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(pendingDir, "*" + SUFFIX)) {
+      for (Path file : files) {
+        try {
+          entries.add(objectMapper.readValue(file.toFile(), OutboxEntry.class));
+        } catch (IOException ex) {
+          LOG.warn("outbox_entry_unreadable file={} reason={}", file.getFileName(), ex.getMessage());
+          Files.move(file, failedDir.resolve(file.getFileName() + ".corrupt"), StandardCopyOption.REPLACE_EXISTING);
+        }
+      }
+    } catch (IOException ex) {
+      throw new UncheckedIOException("outbox could not be read: " + pendingDir, ex);
+    }
+    return entries;
+  }
+
+  private void writeAtomically(Path dir, OutboxEntry entry) {
+    Path target = dir.resolve(entry.id() + SUFFIX);
+    Path temp = dir.resolve(entry.id() + ".tmp");
+    try {
+      Files.write(temp, objectMapper.writeValueAsBytes(entry));
+      Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException ex) {
+      throw new UncheckedIOException("outbox write failed for " + entry.id(), ex);
+    }
+  }
+}
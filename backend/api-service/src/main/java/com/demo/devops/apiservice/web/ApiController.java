@@ -3,12 +3,14 @@ package com.demo.devops.apiservice.web;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.demo.devops.apiservice.client.AuditClient;
+import com.demo.devops.apiservice.client.DependencyGuard;
 import com.demo.devops.apiservice.client.MailerClient;
 import com.demo.devops.apiservice.client.NotificationClient;
 import com.demo.devops.apiservice.dto.MailRequest;
 import com.demo.devops.apiservice.dto.MessageResponse;
 import com.demo.devops.apiservice.dto.NotificationRequest;
 import com.demo.devops.apiservice.dto.StatusResponse;
+import com.demo.devops.apiservice.outbox.MailOutbox;
 import jakarta.validation.Valid;
 import java.io.IOException;
 import java.net.URI;
@@ -17,8 +19,10 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
 import java.util.List;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -35,8 +39,11 @@ public class ApiController {
   private static final String UNKNOWN = "unknown";
 
   private final MailerClient mailerClient;
+  private final MailOutbox mailOutbox;
   private final NotificationClient notificationClient;
   private final AuditClient auditClient;
+  private final DependencyGuard mailerGuard;
+  private final DependencyGuard notifyGuard;
   private final HttpClient healthClient;
   private final ObjectMapper objectMapper;
   private final URI authHealthUri;
@@ -46,15 +53,21 @@ public class ApiController {
 
   public ApiController(
       MailerClient mailerClient,
+      MailOutbox mailOutbox,
       NotificationClient notificationClient,
       AuditClient auditClient,
+      @Qualifier("mailerGuard") DependencyGuard mailerGuard,
+      @Qualifier("notifyGuard") DependencyGuard notifyGuard,
       @Value("${APP_AUTH_HEALTH_URL:http://auth-service:8081/auth/health}") String authHealthUrl,
       @Value("${AUDIT_URL:http://audit-service:8084/audit/events}") String auditUrl,
       @Value("${MAILER_URL:http://mailer-service:8083/send}") String mailerUrl,
       @Value("${NOTIFY_URL:http://notification-service:8090/notify}") String notifyUrl) {
     this.mailerClient = mailerClient;
+    this.mailOutbox = mailOutbox;
     this.notificationClient = notificationClient;
     this.auditClient = auditClient;
+    this.mailerGuard = mailerGuard;
+    this.notifyGuard = notifyGuard;
     this.healthClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
     this.objectMapper = new ObjectMapper();
     this.authHealthUri = URI.create(authHealthUrl);
@@ -76,25 +89,32 @@ public class ApiController {
 
   @GetMapping("/dashboard-status")
   public DashboardStatusResponse dashboardStatus() {
-    return new DashboardStatusResponse(List.of(
-        new ServiceStatus("gateway", "Gateway", "up", ""),
-        checkService("auth", "Auth Service", authHealthUri),
-        new ServiceStatus("api", "API Service", "up", ""),
-        checkService("audit", "Audit Service", auditHealthUri),
-        checkService("mailer", "Mailer Service", mailerHealthUri),
-        checkService("notify", "Notification Service", notifyHealthUri)));
+    DependencyGuard.Snapshot mailer = mailerGuard.snapshot();
+    DependencyGuard.Snapshot notify = notifyGuard.snapshot();
+    return new DashboardStatusResponse(
+        List.of(
+            new ServiceStatus("gateway", "Gateway", "up", ""),
+            checkService("auth", "Auth Service", authHealthUri),
+            new ServiceStatus("api", "API Service", "up", ""),
+            checkService("audit", "Audit Service", auditHealthUri),
+            withCircuit(checkService("mailer", "Mailer Service", mailerHealthUri), mailer),
+            withCircuit(checkService("notify", "Notification Service", notifyHealthUri), notify)),
+        List.of(DependencyStatus.of(mailer), DependencyStatus.of(notify)));
   }
 
   @PostMapping("/send-test-email")
-  @ResponseStatus(HttpStatus.OK)
-  public StatusResponse sendTestEmail(@Valid @RequestBody MailRequest request) {
+  public ResponseEntity<StatusResponse> sendTestEmail(@Valid @RequestBody MailRequest request) {
+    if (mailOutbox.isEnabled()) {
+      mailOutbox.append(request, currentActor());
+      return ResponseEntity.accepted().body(new StatusResponse("queued"));
+    }
     boolean sent = mailerClient.send(request);
     if (!sent) {
       auditClient.sendEvent("EMAIL_FAILED", currentActor(), "mailer error", API_SERVICE);
       throw new MailerUnavailableException();
     }
     auditClient.sendEvent("EMAIL_SENT", currentActor(), "sent to " + request.to(), API_SERVICE);
-    return new StatusResponse("ok");
+    return ResponseEntity.ok(new StatusResponse("ok"));
   }
 
   @PostMapping("/send-test-notification")
@@ -145,6 +165,16 @@ public class ApiController {
     }
   }
 
+  // The health probe can pass while calls still fail or crawl, so an open circuit is called out on the card.
+  private static ServiceStatus withCircuit(ServiceStatus status, DependencyGuard.Snapshot guard) {
+    if (guard.state() == DependencyGuard.State.CLOSED) {
+      return status;
+    }
+    String circuit = "circuit " + guard.state().name().toLowerCase().replace('_', '-');
+    String detail = status.detail().isEmpty() ? circuit : status.detail() + ", " + circuit;
+    return new ServiceStatus(status.key(), status.label(), status.state(), detail);
+  }
+
   private String deriveHealthUrl(String baseUrl, String suffix, String replacement) {
     String normalized = baseUrl.trim();
     return normalized.endsWith(suffix)
@@ -165,7 +195,26 @@ public class ApiController {
     return "ok";
   }
 
-  public record DashboardStatusResponse(List<ServiceStatus> services) {}
+  public record DashboardStatusResponse(List<ServiceStatus> services, List<DependencyStatus> dependencies) {}
+
+  public record DependencyStatus(
+      String key,
+      String circuit,
+      int inFlight,
+      int maxConcurrent,
+      double failureRate,
+      double slowCallRate) {
+
+    static DependencyStatus of(DependencyGuard.Snapshot snapshot) {
+      return new DependencyStatus(
+          snapshot.name(),
+          snapshot.state().name().toLowerCase(),
+          snapshot.inFlight(),
+          snapshot.maxConcurrent(),
+          snapshot.failureRate(),
+          snapshot.slowCallRate());
+    }
+  }
 
   public record ServiceStatus(String key, String label, String state, String detail) {}
 }
@@ -0,0 +1,113 @@
+package com.demo.devops.apiservice.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class DependencyGuardTest {
+  private final AtomicLong now = new AtomicLong();
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final AtomicInteger calls = new AtomicInteger();
+  private final DependencyGuard guard = new DependencyGuard(
+      "mailer",
+      meterRegistry,
+      2,
+      Duration.ofSeconds(1),
+      new DependencyGuard.Policy(4, 4, 0.5, 0.5, Duration.ofSeconds(30), 2),
+      now::get);
+
+  @Test
+  void theCircuitOpensOnceTheFailureRateCrossesTheThreshold() {
+    assertTrue(call(true, 0));
+    assertTrue(call(true, 0));
+    assertFalse(call(false, 0));
+    assertEquals(DependencyGuard.State.CLOSED, guard.snapshot().state());
+    assertFalse(call(false, 0));
+
+    assertEquals(DependencyGuard.State.OPEN, guard.snapshot().state());
+    assertFalse(call(true, 0));
+    assertEquals(4, calls.get());
+    assertEquals(1.0, meterRegistry.get("api.dependency.calls").tag("outcome", "rejected_open").counter().count());
+  }
+
+  @Test
+  void slowSuccessfulCallsAlsoOpenTheCircuit() {
+    for (int i = 0; i < 4; i++) {
+      call(true, i % 2 == 0 ? 1500 : 10);
+    }
+
+    assertEquals(DependencyGuard.State.OPEN, guard.snapshot().state());
+  }
+
+  @Test
+  void callsWithTheirOwnBudgetAreOnlySlowBeyondIt() {
+    for (int i = 0; i < 4; i++) {
+      guard.call(() -> {
+        now.addAndGet(Duration.ofMillis(1500).toNanos());
+        return true;
+      }, ok -> ok, false, Duration.ofSeconds(5));
+    }
+
+    assertEquals(DependencyGuard.State.CLOSED, guard.snapshot().state());
+    assertEquals(0.0, guard.snapshot().slowCallRate());
+  }
+
+  @Test
+  void halfOpenProbesCloseTheCircuitWhenTheyAllSucceed() {
+    tripOpen();
+    now.addAndGet(Duration.ofSeconds(30).toNanos());
+
+    assertEquals(DependencyGuard.State.HALF_OPEN, guard.snapshot().state());
+    assertTrue(call(true, 0));
+    assertTrue(call(true, 0));
+
+    assertEquals(DependencyGuard.State.CLOSED, guard.snapshot().state());
+    assertEquals(0.0, guard.snapshot().failureRate());
+  }
+
+  @Test
+  void aFailedProbeReopensTheCircuit() {
+    tripOpen();
+    now.addAndGet(Duration.ofSeconds(30).toNanos());
+
+    assertFalse(call(false, 0));
+
+    assertEquals(DependencyGuard.State.OPEN, guard.snapshot().state());
+    int before = calls.get();
+    assertFalse(call(true, 0));
+    assertEquals(before, calls.get());
+  }
+
+  @Test
+  void theBulkheadTurnsAwayCallsBeyondTheConcurrencyLimit() {
+    boolean outer = guard.call(
+        () -> guard.call(() -> guard.call(() -> true, ok -> ok, false), ok -> ok, false),
+        ok -> true,
+        false);
+
+    assertFalse(outer);
+    assertEquals(1.0, meterRegistry.get("api.dependency.calls").tag("outcome", "rejected_bulkhead").counter().count());
+    assertEquals(0, guard.snapshot().inFlight());
+  }
+
+  private void tripOpen() {
+    for (int i = 0; i < 4; i++) {
+      call(false, 0);
+    }
+    assertEquals(DependencyGuard.State.OPEN, guard.snapshot().state());
+  }
+
+  private boolean call(boolean succeed, long millis) {
+    return guard.call(() -> {
+      calls.incrementAndGet();
+      now.addAndGet(Duration.ofMillis(millis).toNanos());
+      return succeed;
+    }, ok -> ok, false);
+  }
+}
@@ -1,17 +1,28 @@
 package com.demo.devops.apiservice.client;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.client.ExpectedCount.times;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.jsonPath;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withException;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServiceUnavailable;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
 
 import com.demo.devops.apiservice.dto.MailRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.client.MockRestServiceServer;
@@ -25,7 +36,11 @@ class MailerClientTest {
         new RestTemplateBuilder(),
         "http://mailer.example/send",
         "test-mailer-access-value",
-        1000);
+        1000,
+        5000,
+        2000,
+        100,
+        guard());
     MockRestServiceServer server = MockRestServiceServer.bindTo(extractRestTemplate(client)).build();
 
     server.expect(requestTo("http://mailer.example/csrf"))
@@ -50,7 +65,11 @@ class MailerClientTest {
         new RestTemplateBuilder(),
         "http://mailer.example/send",
         "test-mailer-access-value",
-        1000);
+        1000,
+        5000,
+        2000,
+        100,
+        guard());
     MockRestServiceServer server = MockRestServiceServer.bindTo(extractRestTemplate(client)).build();
 
     server.expect(requestTo("http://mailer.example/csrf"))
@@ -63,7 +82,159 @@ class MailerClientTest {
     server.verify();
   }
 
+  @Test
+  void sendBatchPostsToTheBatchEndpointAndMapsPerMessageResults() {
+    MailerClient client = new MailerClient(
+        new RestTemplateBuilder(),
+        "http://mailer.example/send",
+        "test-mailer-access-value",
+        1000,
+        5000,
+        2000,
+        100,
+        guard());
+    MockRestServiceServer server = MockRestServiceServer.bindTo(extractBatchRestTemplate(client)).build();
+
+    server.expect(requestTo("http://mailer.example/csrf"))
+        .andRespond(withSuccess("{\"token\":\"csrf-token\"}", MediaType.APPLICATION_JSON));
+    server.expect(requestTo("http://mailer.example/send/batch"))
+        .andExpect(method(HttpMethod.POST))
+        .andExpect(header("x-mailer-key", "test-mailer-access-value"))
+        .andExpect(jsonPath("$.messages.length()").value(3))
+        .andRespond(withStatus(HttpStatus.ACCEPTED).contentType(MediaType.APPLICATION_JSON).body("""
+            {"accepted":2,"failed":1,"results":[
+              {"index":0,"id":"m-1","status":"queued","error":null},
+              {"index":1,"id":null,"status":"failed","error":"mail queue is full"},
+              {"index":2,"id":null,"status":"sending","error":null}]}
+            """));
+
+    MailerClient.BatchOutcome outcome = client.sendBatch(List.of(
+        new MailRequest("first@example.com", "hello", "world"),
+        new MailRequest("second@example.com", "hello", "world"),
+        new MailRequest("third@example.com", "hello", "world")));
+
+    assertEquals(MailerClient.BatchOutcome.Status.ANSWERED, outcome.status());
+    assertEquals(
+        List.of(
+            new MailerClient.BatchResult(true, null),
+            new MailerClient.BatchResult(false, "mail queue is full"),
+            MailerClient.BatchResult.sending()),
+        outcome.results());
+    server.verify();
+  }
+
+  @Test
+  void sendBatchReportsUnavailableWhenMailerIsDown() {
+    MailerClient client = new MailerClient(
+        new RestTemplateBuilder(),
+        "http://mailer.example/send",
+        "test-mailer-access-value",
+        1000,
+        5000,
+        2000,
+        100,
+        guard());
+    MockRestServiceServer server = MockRestServiceServer.bindTo(extractBatchRestTemplate(client)).build();
+
+    server.expect(requestTo("http://mailer.example/csrf"))
+        .andRespond(withSuccess("{\"token\":\"csrf-token\"}", MediaType.APPLICATION_JSON));
+    server.expect(requestTo("http://mailer.example/send/batch"))
+        .andRespond(withServiceUnavailable());
+
+    assertEquals(
+        MailerClient.BatchOutcome.Status.UNAVAILABLE,
+        client.sendBatch(List.of(new MailRequest("user@example.com", "hello", "world"))).status());
+    server.verify();
+  }
+
+  @Test
+  void sendBatchReportsAClientErrorAsARejectionRatherThanAnOutage() {
+    MailerClient client = new MailerClient(
+        new RestTemplateBuilder(),
+        "http://mailer.example/send",
+        "test-mailer-access-value",
+        1000,
+        5000,
+        2000,
+        100,
+        guard());
+    MockRestServiceServer server = MockRestServiceServer.bindTo(extractBatchRestTemplate(client)).build();
+
+    server.expect(requestTo("http://mailer.example/csrf"))
+        .andRespond(withSuccess("{\"token\":\"csrf-token\"}", MediaType.APPLICATION_JSON));
+    server.expect(requestTo("http://mailer.example/send/batch"))
+        .andExpect(jsonPath("$.messages[0].idempotencyKey").value("entry-1"))
+        .andRespond(withStatus(HttpStatus.BAD_REQUEST));
+
+    MailerClient.BatchOutcome outcome = client.sendBatch(
+        List.of(new MailRequest("user@example.com", "hello", "world").withIdempotencyKey("entry-1")));
+
+    assertEquals(MailerClient.BatchOutcome.Status.REJECTED, outcome.status());
+    assertEquals("mailer rejected the batch: 400", outcome.error());
+    server.verify();
+  }
+
+  @Test
+  void sendBatchReportsAReadTimeoutAsUnconfirmedRatherThanAnOutage() {
+    MailerClient client = new MailerClient(
+        new RestTemplateBuilder(),
+        "http://mailer.example/send",
+        "test-mailer-access-value",
+        1000,
+        5000,
+        2000,
+        100,
+        guard());
+    MockRestServiceServer server = MockRestServiceServer.bindTo(extractBatchRestTemplate(client)).build();
+
+    server.expect(requestTo("http://mailer.example/csrf"))
+        .andRespond(withSuccess("{\"token\":\"csrf-token\"}", MediaType.APPLICATION_JSON));
+    server.expect(requestTo("http://mailer.example/send/batch"))
+        .andRespond(withException(new SocketTimeoutException("Read timed out")));
+
+    assertEquals(
+        MailerClient.BatchOutcome.Status.UNCONFIRMED,
+        client.sendBatch(List.of(new MailRequest("user@example.com", "hello", "world"))).status());
+    server.verify();
+  }
+
   private static RestTemplate extractRestTemplate(MailerClient client) {
     return (RestTemplate) ReflectionTestUtils.getField(client, "restTemplate");
   }
+
+  private static RestTemplate extractBatchRestTemplate(MailerClient client) {
+    return (RestTemplate) ReflectionTestUtils.getField(client, "batchRestTemplate");
+  }
+
+  @Test
+  void sendFailsFastWithoutCallingTheMailerWhileTheCircuitIsOpen() {
+    DependencyGuard guard = new DependencyGuard("mailer", new SimpleMeterRegistry(), 10, Duration.ofSeconds(5),
+        new DependencyGuard.Policy(2, 2, 0.5, 1.0, Duration.ofMinutes(1), 1));
+    MailerClient client = new MailerClient(
+        new RestTemplateBuilder(),
+        "http://mailer.example/send",
+        "test-mailer-access-value",
+        1000,
+        5000,
+        2000,
+        100,
+        guard);
+    MockRestServiceServer server = MockRestServiceServer.bindTo(extractRestTemplate(client)).build();
+    server.expect(times(2), requestTo("http://mailer.example/csrf")).andRespond(withServiceUnavailable());
+
+    assertFalse(client.send(new MailRequest("user@example.com", "hello", "world")));
+    assertFalse(client.send(new MailRequest("user@example.com", "hello", "world")));
+    assertFalse(client.send(new MailRequest("user@example.com", "hello", "world")));
+    assertEquals(
+        MailerClient.BatchOutcome.unavailable(),
+        client.sendBatch(List.of(new MailRequest("user@example.com", "hello", "world"))));
+
+    server.verify();
+    assertEquals(DependencyGuard.State.OPEN, guard.snapshot().state());
+  }
+
+  private static DependencyGuard guard() {
+    return new DependencyGuard("mailer", new SimpleMeterRegistry(), 10, Duration.ofSeconds(5),
+        new DependencyGuard.Policy(20, 10, 0.5, 0.5, Duration.ofSeconds(30), 3));
+  }
 }
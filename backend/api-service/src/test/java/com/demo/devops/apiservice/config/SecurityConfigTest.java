@@ -13,6 +13,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import com.demo.devops.apiservice.client.AuditClient;
 import com.demo.devops.apiservice.client.MailerClient;
 import com.demo.devops.apiservice.client.NotificationClient;
+import com.demo.devops.apiservice.outbox.MailOutbox;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -45,6 +46,9 @@ class SecurityConfigTest {
   @MockitoBean
   private AuditClient auditClient;
 
+  @MockitoBean
+  private MailOutbox mailOutbox;
+
   @DynamicPropertySource
   static void registerProperties(DynamicPropertyRegistry registry) {
     registry.add("mailer.api-key", () -> "test-mailer-access-value");
@@ -0,0 +1,231 @@
+package com.demo.devops.apiservice.outbox;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.demo.devops.apiservice.client.AuditClient;
+import com.demo.devops.apiservice.client.MailerClient;
+import com.demo.devops.apiservice.dto.MailRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MailOutboxTest {
+  private static final MailRequest FIRST = new MailRequest("first@example.com", "hello", "world");
+  private static final MailRequest SECOND = new MailRequest("second@example.com", "hello", "world");
+
+  private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+  @TempDir
+  Path dir;
+
+  private MailerClient mailerClient;
+  private AuditClient auditClient;
+  private SimpleMeterRegistry meterRegistry;
+
+  @BeforeEach
+  void setUp() {
+    mailerClient = mock(MailerClient.class);
+    auditClient = mock(AuditClient.class);
+    meterRegistry = new SimpleMeterRegistry();
+  }
+
+  @Test
+  void relayDeliversAppendedMailInBatchesAndClearsTheOutbox() throws Exception {
+    MailOutbox outbox = outbox(2, 3, Duration.ZERO);
+    when(mailerClient.sendBatch(any()))
+        .thenReturn(MailerClient.BatchOutcome.answered(List.of(accepted(), accepted())))
+        .thenReturn(MailerClient.BatchOutcome.answered(List.of(accepted())));
+    String first = outbox.append(FIRST, "alice@example.com").id();
+    String second = outbox.append(SECOND, "bob@example.com").id();
+    String third = outbox.append(FIRST, "alice@example.com").id();
+
+    outbox.relay();
+
+    verify(mailerClient).sendBatch(List.of(FIRST.withIdempotencyKey(first), SECOND.withIdempotencyKey(second)));
+    verify(mailerClient).sendBatch(List.of(FIRST.withIdempotencyKey(third)));
+    verify(auditClient).sendEvent("EMAIL_SENT", "bob@example.com", "sent to second@example.com", "api-service");
+    assertEquals(3.0, outcome("relayed"));
+    assertTrue(isEmpty(dir.resolve("pending")));
+  }
+
+  @Test
+  void aMailerOutageKeepsEverythingAndPausesTheRelay() {
+    MailOutbox outbox = outbox(10, 2, Duration.ofMinutes(1));
+    when(mailerClient.sendBatch(any())).thenReturn(MailerClient.BatchOutcome.unavailable());
+    outbox.append(FIRST, "alice@example.com");
+
+    outbox.relay();
+    outbox.relay();
+
+    verify(mailerClient, times(1)).sendBatch(any());
+    verify(auditClient, never()).sendEvent(any(), any(), any(), any());
+    assertEquals(0.0, outcome("failed"));
+  }
+
+  @Test
+  void anEntryTheMailerIsStillSendingIsKeptWithoutChargingAnAttempt() throws Exception {
+    MailOutbox outbox = outbox(10, 1, Duration.ZERO);
+    when(mailerClient.sendBatch(any()))
+        .thenReturn(MailerClient.BatchOutcome.answered(List.of(MailerClient.BatchResult.sending())));
+    String id = outbox.append(FIRST, "alice@example.com").id();
+
+    outbox.relay();
+    outbox.relay();
+
+    verify(mailerClient, times(1)).sendBatch(any());
+    verify(auditClient, never()).sendEvent(any(), any(), any(), any());
+    assertEquals(0.0, outcome("relayed"));
+    assertEquals(0.0, outcome("failed"));
+    assertTrue(Files.exists(dir.resolve("pending").resolve(id + ".json")));
+  }
+
+  @Test
+  void anUnconfirmedBatchIsKeptWithoutChargingAttemptsOrPausingTheRelay() throws Exception {
+    MailOutbox outbox = outbox(10, 1, Duration.ofMinutes(1));
+    when(mailerClient.sendBatch(any())).thenReturn(MailerClient.BatchOutcome.unconfirmed());
+    String id = outbox.append(FIRST, "alice@example.com").id();
+
+    outbox.relay();
+    String later = outbox.append(SECOND, "bob@example.com").id();
+    outbox.relay();
+
+    verify(mailerClient).sendBatch(List.of(SECOND.withIdempotencyKey(later)));
+    verify(auditClient, never()).sendEvent(any(), any(), any(), any());
+    assertEquals(0.0, outcome("retried"));
+    assertEquals(0.0, outcome("failed"));
+    assertTrue(Files.exists(dir.resolve("pending").resolve(id + ".json")));
+  }
+
+  @Test
+  void rejectedMessagesAreRetriedThenMovedToFailed() throws Exception {
+    MailOutbox outbox = outbox(10, 2, Duration.ZERO);
+    when(mailerClient.sendBatch(any()))
+        .thenReturn(MailerClient.BatchOutcome.answered(List.of(new MailerClient.BatchResult(false, "full"))));
+    String id = outbox.append(FIRST, "alice@example.com").id();
+
+    outbox.relay();
+    outbox.relay();
+
+    assertEquals(1.0, outcome("retried"));
+    assertEquals(1.0, outcome("failed"));
+    verify(auditClient).sendEvent("EMAIL_FAILED", "alice@example.com", "mailer error", "api-service");
+    assertTrue(Files.exists(dir.resolve("failed").resolve(id + ".json")));
+  }
+
+  @Test
+  void aRejectedBatchIsResentSinglySoOnlyTheBadEntryIsCharged() throws Exception {
+    MailOutbox outbox = outbox(10, 1, Duration.ZERO);
+    when(mailerClient.sendBatch(any()))
+        .thenReturn(MailerClient.BatchOutcome.rejected("mailer rejected the batch: 400"))
+        .thenReturn(MailerClient.BatchOutcome.answered(List.of(accepted())))
+        .thenReturn(MailerClient.BatchOutcome.rejected("mailer rejected the batch: 400"));
+    String first = outbox.append(FIRST, "alice@example.com").id();
+    String bad = outbox.append(SECOND, "bob@example.com").id();
+
+    outbox.relay();
+
+    verify(mailerClient).sendBatch(List.of(FIRST.withIdempotencyKey(first)));
+    verify(mailerClient).sendBatch(List.of(SECOND.withIdempotencyKey(bad)));
+    assertEquals(1.0, outcome("relayed"));
+    assertEquals(1.0, outcome("failed"));
+    assertTrue(Files.exists(dir.resolve("failed").resolve(bad + ".json")));
+  }
+
+  @Test
+  void aSlowAuditServiceDoesNotHoldUpTheRelay() throws Exception {
+    MailOutbox outbox = new MailOutbox(
+        mailerClient, auditClient, objectMapper, meterRegistry, true, dir, 10, 3, Duration.ZERO, Duration.ZERO, 100, 1);
+    CountDownLatch auditReleased = new CountDownLatch(1);
+    doAnswer(invocation -> auditReleased.await(5, TimeUnit.SECONDS)).when(auditClient).sendEvent(any(), any(), any(), any());
+    when(mailerClient.sendBatch(any()))
+        .thenReturn(MailerClient.BatchOutcome.answered(List.of(accepted())))
+        .thenReturn(MailerClient.BatchOutcome.answered(List.of(accepted())))
+        .thenReturn(MailerClient.BatchOutcome.answered(List.of(accepted())));
+
+    try {
+      long startedAt = System.nanoTime();
+      for (MailRequest request : List.of(FIRST, SECOND, FIRST)) {
+        outbox.append(request, "alice@example.com");
+        outbox.relay();
+      }
+
+      assertTrue(System.nanoTime() - startedAt < TimeUnit.SECONDS.toNanos(1));
+      assertEquals(3.0, outcome("relayed"));
+      // One audit is in flight and one is queued, so the third is dropped rather than waited for.
+      assertEquals(1.0, meterRegistry.get("api.outbox.audits.dropped").counter().count());
+    } finally {
+      auditReleased.countDown();
+      outbox.shutdown();
+    }
+    verify(auditClient, timeout(5000).times(2)).sendEvent(any(), any(), any(), any());
+  }
+
+  @Test
+  void recoverReloadsEntriesWrittenByAPreviousProcess() {
+    String id = outbox(10, 3, Duration.ZERO).append(FIRST, "alice@example.com").id();
+    MailOutbox restarted = outbox(10, 3, Duration.ZERO);
+    when(mailerClient.sendBatch(any())).thenReturn(MailerClient.BatchOutcome.answered(List.of(accepted())));
+
+    restarted.recover();
+    restarted.relay();
+
+    verify(mailerClient).sendBatch(List.of(FIRST.withIdempotencyKey(id)));
+  }
+
+  @Test
+  void appendRejectsWhenTheOutboxIsFull() {
+    MailOutbox outbox = new MailOutbox(
+        mailerClient, auditClient, objectMapper, meterRegistry, true, dir, 10, 3, Duration.ZERO, Duration.ZERO, 1, 10);
+    outbox.append(FIRST, "alice@example.com");
+
+    assertThrows(OutboxFullException.class, () -> outbox.append(SECOND, "bob@example.com"));
+  }
+
+  private MailOutbox outbox(int batchSize, int maxAttempts, Duration backoff) {
+    return new MailOutbox(
+        mailerClient,
+        auditClient,
+        objectMapper,
+        meterRegistry,
+        true,
+        dir,
+        batchSize,
+        maxAttempts,
+        backoff,
+        backoff,
+        100,
+        Runnable::run);
+  }
+
+  private double outcome(String outcome) {
+    return meterRegistry.get("api.outbox.messages").tag("outcome", outcome).counter().count();
+  }
+
+  private static MailerClient.BatchResult accepted() {
+    return new MailerClient.BatchResult(true, null);
+  }
+
+  private static boolean isEmpty(Path path) throws Exception {
+    try (var files = Files.list(path)) {
+      return files.findAny().isEmpty();
+    }
+  }
+}
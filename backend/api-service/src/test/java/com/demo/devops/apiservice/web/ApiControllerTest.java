@@ -2,39 +2,54 @@ package com.demo.devops.apiservice.web;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import com.demo.devops.apiservice.client.AuditClient;
+import com.demo.devops.apiservice.client.DependencyGuard;
 import com.demo.devops.apiservice.client.MailerClient;
 import com.demo.devops.apiservice.client.NotificationClient;
 import com.demo.devops.apiservice.dto.MailRequest;
 import com.demo.devops.apiservice.dto.MessageResponse;
 import com.demo.devops.apiservice.dto.NotificationRequest;
 import com.demo.devops.apiservice.dto.StatusResponse;
+import com.demo.devops.apiservice.outbox.MailOutbox;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 class ApiControllerTest {
   private MailerClient mailerClient;
+  private MailOutbox mailOutbox;
   private NotificationClient notificationClient;
   private AuditClient auditClient;
+  private DependencyGuard mailerGuard;
+  private DependencyGuard notifyGuard;
   private ApiController controller;
 
   @BeforeEach
   void setUp() {
     mailerClient = Mockito.mock(MailerClient.class);
+    mailOutbox = Mockito.mock(MailOutbox.class);
     notificationClient = Mockito.mock(NotificationClient.class);
     auditClient = Mockito.mock(AuditClient.class);
+    mailerGuard = Mockito.mock(DependencyGuard.class);
+    notifyGuard = Mockito.mock(DependencyGuard.class);
     controller =
         new ApiController(
             mailerClient,
+            mailOutbox,
             notificationClient,
             auditClient,
+            mailerGuard,
+            notifyGuard,
             "http://localhost:18081/auth/health",
             "http://localhost:18084/audit/events",
             "http://localhost:18083/send",
@@ -70,14 +85,28 @@ class ApiControllerTest {
   void sendTestEmailReturnsOkWhenMailerSucceeds() {
     when(mailerClient.send(new MailRequest("user@example.com", "hello", "world"))).thenReturn(true);
 
-    StatusResponse response =
+    ResponseEntity<StatusResponse> response =
         controller.sendTestEmail(new MailRequest("user@example.com", "hello", "world"));
 
-    assertEquals("ok", response.status());
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals("ok", response.getBody().status());
     verify(auditClient)
         .sendEvent("EMAIL_SENT", "user@example.com", "sent to user@example.com", "api-service");
   }
 
+  @Test
+  void sendTestEmailAppendsToTheOutboxWhenEnabled() {
+    MailRequest request = new MailRequest("user@example.com", "hello", "world");
+    when(mailOutbox.isEnabled()).thenReturn(true);
+
+    ResponseEntity<StatusResponse> response = controller.sendTestEmail(request);
+
+    assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+    assertEquals("queued", response.getBody().status());
+    verify(mailOutbox).append(request, "user@example.com");
+    verifyNoInteractions(mailerClient, auditClient);
+  }
+
   @Test
   void sendTestEmailThrowsWhenMailerFails() {
     when(mailerClient.send(new MailRequest("user@example.com", "hello", "world"))).thenReturn(false);
@@ -119,4 +148,20 @@ class ApiControllerTest {
     verify(auditClient)
         .sendEvent("NOTIFY_SENT", "user@example.com", "sent to +12025550123", "api-service");
   }
+
+  @Test
+  void dashboardStatusCallsOutOpenCircuits() {
+    when(mailerGuard.snapshot()).thenReturn(
+        new DependencyGuard.Snapshot("mailer", DependencyGuard.State.OPEN, 0, 10, 0.8, 0.0));
+    when(notifyGuard.snapshot()).thenReturn(
+        new DependencyGuard.Snapshot("notify", DependencyGuard.State.CLOSED, 1, 10, 0.0, 0.0));
+
+    ApiController.DashboardStatusResponse status = controller.dashboardStatus();
+
+    ApiController.ServiceStatus mailer = status.services().stream()
+        .filter(service -> service.key().equals("mailer")).findFirst().orElseThrow();
+    assertTrue(mailer.detail().endsWith("circuit open"));
+    assertEquals("open", status.dependencies().get(0).circuit());
+    assertEquals(1, status.dependencies().get(1).inFlight());
+  }
 }
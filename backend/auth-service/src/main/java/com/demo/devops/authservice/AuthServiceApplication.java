@@ -1,11 +1,19 @@
 package com.demo.devops.authservice;
 
+import com.demo.devops.authservice.bootstrap.UserImportRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class AuthServiceApplication {
   public static void main(String[] args) {
-    SpringApplication.run(AuthServiceApplication.class, args);
+    ConfigurableApplicationContext context = SpringApplication.run(AuthServiceApplication.class, args);
+    // An import run is a one-shot job: shut down once the runner is done and report its result as the exit code.
+    if (context.getEnvironment().containsProperty(UserImportRunner.IMPORT_OPTION)) {
+      System.exit(SpringApplication.exit(context));
+    }
   }
 }
@@ -0,0 +1,11 @@
+package com.demo.devops.authservice.bootstrap;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class UserImportInProgressException extends RuntimeException {
+  public UserImportInProgressException() {
+    super("a user import is already running");
+  }
+}
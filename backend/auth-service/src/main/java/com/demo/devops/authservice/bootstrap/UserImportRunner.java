@@ -0,0 +1,66 @@
+package com.demo.devops.authservice.bootstrap;
+
+import com.demo.devops.authservice.dto.UserImportResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.ExitCodeGenerator;
+import org.springframework.stereotype.Component;
+
+@Component
+public class UserImportRunner implements ApplicationRunner, ExitCodeGenerator {
+  public static final String IMPORT_OPTION = "import-users";
+  private static final Logger LOG = LoggerFactory.getLogger(UserImportRunner.class);
+  private static final String FORMAT_OPTION = "import-format";
+
+  private final UserImportService userImportService;
+  private int exitCode;
+
+  public UserImportRunner(UserImportService userImportService) {
+    this.userImportService = userImportService;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) throws Exception {
+    List<String> paths = args.getOptionValues(IMPORT_OPTION);
+    if (paths == null || paths.isEmpty()) {
+      return;
+    }
+
+    for (String value : paths) {
+      Path path = Path.of(value);
+      UserImportService.Format format = format(path, args.getOptionValues(FORMAT_OPTION));
+      try (InputStream input = Files.newInputStream(path)) {
+        UserImportResponse result = userImportService.importUsers(input, format);
+        LOG.info(
+            "user_import_file_completed path={} imported={} skipped={} rejected={}",
+            path,
+            result.imported(),
+            result.skipped(),
+            result.rejected());
+      } catch (IOException | RuntimeException ex) {
+        LOG.error("user_import_file_failed path={} reason={}", path, ex.getMessage());
+        exitCode = 1;
+      }
+    }
+  }
+
+  @Override
+  public int getExitCode() {
+    return exitCode;
+  }
+
+  static UserImportService.Format format(Path path, List<String> explicitFormat) {
+    String format = explicitFormat == null || explicitFormat.isEmpty()
+        ? path.getFileName().toString().toLowerCase(Locale.ROOT)
+        : explicitFormat.get(0).toLowerCase(Locale.ROOT);
+    return format.endsWith("csv") ? UserImportService.Format.CSV : UserImportService.Format.NDJSON;
+  }
+}
@@ -0,0 +1,309 @@
+package com.demo.devops.authservice.bootstrap;
+
+import com.demo.devops.authservice.domain.UserAccount;
+import com.demo.devops.authservice.dto.UserImportResponse;
+import com.demo.devops.authservice.security.AuthChangeEvent;
+import com.demo.devops.authservice.security.AuthChangeFeed;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+public class UserImportService {
+  private static final Logger LOG = LoggerFactory.getLogger(UserImportService.class);
+  private static final String DEFAULT_ROLE = "user";
+  private static final Set<String> ROLES = Set.of("user", "admin");
+  private static final String INSERT_USER_SQL =
+      "INSERT INTO users (email, email_normalized, password_hash, role, created_at) VALUES (?, ?, ?, ?, ?)";
+  private static final String EXISTING_EMAILS_SQL =
+      "SELECT email_normalized FROM users WHERE email_normalized IN (:emails)";
+
+  public enum Format {
+    CSV,
+    NDJSON
+  }
+
+  private final NamedParameterJdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final PasswordEncoder passwordEncoder;
+  private final AuthChangeFeed authChanges;
+  private final ObjectMapper objectMapper;
+  private final ForkJoinPool hashingPool;
+  private final int batchSize;
+  private final long publishIntervalNanos;
+  private final AtomicBoolean running = new AtomicBoolean();
+  private final Counter importedCounter;
+  private final Counter skippedCounter;
+  private final Counter rejectedCounter;
+
+  public UserImportService(
+      NamedParameterJdbcTemplate jdbcTemplate,
+      TransactionTemplate transactionTemplate,
+      PasswordEncoder passwordEncoder,
+      AuthChangeFeed authChanges,
+      ObjectMapper objectMapper,
+      MeterRegistry meterRegistry,
+      @Value("${app.user-import.parallelism:0}") int parallelism,
+      @Value("${app.user-import.batch-size:1000}") int batchSize,
+      @Value("${app.user-import.publish-interval:PT5S}") Duration publishInterval) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+    this.passwordEncoder = passwordEncoder;
+    this.authChanges = authChanges;
+    this.objectMapper = objectMapper;
+    this.hashingPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    this.batchSize = batchSize;
+    this.publishIntervalNanos = publishInterval.toNanos();
+    this.importedCounter = rowCounter(meterRegistry, "imported");
+    this.skippedCounter = rowCounter(meterRegistry, "skipped");
+    this.rejectedCounter = rowCounter(meterRegistry, "rejected");
+  }
+
+  public UserImportResponse importUsers(InputStream input, Format format) throws IOException {
+    if (!running.compareAndSet(false, true)) {
+      throw new UserImportInProgressException();
+    }
+    long startedAt = System.nanoTime();
+    Progress progress = new Progress();
+    progress.publishedAt = startedAt;
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+      RowParser parser = format == Format.CSV ? new CsvRowParser(reader.readLine()) : this::parseJsonRow;
+      List<Row> chunk = new ArrayList<>(batchSize);
+      String line;
+      long lineNumber = format == Format.CSV ? 1 : 0;
+      while ((line = reader.readLine()) != null) {
+        lineNumber++;
+        if (line.isBlank()) {
+          continue;
+        }
+        Row row = parseOrNull(parser, line, lineNumber);
+        if (row == null) {
+          progress.rejected++;
+          rejectedCounter.increment();
+          continue;
+        }
+        chunk.add(row);
+        if (chunk.size() == batchSize) {
+          importChunk(chunk, progress, startedAt);
+          chunk.clear();
+        }
+      }
+      if (!chunk.isEmpty()) {
+        importChunk(chunk, progress, startedAt);
+      }
+    } finally {
+      running.set(false);
+      // Chunks commit on their own, so users from the chunks that made it in are announced even if a later one
+      // failed.
+      if (progress.unpublished > 0) {
+        publishImported(progress);
+      }
+    }
+
+    long elapsedMs = (System.nanoTime() - startedAt) / 1_000_000;
+    LOG.info(
+        "user_import_completed imported={} skipped={} rejected={} elapsedMs={}",
+        progress.imported,
+        progress.skipped,
+        progress.rejected,
+        elapsedMs);
+    return new UserImportResponse(progress.imported, progress.skipped, progress.rejected, elapsedMs);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    hashingPool.shutdownNow();
+  }
+
+  private void importChunk(List<Row> chunk, Progress progress, long startedAt) {
+    Set<String> existing = new HashSet<>(jdbcTemplate.queryForList(
+        EXISTING_EMAILS_SQL,
+        new MapSqlParameterSource("emails", chunk.stream().map(Row::emailNormalized).toList()),
+        String.class));
+    List<Row> fresh = new ArrayList<>(chunk.size());
+    for (Row row : chunk) {
+      if (existing.add(row.emailNormalized())) {
+        fresh.add(row);
+      }
+    }
+    long skipped = chunk.size() - fresh.size();
+
+    List<Object[]> inserts = hashingPool.submit(() -> fresh.parallelStream()
+        .map(row -> new Object[] {
+            row.email(),
+            row.emailNormalized(),
+            passwordEncoder.encode(row.password()),
+            row.role(),
+            Timestamp.from(Instant.now())
+        })
+        .toList()).join();
+    transactionTemplate.executeWithoutResult(
+        status -> jdbcTemplate.getJdbcTemplate().batchUpdate(INSERT_USER_SQL, inserts));
+
+    progress.imported += fresh.size();
+    progress.unpublished += fresh.size();
+    progress.skipped += skipped;
+    importedCounter.increment(fresh.size());
+    skippedCounter.increment(skipped);
+    LOG.info(
+        "user_import_progress imported={} skipped={} rejected={} elapsedMs={}",
+        progress.imported,
+        progress.skipped,
+        progress.rejected,
+        (System.nanoTime() - startedAt) / 1_000_000);
+    // Each event makes every instance rebuild its user directory, so announce committed chunks at most once per
+    // publish interval rather than once per chunk.
+    if (progress.unpublished > 0 && System.nanoTime() - progress.publishedAt >= publishIntervalNanos) {
+      publishImported(progress);
+    }
+  }
+
+  private void publishImported(Progress progress) {
+    authChanges.publish(AuthChangeEvent.usersImported());
+    progress.unpublished = 0;
+    progress.publishedAt = System.nanoTime();
+  }
+
+  private Row parseOrNull(RowParser parser, String line, long lineNumber) {
+    try {
+      Row row = parser.parse(line);
+      if (row.email() == null || !row.email().contains("@") || row.password() == null || row.password().isEmpty()) {
+        LOG.warn("user_import_row_rejected line={} reason=missing_email_or_password", lineNumber);
+        return null;
+      }
+      if (!ROLES.contains(row.role())) {
+        LOG.warn("user_import_row_rejected line={} reason=unknown_role", lineNumber);
+        return null;
+      }
+      return row;
+    } catch (IOException | IllegalArgumentException ex) {
+      LOG.warn("user_import_row_rejected line={} reason=malformed", lineNumber);
+      return null;
+    }
+  }
+
+  private Row parseJsonRow(String line) throws IOException {
+    JsonNode node = objectMapper.readTree(line);
+    return Row.of(text(node, "email"), text(node, "password"), text(node, "role"));
+  }
+
+  private static String text(JsonNode node, String field) {
+    JsonNode value = node.get(field);
+    return value == null || value.isNull() ? null : value.asText();
+  }
+
+  private static Counter rowCounter(MeterRegistry meterRegistry, String outcome) {
+    return Counter.builder("auth.user_import.rows")
+        .description("Rows processed by the bulk user importer")
+        .tag("outcome", outcome)
+        .register(meterRegistry);
+  }
+
+  private record Row(String email, String emailNormalized, String password, String role) {
+    private static Row of(String email, String password, String role) {
+      String trimmedEmail = email == null ? null : email.trim();
+      return new Row(
+          trimmedEmail,
+          UserAccount.normalizeEmail(trimmedEmail),
+          password,
+          role == null || role.isBlank() ? DEFAULT_ROLE : role.trim().toLowerCase(Locale.ROOT));
+    }
+  }
+
+  private static final class Progress {
+    private long imported;
+    private long skipped;
+    private long rejected;
+    private long unpublished;
+    private long publishedAt;
+  }
+
+  @FunctionalInterface
+  private interface RowParser {
+    Row parse(String line) throws IOException;
+  }
+
+  private static final class CsvRowParser implements RowParser {
+    private final int emailColumn;
+    private final int passwordColumn;
+    private final int roleColumn;
+
+    private CsvRowParser(String header) {
+      List<String> columns = header == null
+          ? List.of()
+          : splitCsv(header).stream().map(column -> column.trim().toLowerCase(Locale.ROOT)).toList();
+      this.emailColumn = columns.indexOf("email");
+      this.passwordColumn = columns.indexOf("password");
+      this.roleColumn = columns.indexOf("role");
+      if (emailColumn < 0 || passwordColumn < 0) {
+        throw new IllegalArgumentException("CSV header must contain email and password columns");
+      }
+    }
+
+    @Override
+    public Row parse(String line) {
+      List<String> fields = splitCsv(line);
+      return Row.of(field(fields, emailColumn), field(fields, passwordColumn), field(fields, roleColumn));
+    }
+
+    private static String field(List<String> fields, int column) {
+      return column >= 0 && column < fields.size() ? fields.get(column) : null;
+    }
+
+    private static List<String> splitCsv(String line) {
+      List<String> fields = new ArrayList<>();
+      StringBuilder field = new StringBuilder();
+      boolean quoted = false;
+      for (int i = 0; i < line.length(); i++) {
+        char c = line.charAt(i);
+        if (quoted) {
+          if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+            field.append('"');
+            i++;
+          } else if (c == '"') {
+            quoted = false;
+          } else {
+            field.append(c);
+          }
+        } else if (c == '"') {
+          quoted = true;
+        } else if (c == ',') {
+          fields.add(field.toString());
+          field.setLength(0);
+        } else {
+          field.append(c);
+        }
+      }
+      if (quoted) {
+        throw new IllegalArgumentException("unterminated quoted field");
+      }
+      fields.add(field.toString());
+      return fields;
+    }
+  }
+}
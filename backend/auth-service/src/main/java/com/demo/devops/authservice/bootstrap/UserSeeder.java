@@ -2,6 +2,8 @@ package com.demo.devops.authservice.bootstrap;
 
 import com.demo.devops.authservice.domain.UserAccount;
 import com.demo.devops.authservice.repository.UserRepository;
+import com.demo.devops.authservice.security.AuthChangeEvent;
+import com.demo.devops.authservice.security.AuthChangeFeed;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -11,30 +13,37 @@ import org.springframework.stereotype.Component;
 public class UserSeeder implements CommandLineRunner {
   private final UserRepository userRepository;
   private final PasswordEncoder passwordEncoder;
+  private final AuthChangeFeed authChanges;
   private final String demoEmail;
   private final String demoPassword;
 
   public UserSeeder(
       UserRepository userRepository,
       PasswordEncoder passwordEncoder,
+      AuthChangeFeed authChanges,
       @Value("${app.demo-user.email}") String demoEmail,
       @Value("${app.demo-user.password}") String demoPassword) {
     this.userRepository = userRepository;
     this.passwordEncoder = passwordEncoder;
+    this.authChanges = authChanges;
     this.demoEmail = demoEmail;
     this.demoPassword = demoPassword;
   }
 
   @Override
   public void run(String... args) {
-    UserAccount user = userRepository.findByEmailIgnoreCase(demoEmail).orElseGet(UserAccount::new);
+    UserAccount user = userRepository.findByEmailNormalized(UserAccount.normalizeEmail(demoEmail))
+        .orElseGet(UserAccount::new);
     user.setEmail(demoEmail);
     user.setRole("user");
 
-    if (user.getPasswordHash() == null || !passwordEncoder.matches(demoPassword, user.getPasswordHash())) {
+    if (user.getPasswordHash() == null
+        || passwordEncoder.upgradeEncoding(user.getPasswordHash())
+        || !passwordEncoder.matches(demoPassword, user.getPasswordHash())) {
       user.setPasswordHash(passwordEncoder.encode(demoPassword));
     }
 
     userRepository.save(user);
+    authChanges.publish(AuthChangeEvent.userChanged(user.getEmail()));
   }
 }
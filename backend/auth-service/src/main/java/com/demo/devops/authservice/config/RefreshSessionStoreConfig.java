@@ -0,0 +1,37 @@
+package com.demo.devops.authservice.config;
+
+import com.demo.devops.authservice.repository.RefreshTokenRepository;
+import com.demo.devops.authservice.security.AuthChangeFeed;
+import com.demo.devops.authservice.security.JpaRefreshSessionStore;
+import com.demo.devops.authservice.security.JwtService;
+import com.demo.devops.authservice.security.RefreshSessionStore;
+import com.demo.devops.authservice.security.StatelessRefreshSessionStore;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Configuration
+public class RefreshSessionStoreConfig {
+
+  @Bean
+  public RefreshSessionStore refreshSessionStore(
+      RefreshTokenRepository refreshTokenRepository,
+      JdbcTemplate jdbcTemplate,
+      TransactionTemplate transactionTemplate,
+      JwtService jwtService,
+      AuthChangeFeed authChanges,
+      @Value("${app.refresh-tokens.store:database}") String store) {
+    return switch (store.trim().toLowerCase()) {
+      case "database" -> new JpaRefreshSessionStore(refreshTokenRepository);
+      case "stateless" -> new StatelessRefreshSessionStore(
+          jdbcTemplate,
+          transactionTemplate,
+          Duration.ofSeconds(jwtService.getRefreshExpirationSeconds()),
+          authChanges);
+      default -> throw new IllegalStateException("Unsupported app.refresh-tokens.store: " + store);
+    };
+  }
+}
@@ -1,16 +1,22 @@
 package com.demo.devops.authservice.config;
 
+import com.demo.devops.authservice.security.AdaptivePasswordEncoder;
+import com.demo.devops.authservice.security.CsrfTokenGenerator;
 import com.demo.devops.authservice.security.JwtAuthFilter;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import java.util.UUID;
+import java.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.provisioning.InMemoryUserDetailsManager;
@@ -20,17 +26,36 @@ import org.springframework.security.web.csrf.CsrfToken;
 import org.springframework.security.web.csrf.CsrfTokenRepository;
 import org.springframework.security.web.csrf.CsrfTokenRequestAttributeHandler;
 import org.springframework.security.web.csrf.DefaultCsrfToken;
+import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
 import org.springframework.web.util.WebUtils;
 
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
+  private static final Logger LOG = LoggerFactory.getLogger(SecurityConfig.class);
+
   private final JwtAuthFilter jwtAuthFilter;
 
   public SecurityConfig(JwtAuthFilter jwtAuthFilter) {
     this.jwtAuthFilter = jwtAuthFilter;
   }
 
+  @Bean
+  @Order(1)
+  public SecurityFilterChain sessionFilterChain(HttpSecurity http) throws Exception {
+    http
+        .securityMatcher(PathPatternRequestMatcher.withDefaults().matcher(HttpMethod.GET, "/auth/session"))
+        .csrf(AbstractHttpConfigurer::disable)
+        .requestCache(AbstractHttpConfigurer::disable)
+        .anonymous(AbstractHttpConfigurer::disable)
+        .logout(AbstractHttpConfigurer::disable)
+        .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+        .authorizeHttpRequests(auth -> auth.anyRequest().permitAll())
+        .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
+
+    return http.build();
+  }
+
   @Bean
   public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
     http
@@ -41,10 +66,10 @@ public class SecurityConfig {
         .authorizeHttpRequests(auth -> auth
             .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
             .requestMatchers("/auth/health").permitAll()
-            .requestMatchers(HttpMethod.GET, "/auth/session").permitAll()
             .requestMatchers(HttpMethod.POST, "/auth/login").permitAll()
             .requestMatchers(HttpMethod.POST, "/auth/refresh").permitAll()
             .requestMatchers(HttpMethod.POST, "/auth/logout").permitAll()
+            .requestMatchers(HttpMethod.POST, "/auth/admin/users/import").hasRole("ADMIN")
             .requestMatchers("/v3/api-docs/**").permitAll()
             .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
             .requestMatchers("/actuator/info", "/actuator/prometheus").permitAll()
@@ -55,8 +80,19 @@ public class SecurityConfig {
   }
 
   @Bean
-  public PasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder();
+  public PasswordEncoder passwordEncoder(
+      @Value("${app.password-hashing.bcrypt-strength:10}") int bcryptStrength,
+      @Value("${app.password-hashing.target-hash-time:PT0.1S}") Duration targetHashTime) {
+    // The configured strength is a floor; calibration can only raise it on hosts fast enough to afford more.
+    int calibrated = targetHashTime.isZero() ? 0 : AdaptivePasswordEncoder.calibrateStrength(targetHashTime);
+    int strength = Math.max(bcryptStrength, calibrated);
+    LOG.info(
+        "password_hash_strength_selected strength={} configured={} calibrated={} targetMs={}",
+        strength,
+        bcryptStrength,
+        calibrated,
+        targetHashTime.toMillis());
+    return new AdaptivePasswordEncoder(strength);
   }
 
   @Bean
@@ -68,7 +104,7 @@ public class SecurityConfig {
     return new CsrfTokenRepository() {
       @Override
       public CsrfToken generateToken(HttpServletRequest request) {
-        return new DefaultCsrfToken("X-XSRF-TOKEN", "_csrf", UUID.randomUUID().toString());
+        return new DefaultCsrfToken("X-XSRF-TOKEN", "_csrf", CsrfTokenGenerator.next());
       }
 
       @Override
@@ -13,8 +13,9 @@ import java.time.Instant;
 @Table(
     name = "refresh_tokens",
     indexes = {
-      @Index(name = "idx_refresh_tokens_user_email", columnList = "user_email"),
-      @Index(name = "idx_refresh_tokens_expires_at", columnList = "expires_at")
+      @Index(name = "idx_refresh_tokens_user_active", columnList = "user_email, revoked_at"),
+      @Index(name = "idx_refresh_tokens_expires_at", columnList = "expires_at"),
+      @Index(name = "idx_refresh_tokens_revoked_at", columnList = "revoked_at")
     })
 public class RefreshTokenSession {
   @Id
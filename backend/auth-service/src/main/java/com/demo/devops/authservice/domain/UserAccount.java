@@ -7,6 +7,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 import java.time.Instant;
+import java.util.Locale;
 
 @Entity
 @Table(name = "users")
@@ -18,6 +19,9 @@ public class UserAccount {
   @Column(nullable = false, unique = true)
   private String email;
 
+  @Column(name = "email_normalized", nullable = false, unique = true)
+  private String emailNormalized;
+
   @Column(name = "password_hash", nullable = false)
   private String passwordHash;
 
@@ -37,6 +41,11 @@ public class UserAccount {
 
   public void setEmail(String email) {
     this.email = email;
+    this.emailNormalized = normalizeEmail(email);
+  }
+
+  public String getEmailNormalized() {
+    return emailNormalized;
   }
 
   public String getPasswordHash() {
@@ -62,4 +71,8 @@ public class UserAccount {
   public void setCreatedAt(Instant createdAt) {
     this.createdAt = createdAt;
   }
+
+  public static String normalizeEmail(String email) {
+    return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+  }
 }
@@ -0,0 +1,3 @@
+package com.demo.devops.authservice.dto;
+
+public record UserImportResponse(long imported, long skipped, long rejected, long elapsedMs) {}
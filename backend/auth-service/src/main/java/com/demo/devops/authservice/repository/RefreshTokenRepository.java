@@ -2,19 +2,14 @@ package com.demo.devops.authservice.repository;
 
 import com.demo.devops.authservice.domain.RefreshTokenSession;
 import java.time.Instant;
-import java.util.Optional;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 public interface RefreshTokenRepository extends JpaRepository<RefreshTokenSession, Long> {
-  Optional<RefreshTokenSession>
-      findFirstByUserEmailAndTokenHashAndRevokedAtIsNullAndExpiresAtAfter(
-          String userEmail,
-          String tokenHash,
-          Instant now);
-
   @Modifying
   @Query(
       """
@@ -38,4 +33,37 @@ public interface RefreshTokenRepository extends JpaRepository<RefreshTokenSessio
   void revokeByTokenHash(
       @Param("tokenHash") String tokenHash,
       @Param("revokedAt") Instant revokedAt);
+
+  @Modifying
+  @Query(
+      """
+      update RefreshTokenSession session
+         set session.revokedAt = :revokedAt
+       where session.tokenHash = :tokenHash
+         and session.userEmail = :userEmail
+         and session.revokedAt is null
+         and session.expiresAt > :revokedAt
+      """)
+  int revokeIfActive(
+      @Param("userEmail") String userEmail,
+      @Param("tokenHash") String tokenHash,
+      @Param("revokedAt") Instant revokedAt);
+
+  @Query(
+      """
+      select session.id
+        from RefreshTokenSession session
+       where session.expiresAt < :now
+       order by session.expiresAt
+      """)
+  List<Long> findExpiredIds(@Param("now") Instant now, Pageable page);
+
+  @Query(
+      """
+      select session.id
+        from RefreshTokenSession session
+       where session.revokedAt < :revokedBefore
+       order by session.revokedAt
+      """)
+  List<Long> findRevokedIds(@Param("revokedBefore") Instant revokedBefore, Pageable page);
 }
@@ -1,9 +1,22 @@
 package com.demo.devops.authservice.repository;
 
 import com.demo.devops.authservice.domain.UserAccount;
+import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface UserRepository extends JpaRepository<UserAccount, Long> {
-  Optional<UserAccount> findByEmailIgnoreCase(String email);
+  Optional<UserAccount> findByEmailNormalized(String emailNormalized);
+
+  @Query("select u.id as id, u.emailNormalized as emailNormalized from UserAccount u where u.id > :afterId order by u.id")
+  List<EmailRow> findEmailsAfter(@Param("afterId") long afterId, Pageable page);
+
+  interface EmailRow {
+    Long getId();
+
+    String getEmailNormalized();
+  }
 }
@@ -0,0 +1,65 @@
+package com.demo.devops.authservice.security;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+public class AdaptivePasswordEncoder implements PasswordEncoder {
+  static final int MIN_STRENGTH = 10;
+  static final int MAX_STRENGTH = 14;
+
+  private static final String BCRYPT_ID = "bcrypt";
+  private static final String BCRYPT_PREFIX = "{" + BCRYPT_ID + "}";
+  private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[aby]?\\$(\\d{2})\\$");
+  private static final int CALIBRATION_STRENGTH = 8;
+  private static final int CALIBRATION_ROUNDS = 3;
+
+  private final int strength;
+  private final DelegatingPasswordEncoder delegate;
+
+  public AdaptivePasswordEncoder(int strength) {
+    BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(strength);
+    this.strength = strength;
+    this.delegate = new DelegatingPasswordEncoder(BCRYPT_ID, Map.of(BCRYPT_ID, bcrypt));
+    this.delegate.setDefaultPasswordEncoderForMatches(bcrypt);
+  }
+
+  // Rounds down, so the chosen cost never overshoots the target and small timing noise near a boundary does not
+  // flip the result between restarts.
+  public static int calibrateStrength(Duration targetHashTime) {
+    BCryptPasswordEncoder sampleEncoder = new BCryptPasswordEncoder(CALIBRATION_STRENGTH);
+    long sampleNanos = Long.MAX_VALUE;
+    for (int round = 0; round < CALIBRATION_ROUNDS; round++) {
+      long startedAt = System.nanoTime();
+      sampleEncoder.encode("calibration-" + round);
+      sampleNanos = Math.min(sampleNanos, Math.max(1, System.nanoTime() - startedAt));
+    }
+    double doublings = Math.log((double) targetHashTime.toNanos() / sampleNanos) / Math.log(2);
+    int calibrated = CALIBRATION_STRENGTH + (int) Math.floor(doublings);
+    return Math.max(MIN_STRENGTH, Math.min(MAX_STRENGTH, calibrated));
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return delegate.encode(rawPassword);
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    return delegate.matches(rawPassword, encodedPassword);
+  }
+
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    if (encodedPassword == null || !encodedPassword.startsWith(BCRYPT_PREFIX)) {
+      return true;
+    }
+    Matcher cost = BCRYPT_COST.matcher(encodedPassword.substring(BCRYPT_PREFIX.length()));
+    // Only cheaper hashes are upgraded; replicas that settled on different costs must not rehash each other's output.
+    return !cost.find() || Integer.parseInt(cost.group(1)) < strength;
+  }
+}
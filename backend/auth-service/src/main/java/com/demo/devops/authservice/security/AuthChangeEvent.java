@@ -0,0 +1,28 @@
+package com.demo.devops.authservice.security;
+
+import java.time.Instant;
+
+public record AuthChangeEvent(Type type, String userEmail, String tokenId, Instant notBefore, Instant expiresAt) {
+  public enum Type {
+    USER_CHANGED,
+    SESSIONS_REVOKED,
+    TOKEN_REVOKED,
+    USERS_IMPORTED
+  }
+
+  public static AuthChangeEvent userChanged(String userEmail) {
+    return new AuthChangeEvent(Type.USER_CHANGED, userEmail, null, null, null);
+  }
+
+  public static AuthChangeEvent sessionsRevoked(String userEmail, Instant notBefore) {
+    return new AuthChangeEvent(Type.SESSIONS_REVOKED, userEmail, null, notBefore, null);
+  }
+
+  public static AuthChangeEvent tokenRevoked(String tokenId, Instant expiresAt) {
+    return new AuthChangeEvent(Type.TOKEN_REVOKED, null, tokenId, null, expiresAt);
+  }
+
+  public static AuthChangeEvent usersImported() {
+    return new AuthChangeEvent(Type.USERS_IMPORTED, null, null, null, null);
+  }
+}
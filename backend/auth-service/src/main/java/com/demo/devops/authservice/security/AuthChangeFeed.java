@@ -0,0 +1,168 @@
+package com.demo.devops.authservice.security;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Component
+public class AuthChangeFeed {
+  private static final Logger LOG = LoggerFactory.getLogger(AuthChangeFeed.class);
+  private static final String INSERT_SQL =
+      "INSERT INTO auth_change_events (event_type, user_email, token_id, not_before, expires_at, created_at) "
+          + "VALUES (?, ?, ?, ?, ?, ?)";
+  private static final String POLL_SQL =
+      "SELECT id, event_type, user_email, token_id, not_before, expires_at FROM auth_change_events "
+          + "WHERE id > ? ORDER BY id LIMIT ?";
+  private static final String HIGH_WATER_SQL = "SELECT COALESCE(MAX(id), 0) FROM auth_change_events";
+  private static final String PURGE_SQL = "DELETE FROM auth_change_events WHERE created_at < ?";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final ObjectProvider<AuthChangeListener> listeners;
+  private final long gapGraceMillis;
+  private final Duration retention;
+  private final int pageSize;
+  private final LongSupplier currentTimeMillis;
+  private final TreeMap<Long, Long> recentlySeen = new TreeMap<>();
+  private long lowWater = -1;
+
+  @Autowired
+  public AuthChangeFeed(
+      JdbcTemplate jdbcTemplate,
+      ObjectProvider<AuthChangeListener> listeners,
+      @Value("${app.change-events.gap-grace:PT10S}") Duration gapGrace,
+      @Value("${app.change-events.retention:PT1H}") Duration retention,
+      @Value("${app.change-events.page-size:500}") int pageSize) {
+    this(jdbcTemplate, listeners, gapGrace, retention, pageSize, System::currentTimeMillis);
+  }
+
+  AuthChangeFeed(
+      JdbcTemplate jdbcTemplate,
+      ObjectProvider<AuthChangeListener> listeners,
+      Duration gapGrace,
+      Duration retention,
+      int pageSize,
+      LongSupplier currentTimeMillis) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.listeners = listeners;
+    this.gapGraceMillis = gapGrace.toMillis();
+    this.retention = retention;
+    this.pageSize = pageSize;
+    this.currentTimeMillis = currentTimeMillis;
+  }
+
+  public void publish(AuthChangeEvent event) {
+    publishAll(List.of(event));
+  }
+
+  public void publishAll(List<AuthChangeEvent> events) {
+    if (events.isEmpty()) {
+      return;
+    }
+    Timestamp now = Timestamp.from(Instant.now());
+    jdbcTemplate.batchUpdate(INSERT_SQL, events.stream()
+        .map(event -> new Object[] {
+            event.type().name(),
+            event.userEmail(),
+            event.tokenId(),
+            timestamp(event.notBefore()),
+            timestamp(event.expiresAt()),
+            now
+        })
+        .toList());
+    // Inside a transaction local listeners wait for the commit, so a rolled-back change is never applied.
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          events.forEach(AuthChangeFeed.this::dispatch);
+        }
+      });
+    } else {
+      events.forEach(this::dispatch);
+    }
+  }
+
+  // Fixes where polling starts. A listener that loads its state from the database calls this before loading, so
+  // events committed in between are replayed rather than skipped; replaying one already loaded is harmless.
+  public synchronized void seed() {
+    if (lowWater < 0) {
+      lowWater = jdbcTemplate.queryForObject(HIGH_WATER_SQL, Long.class);
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${app.change-events.poll-interval:PT1S}")
+  public synchronized void poll() {
+    long now = currentTimeMillis.getAsLong();
+    if (lowWater < 0) {
+      seed();
+      return;
+    }
+
+    long cursor = lowWater;
+    List<Map.Entry<Long, AuthChangeEvent>> page;
+    do {
+      page = jdbcTemplate.query(POLL_SQL, AuthChangeFeed::mapRow, cursor, pageSize);
+      for (Map.Entry<Long, AuthChangeEvent> row : page) {
+        cursor = row.getKey();
+        if (recentlySeen.putIfAbsent(row.getKey(), now) == null) {
+          dispatch(row.getValue());
+        }
+      }
+    } while (page.size() == pageSize);
+
+    while (!recentlySeen.isEmpty() && recentlySeen.firstEntry().getValue() < now - gapGraceMillis) {
+      lowWater = recentlySeen.pollFirstEntry().getKey();
+    }
+  }
+
+  @Scheduled(
+      initialDelayString = "${app.change-events.purge.initial-delay:PT5M}",
+      fixedDelayString = "${app.change-events.purge.interval:PT15M}")
+  public void purge() {
+    int deleted = jdbcTemplate.update(PURGE_SQL, Timestamp.from(Instant.now().minus(retention)));
+    LOG.info("auth_change_events_purged deleted={}", deleted);
+  }
+
+  private void dispatch(AuthChangeEvent event) {
+    listeners.orderedStream().forEach(listener -> {
+      try {
+        listener.onAuthChange(event);
+      } catch (RuntimeException ex) {
+        LOG.warn("auth_change_dispatch_failed type={} reason={}", event.type(), ex.getMessage());
+      }
+    });
+  }
+
+  private static Map.Entry<Long, AuthChangeEvent> mapRow(ResultSet resultSet, int rowNum) throws SQLException {
+    return Map.entry(resultSet.getLong("id"), new AuthChangeEvent(
+        AuthChangeEvent.Type.valueOf(resultSet.getString("event_type")),
+        resultSet.getString("user_email"),
+        resultSet.getString("token_id"),
+        instant(resultSet.getTimestamp("not_before")),
+        instant(resultSet.getTimestamp("expires_at"))));
+  }
+
+  private static Timestamp timestamp(Instant instant) {
+    return instant == null ? null : Timestamp.from(instant);
+  }
+
+  private static Instant instant(Timestamp timestamp) {
+    return timestamp == null ? null : timestamp.toInstant();
+  }
+}
@@ -0,0 +1,5 @@
+package com.demo.devops.authservice.security;
+
+public interface AuthChangeListener {
+  void onAuthChange(AuthChangeEvent event);
+}
@@ -0,0 +1,36 @@
+package com.demo.devops.authservice.security;
+
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+
+public final class CsrfTokenGenerator {
+  private static final int TOKEN_BYTES = 16;
+  private static final int BUFFER_BYTES = TOKEN_BYTES * 64;
+  private static final SecureRandom RANDOM = new SecureRandom();
+  private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+  private static final ThreadLocal<RandomBuffer> BUFFERS = ThreadLocal.withInitial(RandomBuffer::new);
+
+  private CsrfTokenGenerator() {
+  }
+
+  public static String next() {
+    return ENCODER.encodeToString(BUFFERS.get().next());
+  }
+
+  private static final class RandomBuffer {
+    private final byte[] bytes = new byte[BUFFER_BYTES];
+    private int position = BUFFER_BYTES;
+
+    byte[] next() {
+      if (position == BUFFER_BYTES) {
+        RANDOM.nextBytes(bytes);
+        position = 0;
+      }
+      byte[] token = Arrays.copyOfRange(bytes, position, position + TOKEN_BYTES);
+      Arrays.fill(bytes, position, position + TOKEN_BYTES, (byte) 0);
+      position += TOKEN_BYTES;
+      return token;
+    }
+  }
+}
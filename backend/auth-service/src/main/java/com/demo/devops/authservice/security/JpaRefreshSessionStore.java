@@ -0,0 +1,47 @@
+package com.demo.devops.authservice.security;
+
+import com.demo.devops.authservice.domain.RefreshTokenSession;
+import com.demo.devops.authservice.repository.RefreshTokenRepository;
+import java.time.Instant;
+import org.springframework.transaction.annotation.Transactional;
+
+public class JpaRefreshSessionStore implements RefreshSessionStore {
+  private final RefreshTokenRepository refreshTokenRepository;
+
+  // No change events are published here: only the stateless store keeps revocation state in memory, so in
+  // database mode nothing would consume them.
+  public JpaRefreshSessionStore(RefreshTokenRepository refreshTokenRepository) {
+    this.refreshTokenRepository = refreshTokenRepository;
+  }
+
+  @Override
+  @Transactional
+  public void replaceActive(String userEmail, RefreshTokenRef token, Instant now) {
+    refreshTokenRepository.revokeActiveByUserEmail(userEmail, now);
+    refreshTokenRepository.save(newRecord(userEmail, token.hash(), token.expiresAt()));
+  }
+
+  @Override
+  @Transactional
+  public boolean rotate(String userEmail, RefreshTokenRef current, RefreshTokenRef next, Instant now) {
+    if (refreshTokenRepository.revokeIfActive(userEmail, current.hash(), now) != 1) {
+      return false;
+    }
+    refreshTokenRepository.save(newRecord(userEmail, next.hash(), next.expiresAt()));
+    return true;
+  }
+
+  @Override
+  @Transactional
+  public void revoke(RefreshTokenRef token, Instant now) {
+    refreshTokenRepository.revokeByTokenHash(token.hash(), now);
+  }
+
+  static RefreshTokenSession newRecord(String userEmail, String tokenHash, Instant expiresAt) {
+    RefreshTokenSession session = new RefreshTokenSession();
+    session.setUserEmail(userEmail);
+    session.setTokenHash(tokenHash);
+    session.setExpiresAt(expiresAt);
+    return session;
+  }
+}
@@ -16,6 +16,9 @@ import org.springframework.stereotype.Service;
 
 @Service
 public class JwtService {
+  // iat only has second precision; revocation cut-offs compare against this millisecond copy instead.
+  private static final String ISSUED_AT_MILLIS_CLAIM = "issuedAtMillis";
+
   private final String currentKid;
   private final SecretKey currentSecretKey;
   private final SecretKey previousSecretKey;
@@ -71,6 +74,14 @@ public class JwtService {
     return parseToken(token, "refresh");
   }
 
+  public static Instant issuedAt(Claims claims) {
+    Long issuedAtMillis = claims.get(ISSUED_AT_MILLIS_CLAIM, Long.class);
+    if (issuedAtMillis != null) {
+      return Instant.ofEpochMilli(issuedAtMillis);
+    }
+    return claims.getIssuedAt() == null ? null : claims.getIssuedAt().toInstant();
+  }
+
   private io.jsonwebtoken.JwtBuilder generateToken(
       String email,
       String role,
@@ -87,6 +98,7 @@ public class JwtService {
         .claim("role", role)
         .claim("tokenType", tokenType)
         .issuedAt(Date.from(now))
+        .claim(ISSUED_AT_MILLIS_CLAIM, now.toEpochMilli())
         .expiration(Date.from(expiry))
         .signWith(currentSecretKey);
   }
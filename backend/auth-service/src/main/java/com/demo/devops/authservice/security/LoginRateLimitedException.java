@@ -0,0 +1,11 @@
+package com.demo.devops.authservice.security;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class LoginRateLimitedException extends RuntimeException {
+  public LoginRateLimitedException() {
+    super("too many login attempts");
+  }
+}
@@ -0,0 +1,189 @@
+package com.demo.devops.authservice.security;
+
+import com.demo.devops.authservice.domain.UserAccount;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+@Component
+public class LoginRateLimiter {
+  private static final String FORWARDED_FOR_HEADER = "X-Forwarded-For";
+
+  private final boolean enabled;
+  private final BucketTable clientBuckets;
+  private final BucketTable accountBuckets;
+  private final List<IpAddressMatcher> trustedProxies;
+  private final Counter clientRejections;
+  private final Counter accountRejections;
+  private final LongSupplier nanoTime;
+
+  @Autowired
+  public LoginRateLimiter(
+      MeterRegistry meterRegistry,
+      @Value("${app.login-rate-limit.enabled:true}") boolean enabled,
+      @Value("${app.login-rate-limit.per-client.capacity:20}") int clientCapacity,
+      @Value("${app.login-rate-limit.per-client.refill-per-minute:10}") double clientRefillPerMinute,
+      @Value("${app.login-rate-limit.per-account.capacity:5}") int accountCapacity,
+      @Value("${app.login-rate-limit.per-account.refill-per-minute:5}") double accountRefillPerMinute,
+      @Value("${app.login-rate-limit.idle-eviction:PT10M}") Duration idleEviction,
+      @Value("${app.login-rate-limit.max-entries:100000}") long maxEntries,
+      @Value("${app.login-rate-limit.trusted-proxies:}") List<String> trustedProxies) {
+    this(
+        meterRegistry,
+        enabled,
+        clientCapacity,
+        clientRefillPerMinute,
+        accountCapacity,
+        accountRefillPerMinute,
+        idleEviction,
+        maxEntries,
+        trustedProxies,
+        System::nanoTime);
+  }
+
+  LoginRateLimiter(
+      MeterRegistry meterRegistry,
+      boolean enabled,
+      int clientCapacity,
+      double clientRefillPerMinute,
+      int accountCapacity,
+      double accountRefillPerMinute,
+      Duration idleEviction,
+      long maxEntries,
+      List<String> trustedProxies,
+      LongSupplier nanoTime) {
+    this.enabled = enabled;
+    this.clientBuckets =
+        new BucketTable(clientCapacity, clientRefillPerMinute, idleEviction, maxEntries, nanoTime);
+    this.accountBuckets =
+        new BucketTable(accountCapacity, accountRefillPerMinute, idleEviction, maxEntries, nanoTime);
+    this.trustedProxies = trustedProxies.stream()
+        .filter(StringUtils::hasText)
+        .map(proxy -> new IpAddressMatcher(proxy.strip()))
+        .toList();
+    this.clientRejections = rejectionCounter(meterRegistry, "client");
+    this.accountRejections = rejectionCounter(meterRegistry, "account");
+    this.nanoTime = nanoTime;
+  }
+
+  public boolean tryAcquire(HttpServletRequest request, String email) {
+    if (!enabled) {
+      return true;
+    }
+    long now = nanoTime.getAsLong();
+    if (!clientBuckets.tryConsume(clientAddress(request), now)) {
+      clientRejections.increment();
+      return false;
+    }
+    if (!accountBuckets.tryConsume(Objects.toString(UserAccount.normalizeEmail(email), ""), now)) {
+      accountRejections.increment();
+      return false;
+    }
+    return true;
+  }
+
+  @Scheduled(fixedDelayString = "${app.login-rate-limit.sweep-interval:PT1M}")
+  public void evictIdleBuckets() {
+    clientBuckets.evictIdle();
+    accountBuckets.evictIdle();
+  }
+
+  // X-Forwarded-For is only believed when the request came through one of our own proxies; hops are walked
+  // right to left past trusted proxies and the first address they did not add is taken as the client.
+  String clientAddress(HttpServletRequest request) {
+    String client = request.getRemoteAddr();
+    String forwardedFor = request.getHeader(FORWARDED_FOR_HEADER);
+    if (forwardedFor == null || !isTrustedProxy(client)) {
+      return client;
+    }
+    String[] hops = forwardedFor.split(",");
+    for (int i = hops.length - 1; i >= 0 && isTrustedProxy(client); i--) {
+      String hop = hops[i].trim();
+      if (hop.isEmpty()) {
+        break;
+      }
+      client = hop;
+    }
+    return client;
+  }
+
+  private boolean isTrustedProxy(String address) {
+    for (IpAddressMatcher proxy : trustedProxies) {
+      try {
+        if (proxy.matches(address)) {
+          return true;
+        }
+      } catch (IllegalArgumentException ex) {
+        return false;
+      }
+    }
+    return false;
+  }
+
+  private static Counter rejectionCounter(MeterRegistry meterRegistry, String scope) {
+    return Counter.builder("auth.login.rate_limited")
+        .description("Login attempts rejected by the rate limiter")
+        .tag("scope", scope)
+        .register(meterRegistry);
+  }
+
+  // Bounded so a flood of distinct addresses or emails cannot grow the tables without limit; the least recently
+  // used buckets are dropped first, which at worst hands an idle client a full bucket again.
+  private static final class BucketTable {
+    private final Cache<String, TokenBucket> buckets;
+    private final int capacity;
+    private final double tokensPerNano;
+
+    private BucketTable(
+        int capacity, double refillPerMinute, Duration idleEviction, long maxEntries, LongSupplier nanoTime) {
+      this.buckets = Caffeine.newBuilder()
+          .maximumSize(maxEntries)
+          .expireAfterAccess(idleEviction)
+          .ticker(nanoTime::getAsLong)
+          .build();
+      this.capacity = capacity;
+      this.tokensPerNano = refillPerMinute / TimeUnit.MINUTES.toNanos(1);
+    }
+
+    private boolean tryConsume(String key, long now) {
+      return buckets.get(key, ignored -> new TokenBucket(capacity, now)).tryConsume(now, capacity, tokensPerNano);
+    }
+
+    private void evictIdle() {
+      buckets.cleanUp();
+    }
+  }
+
+  private static final class TokenBucket {
+    private double tokens;
+    private long updatedAt;
+
+    private TokenBucket(int capacity, long now) {
+      this.tokens = capacity;
+      this.updatedAt = now;
+    }
+
+    private synchronized boolean tryConsume(long now, int capacity, double tokensPerNano) {
+      tokens = Math.min(capacity, tokens + (now - updatedAt) * tokensPerNano);
+      updatedAt = now;
+      if (tokens < 1) {
+        return false;
+      }
+      tokens -= 1;
+      return true;
+    }
+  }
+}
@@ -0,0 +1,134 @@
+package com.demo.devops.authservice.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+@Component
+public class PasswordHashingExecutor {
+  private final PasswordEncoder passwordEncoder;
+  private final ThreadPoolExecutor executor;
+  private final long maxWaitNanos;
+  private final Timer queueWaitTimer;
+  private final Timer matchesTimer;
+  private final Timer encodeTimer;
+  private final Counter rejectedCounter;
+  private final String unknownUserHash;
+
+  public PasswordHashingExecutor(
+      PasswordEncoder passwordEncoder,
+      MeterRegistry meterRegistry,
+      @Value("${app.password-hashing.threads:0}") int threads,
+      @Value("${app.password-hashing.queue-capacity:64}") int queueCapacity,
+      @Value("${app.password-hashing.max-wait:PT2S}") Duration maxWait) {
+    int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    this.passwordEncoder = passwordEncoder;
+    this.maxWaitNanos = maxWait.toNanos();
+    this.executor = new ThreadPoolExecutor(
+        poolSize,
+        poolSize,
+        0L,
+        TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity),
+        threadFactory(),
+        new ThreadPoolExecutor.AbortPolicy());
+    this.queueWaitTimer = Timer.builder("auth.password_hashing.queue_wait")
+        .description("Time a password hashing task waited for a worker")
+        .register(meterRegistry);
+    this.matchesTimer = hashTimer(meterRegistry, "matches");
+    this.encodeTimer = hashTimer(meterRegistry, "encode");
+    this.rejectedCounter = Counter.builder("auth.password_hashing.rejected")
+        .description("Password hashing tasks rejected because the pool was saturated")
+        .register(meterRegistry);
+    Gauge.builder("auth.password_hashing.queue_size", executor, pool -> pool.getQueue().size())
+        .description("Password hashing tasks waiting for a worker")
+        .register(meterRegistry);
+    this.unknownUserHash = passwordEncoder.encode(UUID.randomUUID().toString());
+  }
+
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    return execute(matchesTimer, () -> passwordEncoder.matches(rawPassword, encodedPassword));
+  }
+
+  public void simulateMatch(CharSequence rawPassword) {
+    matches(rawPassword, unknownUserHash);
+  }
+
+  public String encode(CharSequence rawPassword) {
+    return execute(encodeTimer, () -> passwordEncoder.encode(rawPassword));
+  }
+
+  public boolean needsRehash(String encodedPassword) {
+    return passwordEncoder.upgradeEncoding(encodedPassword);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private <T> T execute(Timer hashTimer, Callable<T> task) {
+    long submittedAt = System.nanoTime();
+    Future<T> future;
+    try {
+      future = executor.submit(() -> {
+        long startedAt = System.nanoTime();
+        queueWaitTimer.record(startedAt - submittedAt, TimeUnit.NANOSECONDS);
+        try {
+          return task.call();
+        } finally {
+          hashTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+      });
+    } catch (RejectedExecutionException ex) {
+      rejectedCounter.increment();
+      throw new PasswordHashingBusyException();
+    }
+
+    try {
+      return future.get(maxWaitNanos, TimeUnit.NANOSECONDS);
+    } catch (TimeoutException ex) {
+      future.cancel(true);
+      rejectedCounter.increment();
+      throw new PasswordHashingBusyException();
+    } catch (InterruptedException ex) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new PasswordHashingBusyException();
+    } catch (ExecutionException ex) {
+      if (ex.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw new IllegalStateException("password hashing failed", ex.getCause());
+    }
+  }
+
+  private static CustomizableThreadFactory threadFactory() {
+    CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("password-hash-");
+    threadFactory.setDaemon(true);
+    return threadFactory;
+  }
+
+  private static Timer hashTimer(MeterRegistry meterRegistry, String operation) {
+    return Timer.builder("auth.password_hashing.hash")
+        .description("Time spent computing a password hash")
+        .tag("operation", operation)
+        .register(meterRegistry);
+  }
+}
@@ -0,0 +1,11 @@
+package com.demo.devops.authservice.security;
+
+import java.time.Instant;
+
+public interface RefreshSessionStore {
+  void replaceActive(String userEmail, RefreshTokenRef token, Instant now);
+
+  boolean rotate(String userEmail, RefreshTokenRef current, RefreshTokenRef next, Instant now);
+
+  void revoke(RefreshTokenRef token, Instant now);
+}
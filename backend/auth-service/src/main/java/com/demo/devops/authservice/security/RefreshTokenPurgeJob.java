@@ -0,0 +1,83 @@
+package com.demo.devops.authservice.security;
+
+import com.demo.devops.authservice.repository.RefreshTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class RefreshTokenPurgeJob {
+  private static final Logger LOG = LoggerFactory.getLogger(RefreshTokenPurgeJob.class);
+
+  private final RefreshTokenRepository refreshTokenRepository;
+  private final Duration revokedGrace;
+  private final int chunkSize;
+  private final int maxChunks;
+  private final Counter purgedRows;
+  private final Timer purgeTimer;
+
+  public RefreshTokenPurgeJob(
+      RefreshTokenRepository refreshTokenRepository,
+      MeterRegistry meterRegistry,
+      @Value("${app.refresh-tokens.purge.revoked-grace:PT24H}") Duration revokedGrace,
+      @Value("${app.refresh-tokens.purge.chunk-size:500}") int chunkSize,
+      @Value("${app.refresh-tokens.purge.max-chunks:200}") int maxChunks) {
+    this.refreshTokenRepository = refreshTokenRepository;
+    this.revokedGrace = revokedGrace;
+    this.chunkSize = chunkSize;
+    this.maxChunks = maxChunks;
+    this.purgedRows = Counter.builder("auth.refresh_tokens.purged")
+        .description("Expired or revoked refresh token rows deleted")
+        .register(meterRegistry);
+    this.purgeTimer = Timer.builder("auth.refresh_tokens.purge")
+        .description("Duration of a refresh token purge run")
+        .register(meterRegistry);
+  }
+
+  @Scheduled(
+      initialDelayString = "${app.refresh-tokens.purge.initial-delay:PT5M}",
+      fixedDelayString = "${app.refresh-tokens.purge.interval:PT15M}")
+  public void purge() {
+    Timer.Sample sample = Timer.start();
+    long deleted = purgeChunks();
+    sample.stop(purgeTimer);
+    if (deleted > 0) {
+      LOG.info("refresh_token_purge_completed deleted={}", deleted);
+    }
+  }
+
+  private long purgeChunks() {
+    Instant now = Instant.now();
+    Instant revokedBefore = now.minus(revokedGrace);
+    return purgeChunks(page -> refreshTokenRepository.findExpiredIds(now, page))
+        + purgeChunks(page -> refreshTokenRepository.findRevokedIds(revokedBefore, page));
+  }
+
+  private long purgeChunks(Function<Pageable, List<Long>> findIds) {
+    long deleted = 0;
+    for (int chunk = 0; chunk < maxChunks; chunk++) {
+      List<Long> ids = findIds.apply(PageRequest.of(0, chunkSize));
+      if (ids.isEmpty()) {
+        break;
+      }
+      refreshTokenRepository.deleteAllByIdInBatch(ids);
+      purgedRows.increment(ids.size());
+      deleted += ids.size();
+      if (ids.size() < chunkSize) {
+        break;
+      }
+    }
+    return deleted;
+  }
+}
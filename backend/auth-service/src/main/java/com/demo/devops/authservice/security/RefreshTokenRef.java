@@ -0,0 +1,5 @@
+package com.demo.devops.authservice.security;
+
+import java.time.Instant;
+
+public record RefreshTokenRef(String hash, String tokenId, Instant issuedAt, Instant expiresAt) {}
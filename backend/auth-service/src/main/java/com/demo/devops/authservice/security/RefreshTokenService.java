@@ -1,67 +1,59 @@
 package com.demo.devops.authservice.security;
 
-import com.demo.devops.authservice.domain.RefreshTokenSession;
-import com.demo.devops.authservice.repository.RefreshTokenRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
 import java.util.HexFormat;
-import java.util.Optional;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class RefreshTokenService {
-  private final RefreshTokenRepository refreshTokenRepository;
+  private final RefreshSessionStore refreshSessionStore;
+  private final JwtService jwtService;
 
-  public RefreshTokenService(RefreshTokenRepository refreshTokenRepository) {
-    this.refreshTokenRepository = refreshTokenRepository;
+  public RefreshTokenService(RefreshSessionStore refreshSessionStore, JwtService jwtService) {
+    this.refreshSessionStore = refreshSessionStore;
+    this.jwtService = jwtService;
   }
 
-  @Transactional
   public void createSession(String userEmail, String refreshToken, Instant expiresAt) {
-    refreshTokenRepository.revokeActiveByUserEmail(userEmail, Instant.now());
-    refreshTokenRepository.save(buildRecord(userEmail, refreshToken, expiresAt));
+    refreshSessionStore.replaceActive(userEmail, reference(refreshToken, expiresAt), Instant.now());
   }
 
-  @Transactional
   public boolean rotateSession(
       String userEmail,
       String currentRefreshToken,
       String nextRefreshToken,
       Instant expiresAt) {
-    Optional<RefreshTokenSession> existing = refreshTokenRepository
-        .findFirstByUserEmailAndTokenHashAndRevokedAtIsNullAndExpiresAtAfter(
-            userEmail,
-            hashToken(currentRefreshToken),
-            Instant.now());
-
-    if (existing.isEmpty()) {
-      return false;
-    }
-
-    RefreshTokenSession current = existing.get();
-    current.setRevokedAt(Instant.now());
-    refreshTokenRepository.save(current);
-    refreshTokenRepository.save(buildRecord(userEmail, nextRefreshToken, expiresAt));
-    return true;
+    return refreshSessionStore.rotate(
+        userEmail,
+        reference(currentRefreshToken, null),
+        reference(nextRefreshToken, expiresAt),
+        Instant.now());
   }
 
-  @Transactional
   public void revokeSession(String refreshToken) {
     if (refreshToken == null || refreshToken.isBlank()) {
       return;
     }
-    refreshTokenRepository.revokeByTokenHash(hashToken(refreshToken), Instant.now());
+    refreshSessionStore.revoke(reference(refreshToken, null), Instant.now());
   }
 
-  private RefreshTokenSession buildRecord(String userEmail, String refreshToken, Instant expiresAt) {
-    RefreshTokenSession session = new RefreshTokenSession();
-    session.setUserEmail(userEmail);
-    session.setTokenHash(hashToken(refreshToken));
-    session.setExpiresAt(expiresAt);
-    return session;
+  private RefreshTokenRef reference(String token, Instant expiresAt) {
+    String hash = hashToken(token);
+    try {
+      Claims claims = jwtService.parseRefreshToken(token);
+      return new RefreshTokenRef(
+          hash,
+          claims.getId(),
+          JwtService.issuedAt(claims),
+          expiresAt != null ? expiresAt : claims.getExpiration().toInstant());
+    } catch (JwtException ex) {
+      return new RefreshTokenRef(hash, null, null, expiresAt);
+    }
   }
 
   private String hashToken(String token) {
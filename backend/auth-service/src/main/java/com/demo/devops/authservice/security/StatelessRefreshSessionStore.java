@@ -0,0 +1,270 @@
+package com.demo.devops.authservice.security;
+
+import com.demo.devops.authservice.domain.UserAccount;
+import jakarta.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
+
+public class StatelessRefreshSessionStore
+    implements RefreshSessionStore, AuthChangeListener, SmartInitializingSingleton {
+  private static final Logger LOG = LoggerFactory.getLogger(StatelessRefreshSessionStore.class);
+  private static final long BUCKET_SECONDS = 3600;
+  private static final String INSERT_SQL =
+      "INSERT INTO refresh_token_revocations (user_email, token_id, not_before, expires_at, created_at) "
+          + "VALUES (?, ?, ?, ?, ?)";
+  private static final String LOAD_SQL =
+      "SELECT user_email, token_id, not_before, expires_at FROM refresh_token_revocations WHERE expires_at > ?";
+  private static final String PURGE_SQL = "DELETE FROM refresh_token_revocations WHERE expires_at <= ?";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final Duration refreshTtl;
+  private final AuthChangeFeed authChanges;
+  private final ConcurrentHashMap<String, Instant> notBefore = new ConcurrentHashMap<>();
+  private final ConcurrentSkipListMap<Long, Set<UUID>> revokedByExpiryBucket = new ConcurrentSkipListMap<>();
+  // Rotations accepted in memory and not yet written; flush() persists and publishes them in one batch.
+  private final ConcurrentLinkedQueue<Rotation> unflushed = new ConcurrentLinkedQueue<>();
+  private volatile boolean loaded;
+
+  public StatelessRefreshSessionStore(
+      JdbcTemplate jdbcTemplate,
+      TransactionTemplate transactionTemplate,
+      Duration refreshTtl,
+      AuthChangeFeed authChanges) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+    this.refreshTtl = refreshTtl;
+    this.authChanges = authChanges;
+  }
+
+  @Override
+  public void afterSingletonsInstantiated() {
+    load();
+  }
+
+  @Override
+  public void replaceActive(String userEmail, RefreshTokenRef token, Instant now) {
+    load();
+    String user = UserAccount.normalizeEmail(userEmail);
+    // Millisecond precision matches the token claim and survives the TIMESTAMP(6) round trip without rounding up.
+    cutOff(user, token.issuedAt() != null ? token.issuedAt() : now);
+  }
+
+  @Override
+  public boolean rotate(String userEmail, RefreshTokenRef current, RefreshTokenRef next, Instant now) {
+    load();
+    UUID tokenId = parseTokenId(current.tokenId());
+    if (tokenId == null || current.issuedAt() == null || !current.expiresAt().isAfter(now)) {
+      return false;
+    }
+    String user = UserAccount.normalizeEmail(userEmail);
+    // Answered from memory: the set add is the single-use check on this replica, and the write is left to flush().
+    if (isCutOff(notBefore.get(user), current) || !addRevoked(tokenId, current.expiresAt())) {
+      return false;
+    }
+    unflushed.add(new Rotation(user, tokenId, current.expiresAt()));
+    return true;
+  }
+
+  @Override
+  public void revoke(RefreshTokenRef token, Instant now) {
+    load();
+    UUID tokenId = parseTokenId(token.tokenId());
+    if (tokenId != null && token.expiresAt().isAfter(now)) {
+      markRevoked(tokenId, token.expiresAt());
+    }
+  }
+
+  @Override
+  public void onAuthChange(AuthChangeEvent event) {
+    if (event.type() == AuthChangeEvent.Type.SESSIONS_REVOKED && event.notBefore() != null) {
+      notBefore.merge(
+          UserAccount.normalizeEmail(event.userEmail()), event.notBefore(), StatelessRefreshSessionStore::later);
+    } else if (event.type() == AuthChangeEvent.Type.TOKEN_REVOKED && event.expiresAt() != null) {
+      UUID tokenId = parseTokenId(event.tokenId());
+      if (tokenId != null) {
+        addRevoked(tokenId, event.expiresAt());
+      }
+    }
+  }
+
+  // A token rotated on two replicas before either write lands is caught here: the unique token_id index rejects
+  // the second row, and the whole session family is cut off, as for refresh token reuse.
+  @Scheduled(fixedDelayString = "${app.refresh-tokens.stateless.flush-interval:PT1S}")
+  @PreDestroy
+  public synchronized void flush() {
+    List<Rotation> batch = new ArrayList<>();
+    for (Rotation rotation; (rotation = unflushed.poll()) != null; ) {
+      batch.add(rotation);
+    }
+    if (batch.isEmpty()) {
+      return;
+    }
+    List<Rotation> reused;
+    try {
+      reused = insertRotations(batch);
+    } catch (DataAccessException ex) {
+      unflushed.addAll(batch);
+      LOG.warn("refresh_revocations_flush_failed pending={} reason={}", unflushed.size(), ex.getMessage());
+      return;
+    }
+    authChanges.publishAll(batch.stream()
+        .filter(rotation -> !reused.contains(rotation))
+        .map(rotation -> AuthChangeEvent.tokenRevoked(rotation.tokenId().toString(), rotation.expiresAt()))
+        .toList());
+    Instant now = Instant.now();
+    for (Rotation rotation : reused) {
+      LOG.warn("refresh_token_reuse_detected user={}", rotation.userEmail());
+      cutOff(rotation.userEmail(), now);
+    }
+  }
+
+  @Scheduled(
+      initialDelayString = "${app.refresh-tokens.purge.initial-delay:PT5M}",
+      fixedDelayString = "${app.refresh-tokens.purge.interval:PT15M}")
+  public void purgeExpired() {
+    Instant now = Instant.now();
+    revokedByExpiryBucket.headMap(bucket(now)).clear();
+    notBefore.values().removeIf(cutoff -> !cutoff.plus(refreshTtl).isAfter(now));
+    int deleted = jdbcTemplate.update(PURGE_SQL, Timestamp.from(now));
+    LOG.info("refresh_revocations_purged deleted={}", deleted);
+  }
+
+  int revokedTokenCount() {
+    return revokedByExpiryBucket.values().stream().mapToInt(Set::size).sum();
+  }
+
+  // Logout is rare and written straight away, so other replicas hear of it within one feed poll.
+  private void markRevoked(UUID tokenId, Instant expiresAt) {
+    if (!addRevoked(tokenId, expiresAt)) {
+      return;
+    }
+    try {
+      insert(null, tokenId.toString(), null, expiresAt);
+    } catch (DuplicateKeyException ex) {
+      return;
+    }
+    authChanges.publish(AuthChangeEvent.tokenRevoked(tokenId.toString(), expiresAt));
+  }
+
+  private void cutOff(String user, Instant at) {
+    // Millisecond precision matches the token claim and survives the TIMESTAMP(6) round trip without rounding up.
+    Instant cutoff = at.truncatedTo(ChronoUnit.MILLIS);
+    insert(user, null, cutoff, cutoff.plus(refreshTtl));
+    notBefore.merge(user, cutoff, StatelessRefreshSessionStore::later);
+    authChanges.publish(AuthChangeEvent.sessionsRevoked(user, cutoff));
+  }
+
+  // Writes the batch in one transaction; if any token is already recorded the batch is rolled back and replayed
+  // row by row, and the rotations whose token another replica recorded first are returned.
+  private List<Rotation> insertRotations(List<Rotation> batch) {
+    Timestamp now = Timestamp.from(Instant.now());
+    try {
+      transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, batch.stream()
+          .map(rotation -> new Object[] {
+              null, rotation.tokenId().toString(), null, Timestamp.from(rotation.expiresAt()), now
+          })
+          .toList()));
+      return List.of();
+    } catch (DuplicateKeyException ex) {
+      List<Rotation> reused = new ArrayList<>();
+      for (Rotation rotation : batch) {
+        try {
+          insert(null, rotation.tokenId().toString(), null, rotation.expiresAt());
+        } catch (DuplicateKeyException duplicate) {
+          reused.add(rotation);
+        }
+      }
+      return reused;
+    }
+  }
+
+  private void insert(String userEmail, String tokenId, Instant notBefore, Instant expiresAt) {
+    jdbcTemplate.update(
+        INSERT_SQL,
+        userEmail,
+        tokenId,
+        notBefore == null ? null : Timestamp.from(notBefore),
+        Timestamp.from(expiresAt),
+        Timestamp.from(Instant.now()));
+  }
+
+  private boolean isRevoked(UUID tokenId, Instant expiresAt) {
+    Set<UUID> revoked = revokedByExpiryBucket.get(bucket(expiresAt));
+    return revoked != null && revoked.contains(tokenId);
+  }
+
+  private static boolean isCutOff(Instant cutoff, RefreshTokenRef token) {
+    return cutoff != null && token.issuedAt().isBefore(cutoff);
+  }
+
+  private boolean addRevoked(UUID tokenId, Instant expiresAt) {
+    return revokedByExpiryBucket
+        .computeIfAbsent(bucket(expiresAt), ignored -> ConcurrentHashMap.newKeySet())
+        .add(tokenId);
+  }
+
+  private void load() {
+    if (loaded) {
+      return;
+    }
+    synchronized (this) {
+      if (loaded) {
+        return;
+      }
+      authChanges.seed();
+      Instant now = Instant.now();
+      jdbcTemplate.query(LOAD_SQL, resultSet -> {
+        String userEmail = resultSet.getString("user_email");
+        UUID tokenId = parseTokenId(resultSet.getString("token_id"));
+        Instant expiresAt = resultSet.getTimestamp("expires_at").toInstant();
+        if (userEmail != null) {
+          Instant cutoff = resultSet.getTimestamp("not_before").toInstant();
+          notBefore.merge(userEmail, cutoff, StatelessRefreshSessionStore::later);
+        } else if (tokenId != null) {
+          addRevoked(tokenId, expiresAt);
+        }
+      }, Timestamp.from(now));
+      loaded = true;
+      LOG.info("refresh_revocations_loaded users={} tokens={}", notBefore.size(), revokedTokenCount());
+    }
+  }
+
+  private record Rotation(String userEmail, UUID tokenId, Instant expiresAt) {}
+
+  private static Instant later(Instant left, Instant right) {
+    return left.isAfter(right) ? left : right;
+  }
+
+  private static long bucket(Instant instant) {
+    return instant.getEpochSecond() / BUCKET_SECONDS;
+  }
+
+  private static UUID parseTokenId(String tokenId) {
+    if (tokenId == null) {
+      return null;
+    }
+    try {
+      return UUID.fromString(tokenId);
+    } catch (IllegalArgumentException ex) {
+      return null;
+    }
+  }
+}
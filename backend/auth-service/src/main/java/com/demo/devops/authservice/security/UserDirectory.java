@@ -0,0 +1,128 @@
+package com.demo.devops.authservice.security;
+
+import com.demo.devops.authservice.domain.UserAccount;
+import com.demo.devops.authservice.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class UserDirectory implements AuthChangeListener {
+  private static final Logger LOG = LoggerFactory.getLogger(UserDirectory.class);
+
+  private final UserRepository userRepository;
+  private final Cache<String, Boolean> unknownEmails;
+  private final double falsePositiveRate;
+  private final int rebuildPageSize;
+  private final Counter bloomFilterSkips;
+  private final Counter unknownCacheSkips;
+  private volatile EmailBloomFilter knownEmails;
+  private volatile EmailBloomFilter rebuilding;
+
+  public UserDirectory(
+      UserRepository userRepository,
+      MeterRegistry meterRegistry,
+      @Value("${app.user-lookup.unknown-ttl:PT5M}") Duration unknownTtl,
+      @Value("${app.user-lookup.unknown-max-entries:100000}") long unknownMaxEntries,
+      @Value("${app.user-lookup.bloom-false-positive-rate:0.01}") double falsePositiveRate,
+      @Value("${app.user-lookup.rebuild-page-size:1000}") int rebuildPageSize) {
+    this.userRepository = userRepository;
+    this.unknownEmails = Caffeine.newBuilder()
+        .expireAfterWrite(unknownTtl)
+        .maximumSize(unknownMaxEntries)
+        .build();
+    this.falsePositiveRate = falsePositiveRate;
+    this.rebuildPageSize = rebuildPageSize;
+    this.bloomFilterSkips = skipCounter(meterRegistry, "bloom_filter");
+    this.unknownCacheSkips = skipCounter(meterRegistry, "unknown_cache");
+  }
+
+  public Optional<UserAccount> findByEmail(String email) {
+    String key = UserAccount.normalizeEmail(email);
+    if (key == null) {
+      return Optional.empty();
+    }
+    EmailBloomFilter filter = knownEmails;
+    if (filter != null && !filter.mightContain(key)) {
+      bloomFilterSkips.increment();
+      return Optional.empty();
+    }
+    if (unknownEmails.getIfPresent(key) != null) {
+      unknownCacheSkips.increment();
+      return Optional.empty();
+    }
+
+    Optional<UserAccount> user = userRepository.findByEmailNormalized(key);
+    if (user.isEmpty()) {
+      unknownEmails.put(key, Boolean.TRUE);
+    }
+    return user;
+  }
+
+  public void recordUser(String email) {
+    String key = UserAccount.normalizeEmail(email);
+    EmailBloomFilter filter = knownEmails;
+    if (filter != null) {
+      filter.add(key);
+    }
+    EmailBloomFilter next = rebuilding;
+    if (next != null) {
+      next.add(key);
+    }
+    unknownEmails.invalidate(key);
+  }
+
+  @Override
+  public void onAuthChange(AuthChangeEvent event) {
+    if (event.type() == AuthChangeEvent.Type.USER_CHANGED) {
+      recordUser(event.userEmail());
+    } else if (event.type() == AuthChangeEvent.Type.USERS_IMPORTED) {
+      rebuild();
+    }
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  @Scheduled(
+      initialDelayString = "${app.user-lookup.rebuild-interval:PT10M}",
+      fixedDelayString = "${app.user-lookup.rebuild-interval:PT10M}")
+  public synchronized void rebuild() {
+    long userCount = userRepository.count();
+    EmailBloomFilter next = new EmailBloomFilter(userCount + userCount / 2 + 1024, falsePositiveRate);
+    rebuilding = next;
+    try {
+      long afterId = 0;
+      List<UserRepository.EmailRow> page;
+      do {
+        page = userRepository.findEmailsAfter(afterId, PageRequest.ofSize(rebuildPageSize));
+        for (UserRepository.EmailRow row : page) {
+          next.add(row.getEmailNormalized());
+          afterId = row.getId();
+        }
+      } while (page.size() == rebuildPageSize);
+      knownEmails = next;
+      unknownEmails.invalidateAll();
+    } finally {
+      rebuilding = null;
+    }
+    LOG.info("user_lookup_filter_rebuilt users={}", userCount);
+  }
+
+  private static Counter skipCounter(MeterRegistry meterRegistry, String reason) {
+    return Counter.builder("auth.user_lookup.skipped")
+        .description("User lookups answered without querying the database")
+        .tag("reason", reason)
+        .register(meterRegistry);
+  }
+}
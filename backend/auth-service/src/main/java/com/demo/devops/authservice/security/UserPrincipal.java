@@ -0,0 +1,9 @@
+package com.demo.devops.authservice.security;
+
+import com.demo.devops.authservice.domain.UserAccount;
+
+public record UserPrincipal(String email, String role) {
+  public static UserPrincipal of(UserAccount user) {
+    return new UserPrincipal(user.getEmail(), user.getRole());
+  }
+}
@@ -0,0 +1,60 @@
+package com.demo.devops.authservice.security;
+
+import com.demo.devops.authservice.domain.UserAccount;
+import com.demo.devops.authservice.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.Optional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class UserPrincipalCache implements AuthChangeListener {
+  private final UserRepository userRepository;
+  private final Cache<String, UserPrincipal> principals;
+
+  public UserPrincipalCache(
+      UserRepository userRepository,
+      MeterRegistry meterRegistry,
+      @Value("${app.user-principals.max-entries:10000}") long maxEntries,
+      @Value("${app.user-principals.ttl:PT5M}") Duration ttl) {
+    this.userRepository = userRepository;
+    this.principals = Caffeine.newBuilder()
+        .maximumSize(maxEntries)
+        .expireAfterWrite(ttl)
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, principals, "auth.user_principals");
+  }
+
+  public Optional<UserPrincipal> find(String email) {
+    String key = UserAccount.normalizeEmail(email);
+    if (key == null) {
+      return Optional.empty();
+    }
+    return Optional.ofNullable(principals.get(
+        key,
+        normalized -> userRepository.findByEmailNormalized(normalized).map(UserPrincipal::of).orElse(null)));
+  }
+
+  public void invalidate(String email) {
+    String key = UserAccount.normalizeEmail(email);
+    if (key != null) {
+      principals.invalidate(key);
+    }
+  }
+
+  @Override
+  public void onAuthChange(AuthChangeEvent event) {
+    if (event.type() == AuthChangeEvent.Type.USER_CHANGED) {
+      invalidate(event.userEmail());
+    }
+  }
+
+  public void invalidateAll() {
+    principals.invalidateAll();
+  }
+}
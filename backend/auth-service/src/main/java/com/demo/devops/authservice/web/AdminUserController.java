@@ -0,0 +1,50 @@
+package com.demo.devops.authservice.web;
+
+import com.demo.devops.authservice.bootstrap.UserImportService;
+import com.demo.devops.authservice.dto.UserImportResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/auth/admin/users")
+public class AdminUserController {
+  private static final String CSV_MEDIA_TYPE = "text/csv";
+  private static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+
+  private final UserImportService userImportService;
+
+  public AdminUserController(UserImportService userImportService) {
+    this.userImportService = userImportService;
+  }
+
+  @PostMapping(value = "/import", consumes = CSV_MEDIA_TYPE)
+  public UserImportResponse importCsv(HttpServletRequest request) throws IOException {
+    return importUsers(request, UserImportService.Format.CSV);
+  }
+
+  @PostMapping(value = "/import", consumes = NDJSON_MEDIA_TYPE)
+  public UserImportResponse importNdjson(HttpServletRequest request) throws IOException {
+    return importUsers(request, UserImportService.Format.NDJSON);
+  }
+
+  private UserImportResponse importUsers(HttpServletRequest request, UserImportService.Format format)
+      throws IOException {
+    try {
+      return userImportService.importUsers(request.getInputStream(), format);
+    } catch (IllegalArgumentException ex) {
+      throw new InvalidImportException(ex.getMessage());
+    }
+  }
+
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  private static class InvalidImportException extends RuntimeException {
+    InvalidImportException(String message) {
+      super(message);
+    }
+  }
+}
@@ -6,23 +6,32 @@ import com.demo.devops.authservice.dto.LoginRequest;
 import com.demo.devops.authservice.dto.SessionResponse;
 import com.demo.devops.authservice.dto.StatusResponse;
 import com.demo.devops.authservice.repository.UserRepository;
+import com.demo.devops.authservice.security.CsrfTokenGenerator;
 import com.demo.devops.authservice.security.JwtService;
+import com.demo.devops.authservice.security.LoginRateLimitedException;
+import com.demo.devops.authservice.security.LoginRateLimiter;
+import com.demo.devops.authservice.security.PasswordHashingBusyException;
+import com.demo.devops.authservice.security.PasswordHashingExecutor;
 import com.demo.devops.authservice.security.RefreshTokenService;
+import com.demo.devops.authservice.security.UserDirectory;
+import com.demo.devops.authservice.security.UserPrincipal;
+import com.demo.devops.authservice.security.UserPrincipalCache;
 import io.jsonwebtoken.Claims;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
-import java.util.Objects;
-import java.util.UUID;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Locale;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseCookie;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.web.csrf.CsrfToken;
-import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -33,34 +42,50 @@ import org.springframework.web.bind.annotation.RestController;
 @RestController
 @RequestMapping("/auth")
 public class AuthController {
+  private static final Logger LOG = LoggerFactory.getLogger(AuthController.class);
   private static final String AUTH_COOKIE_NAME = "auth_token";
   private static final String REFRESH_COOKIE_NAME = "refresh_token";
   private static final String CSRF_COOKIE_NAME = "XSRF-TOKEN";
   private static final String AUTH_SERVICE_SOURCE = "auth-service";
+  private static final String ROLE_PREFIX = "ROLE_";
 
   private final JwtService jwtService;
   private final RefreshTokenService refreshTokenService;
   private final UserRepository userRepository;
+  private final UserDirectory userDirectory;
+  private final UserPrincipalCache userPrincipals;
   private final AuditClient auditClient;
-  private final PasswordEncoder passwordEncoder;
-  private final boolean cookieSecure;
-  private final String cookieDomain;
+  private final PasswordHashingExecutor passwordHashing;
+  private final LoginRateLimiter loginRateLimiter;
+  private final CookieTemplate authCookie;
+  private final CookieTemplate refreshCookie;
+  private final CookieTemplate csrfCookie;
 
   public AuthController(
       JwtService jwtService,
       RefreshTokenService refreshTokenService,
       UserRepository userRepository,
+      UserDirectory userDirectory,
+      UserPrincipalCache userPrincipals,
       AuditClient auditClient,
-      PasswordEncoder passwordEncoder,
+      PasswordHashingExecutor passwordHashing,
+      LoginRateLimiter loginRateLimiter,
       @Value("${app.cookie.secure:true}") boolean cookieSecure,
       @Value("${app.cookie.domain:}") String cookieDomain) {
     this.jwtService = jwtService;
     this.refreshTokenService = refreshTokenService;
     this.userRepository = userRepository;
+    this.userDirectory = userDirectory;
+    this.userPrincipals = userPrincipals;
     this.auditClient = auditClient;
-    this.passwordEncoder = passwordEncoder;
-    this.cookieSecure = cookieSecure;
-    this.cookieDomain = cookieDomain;
+    this.passwordHashing = passwordHashing;
+    this.loginRateLimiter = loginRateLimiter;
+    this.authCookie = new CookieTemplate(
+        AUTH_COOKIE_NAME, true, cookieSecure, cookieDomain, jwtService.getAccessExpirationSeconds());
+    this.refreshCookie = new CookieTemplate(
+        REFRESH_COOKIE_NAME, true, cookieSecure, cookieDomain, jwtService.getRefreshExpirationSeconds());
+    this.csrfCookie = new CookieTemplate(
+        CSRF_COOKIE_NAME, false, cookieSecure, cookieDomain, jwtService.getRefreshExpirationSeconds());
   }
 
   @GetMapping("/health")
@@ -75,13 +100,9 @@ public class AuthController {
       HttpServletResponse response,
       CsrfToken csrfToken) {
     if (readCookie(request, CSRF_COOKIE_NAME) == null) {
-      addCookie(
-          response,
-          buildCookie(
-              CSRF_COOKIE_NAME,
-              resolveCsrfToken(request, csrfToken),
-              false,
-              jwtService.getRefreshExpirationSeconds()));
+      response.addHeader(
+          HttpHeaders.SET_COOKIE,
+          csrfCookie.render(resolveCsrfToken(request, csrfToken), Instant.now()));
     }
     return sessionResponse(authentication);
   }
@@ -93,16 +114,21 @@ public class AuthController {
       HttpServletRequest httpRequest,
       HttpServletResponse response,
       CsrfToken csrfToken) {
-    UserAccount user = userRepository.findByEmailIgnoreCase(request.email()).orElse(null);
+    if (!loginRateLimiter.tryAcquire(httpRequest, request.email())) {
+      throw new LoginRateLimitedException();
+    }
+    UserAccount user = userDirectory.findByEmail(request.email()).orElse(null);
     if (user == null) {
+      passwordHashing.simulateMatch(request.password());
       auditClient.sendEvent("LOGIN_FAILURE", request.email(), "user not found", AUTH_SERVICE_SOURCE);
       throw new InvalidCredentialsException();
     }
 
-    if (!passwordEncoder.matches(request.password(), user.getPasswordHash())) {
+    if (!passwordHashing.matches(request.password(), user.getPasswordHash())) {
       auditClient.sendEvent("LOGIN_FAILURE", request.email(), "invalid password", AUTH_SERVICE_SOURCE);
       throw new InvalidCredentialsException();
     }
+    rehashIfNeeded(user, request.password());
 
     String accessToken = jwtService.generateAccessToken(user.getEmail(), user.getRole());
     String refreshToken = jwtService.generateRefreshToken(user.getEmail(), user.getRole());
@@ -128,15 +154,15 @@ public class AuthController {
 
     try {
       Claims claims = jwtService.parseRefreshToken(refreshToken);
-      UserAccount user = userRepository.findByEmailIgnoreCase(claims.getSubject()).orElse(null);
+      UserPrincipal user = userPrincipals.find(claims.getSubject()).orElse(null);
       if (user == null) {
         clearSessionCookies(response);
         return new SessionResponse(false, jwtService.getAccessExpirationSeconds(), null);
       }
 
-      String nextRefreshToken = jwtService.generateRefreshToken(user.getEmail(), user.getRole());
+      String nextRefreshToken = jwtService.generateRefreshToken(user.email(), user.role());
       boolean rotated = refreshTokenService.rotateSession(
-          user.getEmail(),
+          user.email(),
           refreshToken,
           nextRefreshToken,
           jwtService.refreshExpiresAt());
@@ -147,13 +173,13 @@ public class AuthController {
 
       writeSessionCookies(
           response,
-          jwtService.generateAccessToken(user.getEmail(), user.getRole()),
+          jwtService.generateAccessToken(user.email(), user.role()),
           nextRefreshToken,
           resolveCsrfToken(request, csrfToken));
       return new SessionResponse(
           true,
           jwtService.getAccessExpirationSeconds(),
-          new SessionResponse.UserInfo(user.getEmail(), user.getRole()));
+          new SessionResponse.UserInfo(user.email(), user.role()));
     } catch (RuntimeException ex) {
       clearSessionCookies(response);
       return new SessionResponse(false, jwtService.getAccessExpirationSeconds(), null);
@@ -167,6 +193,19 @@ public class AuthController {
     return new StatusResponse("ok");
   }
 
+  private void rehashIfNeeded(UserAccount user, String rawPassword) {
+    if (!passwordHashing.needsRehash(user.getPasswordHash())) {
+      return;
+    }
+    try {
+      user.setPasswordHash(passwordHashing.encode(rawPassword));
+      userRepository.save(user);
+      userPrincipals.invalidate(user.getEmail());
+    } catch (PasswordHashingBusyException ex) {
+      LOG.debug("password_rehash_deferred actor={}", user.getEmail());
+    }
+  }
+
   @ResponseStatus(HttpStatus.UNAUTHORIZED)
   private static class InvalidCredentialsException extends RuntimeException {}
 
@@ -175,14 +214,22 @@ public class AuthController {
       return new SessionResponse(false, jwtService.getAccessExpirationSeconds(), null);
     }
 
-    String role = authentication.getAuthorities().stream()
-        .findFirst()
-        .map(authority -> authority.getAuthority().replaceFirst("^ROLE_", "").toLowerCase())
-        .orElse("user");
     return new SessionResponse(
         true,
         jwtService.getAccessExpirationSeconds(),
-        new SessionResponse.UserInfo(authentication.getName(), role));
+        new SessionResponse.UserInfo(authentication.getName(), roleOf(authentication)));
+  }
+
+  static String roleOf(Authentication authentication) {
+    Iterator<? extends GrantedAuthority> authorities = authentication.getAuthorities().iterator();
+    String authority = authorities.hasNext() ? authorities.next().getAuthority() : null;
+    if (authority == null) {
+      return "user";
+    }
+    if (authority.startsWith(ROLE_PREFIX)) {
+      authority = authority.substring(ROLE_PREFIX.length());
+    }
+    return authority.toLowerCase(Locale.ROOT);
   }
 
   private String resolveCsrfToken(HttpServletRequest request, CsrfToken csrfToken) {
@@ -193,7 +240,7 @@ public class AuthController {
     if (existing != null && !existing.isBlank()) {
       return existing;
     }
-    return UUID.randomUUID().toString();
+    return CsrfTokenGenerator.next();
   }
 
   private void writeSessionCookies(
@@ -201,51 +248,16 @@ public class AuthController {
       String accessToken,
       String refreshToken,
       String csrfToken) {
-    addCookie(response, buildCookie(AUTH_COOKIE_NAME, accessToken, true, jwtService.getAccessExpirationSeconds()));
-    addCookie(response, buildCookie(REFRESH_COOKIE_NAME, refreshToken, true, jwtService.getRefreshExpirationSeconds()));
-    addCookie(response, buildCookie(CSRF_COOKIE_NAME, csrfToken, false, jwtService.getRefreshExpirationSeconds()));
+    Instant now = Instant.now();
+    response.addHeader(HttpHeaders.SET_COOKIE, authCookie.render(accessToken, now));
+    response.addHeader(HttpHeaders.SET_COOKIE, refreshCookie.render(refreshToken, now));
+    response.addHeader(HttpHeaders.SET_COOKIE, csrfCookie.render(csrfToken, now));
   }
 
   private void clearSessionCookies(HttpServletResponse response) {
-    addCookie(response, clearCookie(AUTH_COOKIE_NAME, true));
-    addCookie(response, clearCookie(REFRESH_COOKIE_NAME, true));
-    addCookie(response, clearCookie(CSRF_COOKIE_NAME, false));
-  }
-
-  private ResponseCookie buildCookie(String name, String value, boolean httpOnly, long maxAgeSeconds) {
-    ResponseCookie.ResponseCookieBuilder builder = ResponseCookie.from(
-            Objects.requireNonNull(name, "cookie name must not be null"),
-            Objects.requireNonNull(value, "cookie value must not be null"))
-        .httpOnly(httpOnly)
-        .secure(cookieSecure)
-        .sameSite("Lax")
-        .path("/")
-        .maxAge(maxAgeSeconds);
-    if (StringUtils.hasText(cookieDomain)) {
-      builder.domain(cookieDomain);
-    }
-    return builder.build();
-  }
-
-  private ResponseCookie clearCookie(String name, boolean httpOnly) {
-    ResponseCookie.ResponseCookieBuilder builder = ResponseCookie.from(name, "")
-        .httpOnly(httpOnly)
-        .secure(cookieSecure)
-        .sameSite("Lax")
-        .path("/")
-        .maxAge(0);
-    if (StringUtils.hasText(cookieDomain)) {
-      builder.domain(cookieDomain);
-    }
-    return builder.build();
-  }
-
-  private void addCookie(HttpServletResponse response, ResponseCookie cookie) {
-    String headerValue = cookie.toString();
-    if (headerValue.indexOf('\r') >= 0 || headerValue.indexOf('\n') >= 0) {
-      throw new IllegalArgumentException("cookie header must not contain CR/LF");
-    }
-    response.addHeader(HttpHeaders.SET_COOKIE, headerValue);
+    response.addHeader(HttpHeaders.SET_COOKIE, authCookie.clear());
+    response.addHeader(HttpHeaders.SET_COOKIE, refreshCookie.clear());
+    response.addHeader(HttpHeaders.SET_COOKIE, csrfCookie.clear());
   }
 
   private String readCookie(HttpServletRequest request, String name) {
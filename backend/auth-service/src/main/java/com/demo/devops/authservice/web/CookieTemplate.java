@@ -0,0 +1,61 @@
+package com.demo.devops.authservice.web;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Objects;
+import org.springframework.util.StringUtils;
+
+final class CookieTemplate {
+  private static final DateTimeFormatter EXPIRES_FORMAT =
+      DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US).withZone(ZoneOffset.UTC);
+  private static final String EPOCH_EXPIRES = EXPIRES_FORMAT.format(Instant.EPOCH);
+
+  private final String name;
+  private final String prefix;
+  private final String attributes;
+  private final String flags;
+  private final long maxAgeSeconds;
+  private final String clearHeader;
+  private volatile CachedExpires cachedExpires = new CachedExpires(Long.MIN_VALUE, "");
+
+  CookieTemplate(String name, boolean httpOnly, boolean secure, String domain, long maxAgeSeconds) {
+    String path = "; Path=/" + (StringUtils.hasText(domain) ? "; Domain=" + domain : "");
+    this.name = name;
+    this.prefix = name + "=";
+    this.attributes = path + "; Max-Age=" + maxAgeSeconds + "; Expires=";
+    this.flags = (secure ? "; Secure" : "") + (httpOnly ? "; HttpOnly" : "") + "; SameSite=Lax";
+    this.maxAgeSeconds = maxAgeSeconds;
+    this.clearHeader = prefix + path + "; Max-Age=0; Expires=" + EPOCH_EXPIRES + flags;
+  }
+
+  String render(String value, Instant now) {
+    validateValue(Objects.requireNonNull(value, "cookie value must not be null"));
+    return prefix + value + attributes + expires(now.getEpochSecond()) + flags;
+  }
+
+  String clear() {
+    return clearHeader;
+  }
+
+  private String expires(long nowSecond) {
+    CachedExpires cached = cachedExpires;
+    if (cached.second() != nowSecond) {
+      cached = new CachedExpires(nowSecond, EXPIRES_FORMAT.format(Instant.ofEpochSecond(nowSecond + maxAgeSeconds)));
+      cachedExpires = cached;
+    }
+    return cached.value();
+  }
+
+  private void validateValue(String value) {
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c < 0x21 || c > 0x7e || c == '"' || c == ',' || c == ';' || c == '\\') {
+        throw new IllegalArgumentException("cookie " + name + " contains an invalid character at index " + i);
+      }
+    }
+  }
+
+  private record CachedExpires(long second, String value) {}
+}
@@ -0,0 +1,4 @@
+CREATE INDEX idx_refresh_tokens_user_active ON refresh_tokens (user_email, revoked_at);
+CREATE INDEX idx_refresh_tokens_revoked_at ON refresh_tokens (revoked_at);
+
+DROP INDEX idx_refresh_tokens_user_email ON refresh_tokens;
@@ -0,0 +1,7 @@
+ALTER TABLE users ADD COLUMN email_normalized VARCHAR(255) NULL;
+
+UPDATE users SET email_normalized = LOWER(TRIM(email));
+
+ALTER TABLE users MODIFY COLUMN email_normalized VARCHAR(255) NOT NULL;
+
+CREATE UNIQUE INDEX uk_users_email_normalized ON users (email_normalized);
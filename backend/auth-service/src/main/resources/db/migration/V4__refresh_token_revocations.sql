@@ -0,0 +1,10 @@
+CREATE TABLE IF NOT EXISTS refresh_token_revocations (
+  id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+  user_email VARCHAR(255) NULL,
+  token_id VARCHAR(64) NULL,
+  not_before TIMESTAMP(6) NULL,
+  expires_at TIMESTAMP(6) NOT NULL,
+  created_at TIMESTAMP(6) NOT NULL
+);
+
+CREATE INDEX idx_refresh_token_revocations_expires_at ON refresh_token_revocations (expires_at);
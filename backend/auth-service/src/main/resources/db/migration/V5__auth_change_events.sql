@@ -0,0 +1,11 @@
+CREATE TABLE IF NOT EXISTS auth_change_events (
+  id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+  event_type VARCHAR(32) NOT NULL,
+  user_email VARCHAR(255) NULL,
+  token_id VARCHAR(64) NULL,
+  not_before TIMESTAMP(6) NULL,
+  expires_at TIMESTAMP(6) NULL,
+  created_at TIMESTAMP(6) NOT NULL
+);
+
+CREATE INDEX idx_auth_change_events_created_at ON auth_change_events (created_at);
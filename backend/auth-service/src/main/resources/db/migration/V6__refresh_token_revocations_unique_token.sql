@@ -0,0 +1,11 @@
+DELETE FROM refresh_token_revocations
+ WHERE id IN (
+   SELECT id FROM (
+     SELECT duplicate.id
+       FROM refresh_token_revocations duplicate
+       JOIN refresh_token_revocations kept ON kept.token_id = duplicate.token_id AND kept.id < duplicate.id
+   ) duplicates
+ );
+
+CREATE UNIQUE INDEX uk_refresh_token_revocations_token_id ON refresh_token_revocations (token_id);
+CREATE INDEX idx_refresh_token_revocations_user_email ON refresh_token_revocations (user_email, not_before);
@@ -0,0 +1,170 @@
+package com.demo.devops.authservice.bootstrap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import com.demo.devops.authservice.dto.UserImportResponse;
+import com.demo.devops.authservice.security.AuthChangeEvent;
+import com.demo.devops.authservice.security.AuthChangeFeed;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class UserImportServiceTest {
+  private DriverManagerDataSource dataSource;
+  private JdbcTemplate jdbcTemplate;
+  private PasswordEncoder passwordEncoder;
+  private AuthChangeFeed authChanges;
+  private UserImportService importService;
+
+  @BeforeEach
+  void setUp() {
+    dataSource = new DriverManagerDataSource(
+        "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE", "sa", "");
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    jdbcTemplate.execute("""
+        CREATE TABLE users (
+          id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+          email VARCHAR(255) NOT NULL,
+          email_normalized VARCHAR(255) NOT NULL UNIQUE,
+          password_hash VARCHAR(255) NOT NULL,
+          role VARCHAR(255) NOT NULL,
+          created_at TIMESTAMP(6) NULL
+        )
+        """);
+    passwordEncoder = Mockito.mock(PasswordEncoder.class);
+    when(passwordEncoder.encode(any())).thenAnswer(invocation -> "hashed-" + invocation.getArgument(0));
+    authChanges = Mockito.mock(AuthChangeFeed.class);
+    importService = importService(Duration.ofMinutes(1));
+  }
+
+  @AfterEach
+  void tearDown() {
+    jdbcTemplate.execute("SHUTDOWN");
+    importService.shutdown();
+  }
+
+  @Test
+  void importsCsvRowsInBatchesAndSkipsExistingAndInvalidRows() throws Exception {
+    jdbcTemplate.update(
+        "INSERT INTO users (email, email_normalized, password_hash, role) VALUES (?, ?, ?, ?)",
+        "existing@example.com",
+        "existing@example.com",
+        "old-hash",
+        "user");
+
+    UserImportResponse result = importService.importUsers(stream("""
+        Email,Role,Password
+        first@example.com,Admin,"pass,with,commas"
+        Existing@example.com,user,secret
+        not-an-email,user,secret
+        third@example.com,superuser,secret
+        second@example.com,,secret
+        FIRST@example.com,user,again
+        """), UserImportService.Format.CSV);
+
+    assertEquals(2, result.imported());
+    assertEquals(2, result.skipped());
+    assertEquals(2, result.rejected());
+    assertEquals(
+        Map.of("email", "first@example.com", "password_hash", "hashed-pass,with,commas", "role", "admin"),
+        jdbcTemplate.queryForMap(
+            "SELECT email, password_hash, role FROM users WHERE email_normalized = 'first@example.com'"));
+    assertEquals("user", jdbcTemplate.queryForObject(
+        "SELECT role FROM users WHERE email_normalized = 'second@example.com'", String.class));
+    assertEquals("old-hash", jdbcTemplate.queryForObject(
+        "SELECT password_hash FROM users WHERE email_normalized = 'existing@example.com'", String.class));
+    verify(authChanges).publish(AuthChangeEvent.usersImported());
+    verifyNoMoreInteractions(authChanges);
+  }
+
+  @Test
+  void usersFromCommittedChunksAreAnnouncedWhenALaterChunkFails() {
+    when(passwordEncoder.encode("broken")).thenThrow(new IllegalStateException("hashing failed"));
+
+    assertThrows(IllegalStateException.class, () -> importService.importUsers(stream("""
+        email,password
+        first@example.com,secret
+        second@example.com,secret
+        third@example.com,broken
+        """), UserImportService.Format.CSV));
+
+    assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Integer.class));
+    verify(authChanges).publish(AuthChangeEvent.usersImported());
+  }
+
+  @Test
+  void committedChunksAreAnnouncedAsTheyLandOncePerPublishInterval() throws Exception {
+    importService.shutdown();
+    importService = importService(Duration.ZERO);
+
+    importService.importUsers(stream("""
+        email,password
+        first@example.com,secret
+        second@example.com,secret
+        third@example.com,secret
+        """), UserImportService.Format.CSV);
+
+    verify(authChanges, times(2)).publish(AuthChangeEvent.usersImported());
+  }
+
+  @Test
+  void importsNdjsonRows() throws Exception {
+    UserImportResponse result = importService.importUsers(stream("""
+        {"email":"one@example.com","password":"secret"}
+        {"email":"two@example.com","password":"secret","role":"admin"}
+        {"email":
+        """), UserImportService.Format.NDJSON);
+
+    assertEquals(2, result.imported());
+    assertEquals(1, result.rejected());
+    assertEquals(
+        List.of("one@example.com", "two@example.com"),
+        jdbcTemplate.queryForList("SELECT email FROM users ORDER BY id", String.class));
+  }
+
+  @Test
+  void rejectsCsvWithoutTheRequiredColumns() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> importService.importUsers(stream("email,role\n"), UserImportService.Format.CSV));
+  }
+
+  private UserImportService importService(Duration publishInterval) {
+    return new UserImportService(
+        new NamedParameterJdbcTemplate(jdbcTemplate),
+        new TransactionTemplate(new DataSourceTransactionManager(dataSource)),
+        passwordEncoder,
+        authChanges,
+        new ObjectMapper(),
+        new SimpleMeterRegistry(),
+        2,
+        2,
+        publishInterval);
+  }
+
+  private static InputStream stream(String content) {
+    return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -7,6 +7,8 @@ import static org.mockito.Mockito.when;
 
 import com.demo.devops.authservice.domain.UserAccount;
 import com.demo.devops.authservice.repository.UserRepository;
+import com.demo.devops.authservice.security.AuthChangeEvent;
+import com.demo.devops.authservice.security.AuthChangeFeed;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -17,6 +19,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 class UserSeederTest {
   private UserRepository userRepository;
   private PasswordEncoder passwordEncoder;
+  private AuthChangeFeed authChanges;
   private UserSeeder userSeeder;
 
   @BeforeEach
@@ -24,7 +27,8 @@ class UserSeederTest {
   void setUp() {
     userRepository = Mockito.mock(UserRepository.class);
     passwordEncoder = Mockito.mock(PasswordEncoder.class);
-    userSeeder = new UserSeeder(userRepository, passwordEncoder, "demo@example.com", "change-me");
+    authChanges = Mockito.mock(AuthChangeFeed.class);
+    userSeeder = new UserSeeder(userRepository, passwordEncoder, authChanges, "demo@example.com", "change-me");
   }
 
   @Test
@@ -34,7 +38,7 @@ class UserSeederTest {
     existingUser.setPasswordHash("stored-password");
     existingUser.setRole("admin");
 
-    when(userRepository.findByEmailIgnoreCase("demo@example.com"))
+    when(userRepository.findByEmailNormalized("demo@example.com"))
         .thenReturn(Optional.of(existingUser));
     when(passwordEncoder.matches("change-me", "stored-password")).thenReturn(false);
     when(passwordEncoder.encode("change-me")).thenReturn("encoded-password");
@@ -45,8 +49,10 @@ class UserSeederTest {
     verify(userRepository).save(userCaptor.capture());
     UserAccount savedUser = userCaptor.getValue();
     assertEquals("demo@example.com", savedUser.getEmail());
+    assertEquals("demo@example.com", savedUser.getEmailNormalized());
     assertEquals("encoded-password", savedUser.getPasswordHash());
     assertEquals("user", savedUser.getRole());
+    verify(authChanges).publish(AuthChangeEvent.userChanged("demo@example.com"));
   }
 
   @Test
@@ -56,7 +62,7 @@ class UserSeederTest {
     existingUser.setPasswordHash("stored-password");
     existingUser.setRole("user");
 
-    when(userRepository.findByEmailIgnoreCase("demo@example.com"))
+    when(userRepository.findByEmailNormalized("demo@example.com"))
         .thenReturn(Optional.of(existingUser));
     when(passwordEncoder.matches("change-me", "stored-password")).thenReturn(true);
 
@@ -66,9 +72,27 @@ class UserSeederTest {
     verify(userRepository).save(eq(existingUser));
   }
 
+  @Test
+  void runReencodesMatchingSeedPasswordWhenTheHashCostIsOutdated() {
+    UserAccount existingUser = new UserAccount();
+    existingUser.setEmail("demo@example.com");
+    existingUser.setPasswordHash("outdated-password");
+    existingUser.setRole("user");
+
+    when(userRepository.findByEmailNormalized("demo@example.com"))
+        .thenReturn(Optional.of(existingUser));
+    when(passwordEncoder.upgradeEncoding("outdated-password")).thenReturn(true);
+    when(passwordEncoder.encode("change-me")).thenReturn("encoded-password");
+
+    userSeeder.run();
+
+    assertEquals("encoded-password", existingUser.getPasswordHash());
+    verify(userRepository).save(eq(existingUser));
+  }
+
   @Test
   void runCreatesSeedUserWhenAccountIsMissing() {
-    when(userRepository.findByEmailIgnoreCase("demo@example.com")).thenReturn(Optional.empty());
+    when(userRepository.findByEmailNormalized("demo@example.com")).thenReturn(Optional.empty());
     when(passwordEncoder.encode("change-me")).thenReturn("encoded-password");
 
     userSeeder.run();
@@ -1,19 +1,32 @@
 package com.demo.devops.authservice.config;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.then;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.demo.devops.authservice.bootstrap.UserImportService;
 import com.demo.devops.authservice.client.AuditClient;
+import com.demo.devops.authservice.dto.UserImportResponse;
 import com.demo.devops.authservice.domain.UserAccount;
 import com.demo.devops.authservice.repository.UserRepository;
 import com.demo.devops.authservice.security.JwtAuthFilter;
 import com.demo.devops.authservice.security.JwtService;
+import com.demo.devops.authservice.security.LoginRateLimiter;
+import com.demo.devops.authservice.security.PasswordHashingExecutor;
 import com.demo.devops.authservice.security.RefreshTokenService;
+import com.demo.devops.authservice.security.UserDirectory;
+import com.demo.devops.authservice.security.UserPrincipalCache;
+import com.demo.devops.authservice.web.AdminUserController;
 import com.demo.devops.authservice.web.AuthController;
+import io.jsonwebtoken.Jwts;
 import jakarta.servlet.http.Cookie;
 import java.lang.reflect.Method;
 import java.util.Optional;
@@ -26,12 +39,11 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.csrf.CsrfTokenRepository;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
-@WebMvcTest(controllers = AuthController.class, properties = {
+@WebMvcTest(controllers = {AuthController.class, AdminUserController.class}, properties = {
     "app.cookie.secure=false",
     "logging.level.org.springdoc.core.events.SpringDocAppInitializer=ERROR"
 })
@@ -52,7 +64,19 @@ class SecurityConfigTest {
   private AuditClient auditClient;
 
   @MockitoBean
-  private PasswordEncoder passwordEncoder;
+  private PasswordHashingExecutor passwordHashingExecutor;
+
+  @MockitoBean
+  private UserDirectory userDirectory;
+
+  @MockitoBean
+  private UserPrincipalCache userPrincipalCache;
+
+  @MockitoBean
+  private LoginRateLimiter loginRateLimiter;
+
+  @MockitoBean
+  private UserImportService userImportService;
 
   @MockitoBean
   private JwtService jwtService;
@@ -63,7 +87,23 @@ class SecurityConfigTest {
     given(jwtService.getRefreshExpirationSeconds()).willReturn(604800L);
 
     mockMvc.perform(get("/auth/session"))
-        .andExpect(status().isOk());
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.SET_COOKIE, startsWith("XSRF-TOKEN=")))
+        .andExpect(jsonPath("$.authenticated").value(false));
+  }
+
+  @Test
+  void sessionEndpointResolvesBearerTokensWithoutTheFullChain() throws Exception {
+    given(jwtService.parseAccessToken("admin-token"))
+        .willReturn(Jwts.claims().subject("admin@example.com").add("role", "admin").build());
+
+    mockMvc.perform(get("/auth/session")
+            .header(HttpHeaders.AUTHORIZATION, "Bearer admin-token")
+            .cookie(new Cookie("XSRF-TOKEN", "csrf-token")))
+        .andExpect(status().isOk())
+        .andExpect(header().doesNotExist(HttpHeaders.SET_COOKIE))
+        .andExpect(jsonPath("$.user.email").value("admin@example.com"))
+        .andExpect(jsonPath("$.user.role").value("admin"));
   }
 
   @Test
@@ -83,8 +123,9 @@ class SecurityConfigTest {
     user.setPasswordHash("hashed-password");
     user.setRole("user");
 
-    given(userRepository.findByEmailIgnoreCase("user@example.com")).willReturn(Optional.of(user));
-    given(passwordEncoder.matches("secret", "hashed-password")).willReturn(true);
+    given(loginRateLimiter.tryAcquire(any(), eq("user@example.com"))).willReturn(true);
+    given(userDirectory.findByEmail("user@example.com")).willReturn(Optional.of(user));
+    given(passwordHashingExecutor.matches("secret", "hashed-password")).willReturn(true);
     given(jwtService.generateAccessToken("user@example.com", "user")).willReturn("access-token");
     given(jwtService.generateRefreshToken("user@example.com", "user")).willReturn("refresh-token");
     given(jwtService.getAccessExpirationSeconds()).willReturn(3600L);
@@ -103,6 +144,50 @@ class SecurityConfigTest {
     then(auditClient).should().sendEvent("LOGIN_SUCCESS", "user@example.com", "login successful", "auth-service");
   }
 
+  @Test
+  void userImportRequiresTheAdminRole() throws Exception {
+    given(jwtService.parseAccessToken("user-token"))
+        .willReturn(Jwts.claims().subject("user@example.com").add("role", "user").build());
+
+    mockMvc.perform(post("/auth/admin/users/import")
+            .header(HttpHeaders.AUTHORIZATION, "Bearer user-token")
+            .contentType("text/csv")
+            .content("email,password\n"))
+        .andExpect(status().isForbidden());
+  }
+
+  @Test
+  void userImportRequiresMatchingXsrfCookieAndHeader() throws Exception {
+    given(jwtService.parseAccessToken("admin-token"))
+        .willReturn(Jwts.claims().subject("admin@example.com").add("role", "admin").build());
+
+    mockMvc.perform(post("/auth/admin/users/import")
+            .header(HttpHeaders.AUTHORIZATION, "Bearer admin-token")
+            .contentType("application/x-ndjson")
+            .content("""
+                {"email":"new@example.com","password":"secret"}
+                """))
+        .andExpect(status().isForbidden());
+  }
+
+  @Test
+  void userImportAcceptsAdminBearerTokens() throws Exception {
+    given(jwtService.parseAccessToken("admin-token"))
+        .willReturn(Jwts.claims().subject("admin@example.com").add("role", "admin").build());
+    given(userImportService.importUsers(any(), eq(UserImportService.Format.NDJSON)))
+        .willReturn(new UserImportResponse(1, 0, 0, 5));
+
+    mockMvc.perform(post("/auth/admin/users/import")
+            .header(HttpHeaders.AUTHORIZATION, "Bearer admin-token")
+            .cookie(new Cookie("XSRF-TOKEN", "csrf-token"))
+            .header("X-XSRF-TOKEN", "csrf-token")
+            .contentType("application/x-ndjson")
+            .content("""
+                {"email":"new@example.com","password":"secret"}
+                """))
+        .andExpect(status().isOk());
+  }
+
   @Test
   void sharedRepositoryLoadsReadableCookieBackedToken() throws Exception {
     var repository = sharedCookieCsrfTokenRepository();
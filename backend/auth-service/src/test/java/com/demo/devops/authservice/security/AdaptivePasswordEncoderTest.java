@@ -0,0 +1,45 @@
+package com.demo.devops.authservice.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+class AdaptivePasswordEncoderTest {
+  private final AdaptivePasswordEncoder encoder = new AdaptivePasswordEncoder(5);
+
+  @Test
+  void encodeRecordsTheAlgorithmAndCost() {
+    String encoded = encoder.encode("secret");
+
+    assertTrue(encoded.startsWith("{bcrypt}$2a$05$"));
+    assertTrue(encoder.matches("secret", encoded));
+    assertFalse(encoder.upgradeEncoding(encoded));
+  }
+
+  @Test
+  void matchesLegacyUnprefixedHashesAndFlagsThemForRehash() {
+    String legacy = new BCryptPasswordEncoder(4).encode("secret");
+
+    assertTrue(encoder.matches("secret", legacy));
+    assertTrue(encoder.upgradeEncoding(legacy));
+  }
+
+  @Test
+  void upgradeEncodingFlagsOnlyCheaperHashes() {
+    assertTrue(encoder.upgradeEncoding(new AdaptivePasswordEncoder(4).encode("secret")));
+    assertFalse(encoder.upgradeEncoding(new AdaptivePasswordEncoder(6).encode("secret")));
+  }
+
+  @Test
+  void calibrateStrengthStaysWithinTheSupportedRange() {
+    int lowTarget = AdaptivePasswordEncoder.calibrateStrength(Duration.ofNanos(1));
+    int highTarget = AdaptivePasswordEncoder.calibrateStrength(Duration.ofHours(1));
+
+    assertEquals(AdaptivePasswordEncoder.MIN_STRENGTH, lowTarget);
+    assertEquals(AdaptivePasswordEncoder.MAX_STRENGTH, highTarget);
+  }
+}
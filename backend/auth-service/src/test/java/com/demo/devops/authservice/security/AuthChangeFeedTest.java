@@ -0,0 +1,164 @@
+package com.demo.devops.authservice.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class AuthChangeFeedTest {
+  private static final Instant EXPIRES_AT = Instant.parse("2030-01-01T00:00:00Z");
+
+  private final AtomicLong clock = new AtomicLong();
+  private DriverManagerDataSource dataSource;
+  private JdbcTemplate jdbcTemplate;
+
+  @BeforeEach
+  void setUp() {
+    dataSource = new DriverManagerDataSource(
+        "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE", "sa", "");
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    jdbcTemplate.execute("""
+        CREATE TABLE auth_change_events (
+          id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+          event_type VARCHAR(32) NOT NULL,
+          user_email VARCHAR(255) NULL,
+          token_id VARCHAR(64) NULL,
+          not_before TIMESTAMP(6) NULL,
+          expires_at TIMESTAMP(6) NULL,
+          created_at TIMESTAMP(6) NOT NULL
+        )
+        """);
+  }
+
+  @AfterEach
+  void tearDown() {
+    jdbcTemplate.execute("SHUTDOWN");
+  }
+
+  @Test
+  void publishedEventsReachLocalListenersImmediatelyAndOtherReplicasOnTheNextPoll() {
+    List<AuthChangeEvent> local = new CopyOnWriteArrayList<>();
+    List<AuthChangeEvent> remote = new CopyOnWriteArrayList<>();
+    AuthChangeFeed publisher = feed(local::add);
+    AuthChangeFeed replica = feed(remote::add);
+    publisher.publish(AuthChangeEvent.userChanged("before@example.com"));
+    replica.poll();
+
+    AuthChangeEvent revoked = AuthChangeEvent.tokenRevoked(UUID.randomUUID().toString(), EXPIRES_AT);
+    publisher.publishAll(List.of(AuthChangeEvent.userChanged("user@example.com"), revoked));
+    replica.poll();
+    replica.poll();
+
+    assertEquals(3, local.size());
+    assertEquals(List.of(AuthChangeEvent.userChanged("user@example.com"), revoked), remote);
+  }
+
+  @Test
+  void eventsPublishedInATransactionReachLocalListenersOnlyAfterCommit() {
+    List<AuthChangeEvent> local = new CopyOnWriteArrayList<>();
+    AuthChangeFeed feed = feed(local::add);
+    TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+    transaction.executeWithoutResult(status -> {
+      feed.publish(AuthChangeEvent.userChanged("committed@example.com"));
+      assertEquals(List.of(), local);
+    });
+    transaction.executeWithoutResult(status -> {
+      feed.publish(AuthChangeEvent.userChanged("rolled-back@example.com"));
+      status.setRollbackOnly();
+    });
+
+    assertEquals(List.of(AuthChangeEvent.userChanged("committed@example.com")), local);
+    assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM auth_change_events", Integer.class));
+  }
+
+  @Test
+  void aSeededFeedDeliversEventsCommittedBeforeItsFirstPoll() {
+    List<AuthChangeEvent> remote = new CopyOnWriteArrayList<>();
+    AuthChangeFeed replica = feed(remote::add);
+    insert(1, "before@example.com");
+    replica.seed();
+
+    insert(2, "after@example.com");
+    replica.poll();
+
+    assertEquals(List.of(AuthChangeEvent.userChanged("after@example.com")), remote);
+  }
+
+  @Test
+  void pollDeliversRowsThatCommitBehindAlreadySeenIds() {
+    List<AuthChangeEvent> remote = new CopyOnWriteArrayList<>();
+    AuthChangeFeed replica = feed(remote::add);
+    replica.poll();
+
+    insert(5, "late@example.com");
+    replica.poll();
+    insert(3, "early@example.com");
+    replica.poll();
+
+    assertEquals(
+        List.of(AuthChangeEvent.userChanged("late@example.com"), AuthChangeEvent.userChanged("early@example.com")),
+        remote);
+  }
+
+  @Test
+  void pollAdvancesPastRowsOnceTheGapGraceHasElapsed() {
+    List<AuthChangeEvent> remote = new CopyOnWriteArrayList<>();
+    AuthChangeFeed replica = feed(remote::add);
+    replica.poll();
+
+    insert(5, "seen@example.com");
+    replica.poll();
+    clock.addAndGet(Duration.ofSeconds(11).toMillis());
+    replica.poll();
+    insert(3, "abandoned@example.com");
+    replica.poll();
+
+    assertEquals(List.of(AuthChangeEvent.userChanged("seen@example.com")), remote);
+  }
+
+  @Test
+  void purgeDropsEventsOlderThanTheRetention() {
+    AuthChangeFeed feed = feed(event -> { });
+    feed.publish(AuthChangeEvent.userChanged("user@example.com"));
+    jdbcTemplate.update("UPDATE auth_change_events SET created_at = ?", Timestamp.from(Instant.now().minusSeconds(7200)));
+    feed.publish(AuthChangeEvent.userChanged("fresh@example.com"));
+
+    feed.purge();
+
+    assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM auth_change_events", Integer.class));
+  }
+
+  private AuthChangeFeed feed(AuthChangeListener listener) {
+    StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+    beanFactory.addBean("listener", listener);
+    return new AuthChangeFeed(
+        jdbcTemplate,
+        beanFactory.getBeanProvider(AuthChangeListener.class),
+        Duration.ofSeconds(10),
+        Duration.ofHours(1),
+        2,
+        clock::get);
+  }
+
+  private void insert(long id, String email) {
+    jdbcTemplate.update(
+        "INSERT INTO auth_change_events (id, event_type, user_email, created_at) VALUES (?, 'USER_CHANGED', ?, ?)",
+        id,
+        email,
+        Timestamp.from(Instant.now()));
+  }
+}
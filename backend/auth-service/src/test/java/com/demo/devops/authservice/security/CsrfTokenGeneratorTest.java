@@ -0,0 +1,24 @@
+package com.demo.devops.authservice.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class CsrfTokenGeneratorTest {
+
+  @Test
+  void tokensAreUniqueAndCookieSafeAcrossBufferRefills() {
+    Set<String> tokens = new HashSet<>();
+    for (int i = 0; i < 1000; i++) {
+      String token = CsrfTokenGenerator.next();
+      assertEquals(22, token.length());
+      assertTrue(token.matches("[A-Za-z0-9_-]+"), token);
+      tokens.add(token);
+    }
+
+    assertEquals(1000, tokens.size());
+  }
+}
@@ -1,6 +1,7 @@
 package com.demo.devops.authservice.security;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
@@ -10,6 +11,7 @@ import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.Date;
 import org.junit.jupiter.api.Test;
 
@@ -44,6 +46,16 @@ class JwtServiceTest {
     assertEquals("user@example.com", jwtService.parseRefreshToken(second).getSubject());
   }
 
+  @Test
+  void issuedAtKeepsMillisecondPrecision() {
+    Instant before = Instant.now();
+    Claims claims = jwtService.parseRefreshToken(jwtService.generateRefreshToken("user@example.com", "admin"));
+
+    Instant issuedAt = JwtService.issuedAt(claims);
+    assertEquals(claims.getIssuedAt().toInstant().getEpochSecond(), issuedAt.getEpochSecond());
+    assertFalse(issuedAt.isBefore(before.truncatedTo(ChronoUnit.MILLIS)));
+  }
+
   private String signToken(String secret, String tokenType) {
     Instant now = Instant.now();
     return Jwts.builder()
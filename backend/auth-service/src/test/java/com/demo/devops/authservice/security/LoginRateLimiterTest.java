@@ -0,0 +1,84 @@
+package com.demo.devops.authservice.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+class LoginRateLimiterTest {
+  private final AtomicLong nanoTime = new AtomicLong();
+  private SimpleMeterRegistry meterRegistry;
+  private LoginRateLimiter limiter;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    limiter = new LoginRateLimiter(
+        meterRegistry, true, 3, 60, 2, 60, Duration.ofMinutes(10), 100, List.of("172.18.0.0/16"), nanoTime::get);
+  }
+
+  @Test
+  void rejectsAnAccountOnceItsBucketIsEmptyAndRefillsOverTime() {
+    assertTrue(limiter.tryAcquire(request("10.0.0.1"), "user@example.com"));
+    assertTrue(limiter.tryAcquire(request("10.0.0.2"), " USER@example.com "));
+    assertFalse(limiter.tryAcquire(request("10.0.0.3"), "user@example.com"));
+
+    nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(1));
+
+    assertTrue(limiter.tryAcquire(request("10.0.0.4"), "user@example.com"));
+    assertEquals(1.0, meterRegistry.get("auth.login.rate_limited").tag("scope", "account").counter().count());
+  }
+
+  @Test
+  void rejectsAClientAcrossDifferentAccounts() {
+    assertTrue(limiter.tryAcquire(request("10.0.0.1"), "a@example.com"));
+    assertTrue(limiter.tryAcquire(request("10.0.0.1"), "b@example.com"));
+    assertTrue(limiter.tryAcquire(request("10.0.0.1"), "c@example.com"));
+    assertFalse(limiter.tryAcquire(request("10.0.0.1"), "d@example.com"));
+
+    assertEquals(1.0, meterRegistry.get("auth.login.rate_limited").tag("scope", "client").counter().count());
+  }
+
+  @Test
+  void clientAddressUsesTheLastHopNotAddedByATrustedProxy() {
+    MockHttpServletRequest forwarded = request("172.18.0.5");
+    forwarded.addHeader("X-Forwarded-For", "1.2.3.4, 203.0.113.7, 172.18.0.9");
+
+    assertEquals("203.0.113.7", limiter.clientAddress(forwarded));
+    assertEquals("172.18.0.5", limiter.clientAddress(request("172.18.0.5")));
+  }
+
+  @Test
+  void clientAddressIgnoresForwardedForFromUntrustedPeers() {
+    MockHttpServletRequest direct = request("198.51.100.20");
+    direct.addHeader("X-Forwarded-For", "10.9.9.9");
+
+    assertEquals("198.51.100.20", limiter.clientAddress(direct));
+  }
+
+  @Test
+  void evictIdleBucketsForgetsDrainedBucketsAfterTheIdleWindow() {
+    limiter.tryAcquire(request("10.0.0.1"), "user@example.com");
+    limiter.tryAcquire(request("10.0.0.1"), "user@example.com");
+    assertFalse(limiter.tryAcquire(request("10.0.0.1"), "user@example.com"));
+
+    nanoTime.addAndGet(TimeUnit.MINUTES.toNanos(11));
+    limiter.evictIdleBuckets();
+
+    assertTrue(limiter.tryAcquire(request("10.0.0.1"), "user@example.com"));
+  }
+
+  private static MockHttpServletRequest request(String remoteAddr) {
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.setRemoteAddr(remoteAddr);
+    return request;
+  }
+}
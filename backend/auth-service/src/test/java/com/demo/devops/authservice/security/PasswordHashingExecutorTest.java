@@ -0,0 +1,88 @@
+package com.demo.devops.authservice.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+class PasswordHashingExecutorTest {
+  private PasswordEncoder passwordEncoder;
+  private SimpleMeterRegistry meterRegistry;
+  private PasswordHashingExecutor executor;
+
+  @BeforeEach
+  void setUp() {
+    passwordEncoder = Mockito.mock(PasswordEncoder.class);
+    meterRegistry = new SimpleMeterRegistry();
+    executor = new PasswordHashingExecutor(passwordEncoder, meterRegistry, 1, 1, Duration.ofSeconds(5));
+  }
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdown();
+  }
+
+  @Test
+  void matchesDelegatesToTheEncoderAndRecordsTimings() {
+    when(passwordEncoder.matches("secret", "hash")).thenReturn(true);
+
+    assertTrue(executor.matches("secret", "hash"));
+
+    assertEquals(1L, meterRegistry.get("auth.password_hashing.queue_wait").timer().count());
+    assertEquals(1L, meterRegistry.get("auth.password_hashing.hash").tag("operation", "matches").timer().count());
+  }
+
+  @Test
+  void rejectsImmediatelyWhenWorkersAndQueueAreFull() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    when(passwordEncoder.matches("slow", "hash")).thenAnswer(invocation -> {
+      started.countDown();
+      release.await(5, TimeUnit.SECONDS);
+      return true;
+    });
+
+    CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> executor.matches("slow", "hash"));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> executor.matches("slow", "hash"));
+    waitForQueuedTask();
+
+    assertThrows(PasswordHashingBusyException.class, () -> executor.matches("slow", "hash"));
+    assertEquals(1.0, meterRegistry.get("auth.password_hashing.rejected").counter().count());
+
+    release.countDown();
+    assertTrue(running.get(5, TimeUnit.SECONDS));
+    assertTrue(queued.get(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void rejectsWhenTheResultIsNotReadyWithinTheMaximumWait() {
+    executor.shutdown();
+    executor = new PasswordHashingExecutor(passwordEncoder, meterRegistry, 1, 1, Duration.ofMillis(50));
+    when(passwordEncoder.encode("slow")).thenAnswer(invocation -> {
+      Thread.sleep(1000);
+      return "hash";
+    });
+
+    assertThrows(PasswordHashingBusyException.class, () -> executor.encode("slow"));
+  }
+
+  private void waitForQueuedTask() throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (meterRegistry.get("auth.password_hashing.queue_size").gauge().value() < 1
+        && System.nanoTime() < deadline) {
+      Thread.sleep(5);
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package com.demo.devops.authservice.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.demo.devops.authservice.repository.RefreshTokenRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.data.domain.Pageable;
+
+class RefreshTokenPurgeJobTest {
+  private RefreshTokenRepository refreshTokenRepository;
+  private SimpleMeterRegistry meterRegistry;
+  private RefreshTokenPurgeJob purgeJob;
+
+  @BeforeEach
+  void setUp() {
+    refreshTokenRepository = Mockito.mock(RefreshTokenRepository.class);
+    meterRegistry = new SimpleMeterRegistry();
+    purgeJob = new RefreshTokenPurgeJob(refreshTokenRepository, meterRegistry, Duration.ofHours(24), 2, 10);
+  }
+
+  @Test
+  void purgeDeletesExpiredThenRevokedRowsInChunks() {
+    when(refreshTokenRepository.findExpiredIds(any(), any()))
+        .thenReturn(List.of(1L, 2L), List.of(3L));
+    when(refreshTokenRepository.findRevokedIds(any(), any()))
+        .thenReturn(List.of(4L));
+
+    purgeJob.purge();
+
+    verify(refreshTokenRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+    verify(refreshTokenRepository).deleteAllByIdInBatch(List.of(3L));
+    verify(refreshTokenRepository).deleteAllByIdInBatch(List.of(4L));
+    assertEquals(4.0, meterRegistry.get("auth.refresh_tokens.purged").counter().count());
+    assertEquals(1L, meterRegistry.get("auth.refresh_tokens.purge").timer().count());
+  }
+
+  @Test
+  void purgeAppliesTheRevokedGracePeriodAndChunkSize() {
+    when(refreshTokenRepository.findExpiredIds(any(), any())).thenReturn(List.of());
+    when(refreshTokenRepository.findRevokedIds(any(), any())).thenReturn(List.of());
+    ArgumentCaptor<Instant> now = ArgumentCaptor.forClass(Instant.class);
+    ArgumentCaptor<Instant> revokedBefore = ArgumentCaptor.forClass(Instant.class);
+    ArgumentCaptor<Pageable> page = ArgumentCaptor.forClass(Pageable.class);
+
+    purgeJob.purge();
+
+    verify(refreshTokenRepository).findExpiredIds(now.capture(), page.capture());
+    verify(refreshTokenRepository).findRevokedIds(revokedBefore.capture(), any());
+    verify(refreshTokenRepository, never()).deleteAllByIdInBatch(any());
+    assertEquals(Duration.ofHours(24), Duration.between(revokedBefore.getValue(), now.getValue()));
+    assertEquals(2, page.getValue().getPageSize());
+  }
+
+  @Test
+  void purgeStopsAfterTheConfiguredNumberOfChunks() {
+    when(refreshTokenRepository.findExpiredIds(any(), any())).thenReturn(List.of(1L, 2L));
+    when(refreshTokenRepository.findRevokedIds(any(), any())).thenReturn(List.of());
+
+    purgeJob.purge();
+
+    verify(refreshTokenRepository, times(10)).deleteAllByIdInBatch(any());
+    assertEquals(20.0, meterRegistry.get("auth.refresh_tokens.purged").counter().count());
+  }
+}
@@ -2,7 +2,7 @@ package com.demo.devops.authservice.security;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
-import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
@@ -16,7 +16,6 @@ import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.time.Instant;
 import java.util.HexFormat;
-import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -29,7 +28,9 @@ class RefreshTokenServiceTest {
   @BeforeEach
   void setUp() {
     refreshTokenRepository = Mockito.mock(RefreshTokenRepository.class);
-    refreshTokenService = new RefreshTokenService(refreshTokenRepository);
+    refreshTokenService = new RefreshTokenService(
+        new JpaRefreshSessionStore(refreshTokenRepository),
+        new JwtService("01234567890123456789012345678901", 3600));
   }
 
   @Test
@@ -50,12 +51,12 @@ class RefreshTokenServiceTest {
   }
 
   @Test
-  void rotateSessionReturnsFalseWhenTheCurrentRefreshTokenIsMissing() {
-    when(refreshTokenRepository.findFirstByUserEmailAndTokenHashAndRevokedAtIsNullAndExpiresAtAfter(
+  void rotateSessionReturnsFalseWhenTheCurrentRefreshTokenIsNoLongerActive() {
+    when(refreshTokenRepository.revokeIfActive(
             eq("user@example.com"),
             eq(hash("current-token")),
             any(Instant.class)))
-        .thenReturn(Optional.empty());
+        .thenReturn(0);
 
     boolean rotated = refreshTokenService.rotateSession(
         "user@example.com",
@@ -68,16 +69,12 @@ class RefreshTokenServiceTest {
   }
 
   @Test
-  void rotateSessionRevokesTheCurrentRecordAndStoresTheReplacementToken() {
-    RefreshTokenSession current = new RefreshTokenSession();
-    current.setUserEmail("user@example.com");
-    current.setTokenHash(hash("current-token"));
-    current.setExpiresAt(Instant.parse("2026-03-17T00:00:00Z"));
-    when(refreshTokenRepository.findFirstByUserEmailAndTokenHashAndRevokedAtIsNullAndExpiresAtAfter(
+  void rotateSessionConditionallyRevokesTheCurrentRecordAndStoresTheReplacementToken() {
+    when(refreshTokenRepository.revokeIfActive(
             eq("user@example.com"),
             eq(hash("current-token")),
             any(Instant.class)))
-        .thenReturn(Optional.of(current));
+        .thenReturn(1);
 
     ArgumentCaptor<RefreshTokenSession> sessionCaptor = ArgumentCaptor.forClass(RefreshTokenSession.class);
 
@@ -88,10 +85,10 @@ class RefreshTokenServiceTest {
         Instant.parse("2026-03-18T00:00:00Z"));
 
     assertTrue(rotated);
-    verify(refreshTokenRepository, Mockito.times(2)).save(sessionCaptor.capture());
-    assertNotNull(sessionCaptor.getAllValues().get(0).getRevokedAt());
-    assertEquals("user@example.com", sessionCaptor.getAllValues().get(1).getUserEmail());
-    assertEquals(hash("next-token"), sessionCaptor.getAllValues().get(1).getTokenHash());
+    verify(refreshTokenRepository).save(sessionCaptor.capture());
+    assertEquals("user@example.com", sessionCaptor.getValue().getUserEmail());
+    assertEquals(hash("next-token"), sessionCaptor.getValue().getTokenHash());
+    assertNull(sessionCaptor.getValue().getRevokedAt());
   }
 
   @Test
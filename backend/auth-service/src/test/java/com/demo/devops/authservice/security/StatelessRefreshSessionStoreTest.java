@@ -0,0 +1,211 @@
+package com.demo.devops.authservice.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class StatelessRefreshSessionStoreTest {
+  private static final String EMAIL = "user@example.com";
+  private static final Instant NOW = Instant.now();
+
+  private final Map<StatelessRefreshSessionStore, AuthChangeFeed> feeds = new HashMap<>();
+  private DriverManagerDataSource dataSource;
+  private JdbcTemplate jdbcTemplate;
+  private StatelessRefreshSessionStore store;
+
+  @BeforeEach
+  void setUp() {
+    dataSource = new DriverManagerDataSource(
+        "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE", "sa", "");
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    jdbcTemplate.execute("""
+        CREATE TABLE refresh_token_revocations (
+          id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+          user_email VARCHAR(255) NULL,
+          token_id VARCHAR(64) NULL,
+          not_before TIMESTAMP(6) NULL,
+          expires_at TIMESTAMP(6) NOT NULL,
+          created_at TIMESTAMP(6) NOT NULL
+        )
+        """);
+    jdbcTemplate.execute("CREATE UNIQUE INDEX uk_token_id ON refresh_token_revocations (token_id)");
+    jdbcTemplate.execute("""
+        CREATE TABLE auth_change_events (
+          id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+          event_type VARCHAR(32) NOT NULL,
+          user_email VARCHAR(255) NULL,
+          token_id VARCHAR(64) NULL,
+          not_before TIMESTAMP(6) NULL,
+          expires_at TIMESTAMP(6) NULL,
+          created_at TIMESTAMP(6) NOT NULL
+        )
+        """);
+    store = replica();
+  }
+
+  @AfterEach
+  void tearDown() {
+    jdbcTemplate.execute("SHUTDOWN");
+  }
+
+  @Test
+  void rotateAcceptsATokenOnlyOnce() {
+    RefreshTokenRef current = token(NOW.minusSeconds(60));
+
+    assertTrue(store.rotate(EMAIL, current, token(NOW), NOW));
+    assertFalse(store.rotate(EMAIL, current, token(NOW), NOW));
+  }
+
+  @Test
+  void replaceActiveRejectsTokensIssuedBeforeTheNewSession() {
+    RefreshTokenRef older = token(NOW.minusSeconds(60));
+    RefreshTokenRef fresh = token(NOW);
+
+    store.replaceActive("User@Example.com", fresh, NOW);
+
+    assertFalse(store.rotate(EMAIL, older, token(NOW), NOW));
+    assertTrue(store.rotate(EMAIL, fresh, token(NOW), NOW));
+  }
+
+  @Test
+  void replaceActiveCutsOffTokensIssuedEarlierInTheSameSecond() {
+    Instant login = Instant.parse("2030-01-01T00:00:00.500Z");
+    RefreshTokenRef sameSecond = token(login.minusMillis(400));
+
+    store.replaceActive(EMAIL, token(login), login);
+
+    assertFalse(store.rotate(EMAIL, sameSecond, token(login), login));
+  }
+
+  @Test
+  void rotateTouchesTheDatabaseOnlyWhenFlushed() {
+    assertTrue(store.rotate(EMAIL, token(NOW.minusSeconds(60)), token(NOW), NOW));
+
+    assertEquals(0, count("refresh_token_revocations"));
+    assertEquals(0, count("auth_change_events"));
+
+    store.flush();
+
+    assertEquals(1, count("refresh_token_revocations"));
+    assertEquals(1, count("auth_change_events"));
+  }
+
+  @Test
+  void aTokenRotatedOnTwoReplicasCutsOffTheUsersSessionsOnceFlushed() {
+    StatelessRefreshSessionStore other = replica();
+    other.afterSingletonsInstantiated();
+    RefreshTokenRef current = token(NOW.minusSeconds(60));
+    RefreshTokenRef first = token(NOW);
+    RefreshTokenRef second = token(NOW);
+
+    assertTrue(store.rotate(EMAIL, current, first, NOW));
+    assertTrue(other.rotate(EMAIL, current, second, NOW));
+    store.flush();
+    other.flush();
+    feeds.get(store).poll();
+
+    assertFalse(other.rotate(EMAIL, second, token(NOW), NOW));
+    assertFalse(store.rotate(EMAIL, first, token(NOW), NOW));
+  }
+
+  @Test
+  void loginOnOneReplicaCutsOffOlderTokensOnAnotherOnceTheFeedIsPolled() {
+    StatelessRefreshSessionStore other = replica();
+    other.afterSingletonsInstantiated();
+    RefreshTokenRef older = token(NOW.minusSeconds(60));
+
+    store.replaceActive(EMAIL, token(NOW), NOW);
+    feeds.get(other).poll();
+
+    assertFalse(other.rotate(EMAIL, older, token(NOW), NOW));
+  }
+
+  @Test
+  void rotateRejectsExpiredAndUnidentifiedTokens() {
+    RefreshTokenRef expired = new RefreshTokenRef("hash", UUID.randomUUID().toString(), NOW.minusSeconds(60), NOW);
+    RefreshTokenRef anonymous = new RefreshTokenRef("hash", null, NOW, NOW.plusSeconds(60));
+
+    assertFalse(store.rotate(EMAIL, expired, token(NOW), NOW));
+    assertFalse(store.rotate(EMAIL, anonymous, token(NOW), NOW));
+  }
+
+  @Test
+  void revocationsArePersistedAndReloadedByANewInstance() {
+    RefreshTokenRef loggedOut = token(NOW.minusSeconds(60));
+    RefreshTokenRef older = token(NOW.minusSeconds(120));
+    store.revoke(loggedOut, NOW);
+    store.replaceActive(EMAIL, token(NOW.minusSeconds(90)), NOW);
+
+    StatelessRefreshSessionStore restarted = replica();
+    restarted.afterSingletonsInstantiated();
+
+    assertEquals(1, restarted.revokedTokenCount());
+    assertFalse(restarted.rotate(EMAIL, loggedOut, token(NOW), NOW));
+    assertFalse(restarted.rotate(EMAIL, older, token(NOW), NOW));
+  }
+
+  @Test
+  void revocationsReachOtherReplicasThroughTheChangeFeed() {
+    StatelessRefreshSessionStore other = replica();
+    other.afterSingletonsInstantiated();
+    RefreshTokenRef loggedOut = token(NOW.minusSeconds(60));
+    RefreshTokenRef older = token(NOW.minusSeconds(120));
+
+    store.revoke(loggedOut, NOW);
+    store.replaceActive(EMAIL, token(NOW.minusSeconds(90)), NOW);
+    feeds.get(other).poll();
+
+    assertFalse(other.rotate(EMAIL, loggedOut, token(NOW), NOW));
+    assertFalse(other.rotate(EMAIL, older, token(NOW), NOW));
+  }
+
+  @Test
+  void purgeExpiredDropsRowsThatCanNoLongerMatchAToken() {
+    store.revoke(new RefreshTokenRef("hash", UUID.randomUUID().toString(), NOW, NOW.plusMillis(200)), NOW);
+    store.revoke(token(NOW), NOW);
+    jdbcTemplate.update("UPDATE refresh_token_revocations SET expires_at = ? WHERE expires_at < ?",
+        java.sql.Timestamp.from(NOW.minusSeconds(7200)), java.sql.Timestamp.from(NOW.plusSeconds(60)));
+
+    store.purgeExpired();
+
+    assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM refresh_token_revocations", Integer.class));
+  }
+
+  private StatelessRefreshSessionStore replica() {
+    StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+    AuthChangeFeed feed = new AuthChangeFeed(
+        jdbcTemplate,
+        beanFactory.getBeanProvider(AuthChangeListener.class),
+        Duration.ofSeconds(10),
+        Duration.ofHours(1),
+        100);
+    StatelessRefreshSessionStore replica = new StatelessRefreshSessionStore(
+        jdbcTemplate, new TransactionTemplate(new DataSourceTransactionManager(dataSource)), Duration.ofDays(7), feed);
+    beanFactory.addBean("feed", feed);
+    beanFactory.addBean("store", replica);
+    feeds.put(replica, feed);
+    return replica;
+  }
+
+  private int count(String table) {
+    return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+  }
+
+  private static RefreshTokenRef token(Instant issuedAt) {
+    return new RefreshTokenRef("hash", UUID.randomUUID().toString(), issuedAt, issuedAt.plus(Duration.ofDays(7)));
+  }
+}
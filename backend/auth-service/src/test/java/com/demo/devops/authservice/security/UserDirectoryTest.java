@@ -0,0 +1,111 @@
+package com.demo.devops.authservice.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.demo.devops.authservice.domain.UserAccount;
+import com.demo.devops.authservice.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+class UserDirectoryTest {
+  private UserRepository userRepository;
+  private SimpleMeterRegistry meterRegistry;
+  private UserDirectory userDirectory;
+
+  @BeforeEach
+  void setUp() {
+    userRepository = Mockito.mock(UserRepository.class);
+    meterRegistry = new SimpleMeterRegistry();
+    userDirectory = new UserDirectory(userRepository, meterRegistry, Duration.ofMinutes(5), 100, 0.01, 2);
+  }
+
+  @Test
+  void unknownEmailsAreServedFromTheCacheAfterTheFirstMiss() {
+    when(userRepository.findByEmailNormalized("ghost@example.com")).thenReturn(Optional.empty());
+
+    assertTrue(userDirectory.findByEmail("ghost@example.com").isEmpty());
+    assertTrue(userDirectory.findByEmail("Ghost@Example.com").isEmpty());
+
+    verify(userRepository, times(1)).findByEmailNormalized(any());
+    assertEquals(1.0, skipped("unknown_cache"));
+  }
+
+  @Test
+  void rebuiltFilterSkipsTheDatabaseForEmailsThatWereNeverStored() {
+    UserAccount user = user("known@example.com");
+    when(userRepository.count()).thenReturn(3L);
+    when(userRepository.findEmailsAfter(anyLong(), any()))
+        .thenReturn(List.of(row(1L, "known@example.com"), row(2L, "other@example.com")))
+        .thenReturn(List.of(row(5L, "third@example.com")));
+    when(userRepository.findByEmailNormalized("known@example.com")).thenReturn(Optional.of(user));
+
+    userDirectory.rebuild();
+
+    assertEquals(Optional.of(user), userDirectory.findByEmail("known@example.com"));
+    assertTrue(userDirectory.findByEmail("ghost@example.com").isEmpty());
+    verify(userRepository).findEmailsAfter(Mockito.eq(2L), any());
+    verify(userRepository, never()).findByEmailNormalized("ghost@example.com");
+    assertEquals(1.0, skipped("bloom_filter"));
+  }
+
+  @Test
+  void recordUserMakesANewlyCreatedAccountVisible() {
+    UserAccount user = user("new@example.com");
+    when(userRepository.findEmailsAfter(anyLong(), any())).thenReturn(List.of());
+
+    userDirectory.rebuild();
+    when(userRepository.findByEmailNormalized("new@example.com")).thenReturn(Optional.of(user));
+    userDirectory.recordUser("new@example.com");
+
+    assertEquals(Optional.of(user), userDirectory.findByEmail("new@example.com"));
+  }
+
+  @Test
+  void usersImportedEventRebuildsTheFilter() {
+    UserAccount user = user("imported@example.com");
+    when(userRepository.findEmailsAfter(anyLong(), any())).thenReturn(List.of());
+    userDirectory.rebuild();
+    when(userRepository.findEmailsAfter(anyLong(), any())).thenReturn(List.of(row(7L, "imported@example.com")));
+    when(userRepository.findByEmailNormalized("imported@example.com")).thenReturn(Optional.of(user));
+
+    userDirectory.onAuthChange(AuthChangeEvent.usersImported());
+
+    assertEquals(Optional.of(user), userDirectory.findByEmail("imported@example.com"));
+  }
+
+  private double skipped(String reason) {
+    return meterRegistry.get("auth.user_lookup.skipped").tag("reason", reason).counter().count();
+  }
+
+  private static UserAccount user(String email) {
+    UserAccount user = new UserAccount();
+    user.setEmail(email);
+    return user;
+  }
+
+  private static UserRepository.EmailRow row(Long id, String email) {
+    return new UserRepository.EmailRow() {
+      @Override
+      public Long getId() {
+        return id;
+      }
+
+      @Override
+      public String getEmailNormalized() {
+        return email;
+      }
+    };
+  }
+}
@@ -0,0 +1,85 @@
+package com.demo.devops.authservice.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.demo.devops.authservice.domain.UserAccount;
+import com.demo.devops.authservice.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+class UserPrincipalCacheTest {
+  private UserRepository userRepository;
+  private SimpleMeterRegistry meterRegistry;
+  private UserPrincipalCache cache;
+
+  @BeforeEach
+  void setUp() {
+    userRepository = Mockito.mock(UserRepository.class);
+    meterRegistry = new SimpleMeterRegistry();
+    cache = new UserPrincipalCache(userRepository, meterRegistry, 100, Duration.ofMinutes(5));
+  }
+
+  @Test
+  void findServesRepeatLookupsFromMemory() {
+    when(userRepository.findByEmailNormalized("user@example.com")).thenReturn(Optional.of(user("user")));
+
+    assertEquals(Optional.of(new UserPrincipal("User@example.com", "user")), cache.find("User@example.com"));
+    assertEquals(Optional.of(new UserPrincipal("User@example.com", "user")), cache.find("user@example.com"));
+
+    verify(userRepository, times(1)).findByEmailNormalized("user@example.com");
+    assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "auth.user_principals").tag("result", "hit")
+        .functionCounter().count());
+  }
+
+  @Test
+  void invalidateReloadsTheChangedRole() {
+    when(userRepository.findByEmailNormalized("user@example.com"))
+        .thenReturn(Optional.of(user("user")))
+        .thenReturn(Optional.of(user("admin")));
+
+    cache.find("user@example.com");
+    cache.invalidate("USER@example.com");
+
+    assertEquals("admin", cache.find("user@example.com").orElseThrow().role());
+  }
+
+  @Test
+  void onlyUserChangesEvictCachedPrincipals() {
+    when(userRepository.findByEmailNormalized("user@example.com"))
+        .thenReturn(Optional.of(user("user")))
+        .thenReturn(Optional.of(user("admin")));
+    cache.find("user@example.com");
+
+    cache.onAuthChange(AuthChangeEvent.sessionsRevoked("user@example.com", Instant.now()));
+    assertEquals("user", cache.find("user@example.com").orElseThrow().role());
+
+    cache.onAuthChange(AuthChangeEvent.userChanged("user@example.com"));
+    assertEquals("admin", cache.find("user@example.com").orElseThrow().role());
+  }
+
+  @Test
+  void unknownUsersAreNotCached() {
+    when(userRepository.findByEmailNormalized("ghost@example.com")).thenReturn(Optional.empty());
+
+    assertTrue(cache.find("ghost@example.com").isEmpty());
+    assertTrue(cache.find("ghost@example.com").isEmpty());
+
+    verify(userRepository, times(2)).findByEmailNormalized("ghost@example.com");
+  }
+
+  private static UserAccount user(String role) {
+    UserAccount user = new UserAccount();
+    user.setEmail("User@example.com");
+    user.setRole(role);
+    return user;
+  }
+}
@@ -17,7 +17,13 @@ import com.demo.devops.authservice.dto.LoginRequest;
 import com.demo.devops.authservice.dto.SessionResponse;
 import com.demo.devops.authservice.repository.UserRepository;
 import com.demo.devops.authservice.security.JwtService;
+import com.demo.devops.authservice.security.LoginRateLimiter;
+import com.demo.devops.authservice.security.PasswordHashingExecutor;
 import com.demo.devops.authservice.security.RefreshTokenService;
+import com.demo.devops.authservice.security.UserDirectory;
+import com.demo.devops.authservice.security.UserPrincipalCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
@@ -55,8 +61,11 @@ class AuthControllerTest {
             jwtService,
             refreshTokenService,
             userRepository,
+            new UserDirectory(userRepository, new SimpleMeterRegistry(), Duration.ofMinutes(5), 100, 0.01, 100),
+            new UserPrincipalCache(userRepository, new SimpleMeterRegistry(), 100, Duration.ofMinutes(5)),
             auditClient,
-            passwordEncoder,
+            new PasswordHashingExecutor(passwordEncoder, new SimpleMeterRegistry(), 1, 4, Duration.ofSeconds(2)),
+            new LoginRateLimiter(new SimpleMeterRegistry(), false, 1, 1, 1, 1, Duration.ofMinutes(1), 1, List.of()),
             false,
             "");
   }
@@ -92,6 +101,13 @@ class AuthControllerTest {
     assertEquals("admin", session.user().role());
   }
 
+  @Test
+  void roleOfStripsOnlyTheRolePrefixAndDefaultsToUser() {
+    assertEquals("auditor", AuthController.roleOf(
+        new UsernamePasswordAuthenticationToken(EMAIL, "n/a", List.of(new SimpleGrantedAuthority("AUDITOR")))));
+    assertEquals("user", AuthController.roleOf(new UsernamePasswordAuthenticationToken(EMAIL, "n/a", List.of())));
+  }
+
   @Test
   void loginWritesSessionCookiesAndAuditsSuccess() {
     UserAccount user = new UserAccount();
@@ -99,7 +115,7 @@ class AuthControllerTest {
     user.setPasswordHash("hashed-password");
     user.setRole("admin");
 
-    when(userRepository.findByEmailIgnoreCase(EMAIL)).thenReturn(Optional.of(user));
+    when(userRepository.findByEmailNormalized(EMAIL)).thenReturn(Optional.of(user));
     when(passwordEncoder.matches("correct-password", "hashed-password")).thenReturn(true);
 
     MockHttpServletRequest request = new MockHttpServletRequest();
@@ -122,6 +138,28 @@ class AuthControllerTest {
     verify(refreshTokenService).createSession(eq(EMAIL), Mockito.anyString(), Mockito.any());
   }
 
+  @Test
+  void loginRehashesPasswordsStoredWithAnOutdatedCost() {
+    UserAccount user = new UserAccount();
+    user.setEmail(EMAIL);
+    user.setPasswordHash("outdated-hash");
+    user.setRole("user");
+
+    when(userRepository.findByEmailNormalized(EMAIL)).thenReturn(Optional.of(user));
+    when(passwordEncoder.matches("correct-password", "outdated-hash")).thenReturn(true);
+    when(passwordEncoder.upgradeEncoding("outdated-hash")).thenReturn(true);
+    when(passwordEncoder.encode("correct-password")).thenReturn("current-hash");
+
+    controller.login(
+        new LoginRequest(EMAIL, "correct-password"),
+        new MockHttpServletRequest(),
+        new MockHttpServletResponse(),
+        CSRF_TOKEN);
+
+    assertEquals("current-hash", user.getPasswordHash());
+    verify(userRepository).save(user);
+  }
+
   @Test
   void loginAuditsFailureWhenPasswordIsInvalid() {
     UserAccount user = new UserAccount();
@@ -129,7 +167,7 @@ class AuthControllerTest {
     user.setPasswordHash("hashed-password");
     user.setRole("user");
 
-    when(userRepository.findByEmailIgnoreCase(EMAIL)).thenReturn(Optional.of(user));
+    when(userRepository.findByEmailNormalized(EMAIL)).thenReturn(Optional.of(user));
     when(passwordEncoder.matches("wrong-password", "hashed-password")).thenReturn(false);
 
     MockHttpServletRequest request = new MockHttpServletRequest();
@@ -144,12 +182,27 @@ class AuthControllerTest {
         .sendEvent(eq("LOGIN_SUCCESS"), eq(EMAIL), eq("login successful"), eq("auth-service"));
   }
 
+  @Test
+  void loginHashesAgainstAPlaceholderWhenTheUserIsUnknown() {
+    when(userRepository.findByEmailNormalized(EMAIL)).thenReturn(Optional.empty());
+
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    assertThrows(
+        RuntimeException.class,
+        () -> controller.login(new LoginRequest(EMAIL, "any-password"), request, response, CSRF_TOKEN));
+
+    verify(passwordEncoder).matches(eq("any-password"), any());
+    verify(auditClient).sendEvent("LOGIN_FAILURE", EMAIL, "user not found", "auth-service");
+  }
+
   @Test
   void refreshRotatesSessionWhenRefreshTokenIsValid() {
     UserAccount user = new UserAccount();
     user.setEmail(EMAIL);
     user.setRole("admin");
-    when(userRepository.findByEmailIgnoreCase(EMAIL)).thenReturn(Optional.of(user));
+    when(userRepository.findByEmailNormalized(EMAIL)).thenReturn(Optional.of(user));
     when(refreshTokenService.rotateSession(eq(EMAIL), Mockito.anyString(), Mockito.anyString(), Mockito.any()))
         .thenReturn(true);
 
@@ -181,7 +234,7 @@ class AuthControllerTest {
 
   @Test
   void refreshReturnsAnonymousWhenTheUserNoLongerExists() {
-    when(userRepository.findByEmailIgnoreCase(EMAIL)).thenReturn(Optional.empty());
+    when(userRepository.findByEmailNormalized(EMAIL)).thenReturn(Optional.empty());
 
     MockHttpServletRequest request = new MockHttpServletRequest();
     request.setCookies(
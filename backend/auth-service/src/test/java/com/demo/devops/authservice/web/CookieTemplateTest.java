@@ -0,0 +1,75 @@
+package com.demo.devops.authservice.web;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseCookie;
+
+class CookieTemplateTest {
+  private static final Instant NOW = Instant.parse("2026-03-18T10:15:30Z");
+
+  @Test
+  void renderMatchesTheResponseCookieFormat() {
+    CookieTemplate template = new CookieTemplate("refresh_token", true, true, "example.com", 604800);
+    String expected = ResponseCookie.from("refresh_token", "header.payload.signature")
+        .httpOnly(true)
+        .secure(true)
+        .sameSite("Lax")
+        .path("/")
+        .domain("example.com")
+        .maxAge(604800)
+        .build()
+        .toString();
+
+    assertEquals(
+        expected.replaceFirst("Expires=[^;]+", "Expires=" + expires(NOW.plus(Duration.ofDays(7)))),
+        template.render("header.payload.signature", NOW));
+  }
+
+  @Test
+  void clearMatchesAnExpiredResponseCookie() {
+    CookieTemplate template = new CookieTemplate("XSRF-TOKEN", false, false, "", 3600);
+    String expected = ResponseCookie.from("XSRF-TOKEN", "")
+        .secure(false)
+        .sameSite("Lax")
+        .path("/")
+        .maxAge(0)
+        .build()
+        .toString();
+
+    assertEquals(expected, template.clear());
+    assertEquals("XSRF-TOKEN=; Path=/; Max-Age=0; Expires=Thu, 01 Jan 1970 00:00:00 GMT; SameSite=Lax", template.clear());
+  }
+
+  @Test
+  void renderRecomputesExpiresOncePerSecond() {
+    CookieTemplate template = new CookieTemplate("auth_token", true, false, "", 60);
+
+    String first = template.render("a", NOW);
+    assertEquals(first, template.render("a", NOW.plusMillis(999)));
+    assertEquals(
+        "auth_token=a; Path=/; Max-Age=60; Expires=" + expires(NOW.plusSeconds(61)) + "; HttpOnly; SameSite=Lax",
+        template.render("a", NOW.plusSeconds(1)));
+  }
+
+  @Test
+  void renderRejectsValuesOutsideTheCookieOctetRange() {
+    CookieTemplate template = new CookieTemplate("auth_token", true, false, "", 60);
+
+    for (String value : new String[] {"a b", "a;b", "a,b", "a\"b", "a\\b", "a\r\nSet-Cookie: x=y", "café"}) {
+      assertThrows(IllegalArgumentException.class, () -> template.render(value, NOW), value);
+    }
+  }
+
+  private static String expires(Instant instant) {
+    return DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US)
+        .withZone(ZoneOffset.UTC)
+        .format(instant);
+  }
+}
@@ -0,0 +1,198 @@
+package com.demo.devops.authservice.web;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import com.demo.devops.authservice.client.AuditClient;
+import com.demo.devops.authservice.config.SecurityConfig;
+import com.demo.devops.authservice.dto.SessionResponse;
+import com.demo.devops.authservice.repository.UserRepository;
+import com.demo.devops.authservice.security.CsrfTokenGenerator;
+import com.demo.devops.authservice.security.JwtAuthFilter;
+import com.demo.devops.authservice.security.JwtService;
+import com.demo.devops.authservice.security.LoginRateLimiter;
+import com.demo.devops.authservice.security.PasswordHashingExecutor;
+import com.demo.devops.authservice.security.RefreshTokenService;
+import com.demo.devops.authservice.security.UserDirectory;
+import com.demo.devops.authservice.security.UserPrincipalCache;
+import io.jsonwebtoken.Claims;
+import jakarta.servlet.Filter;
+import jakarta.servlet.http.Cookie;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+// Drives GET /auth/session through MockMvc with the real security filter chains, JWT filter and controller, so
+// the numbers include filter dispatch and JSON rendering but not Tomcat or the network. The remaining benchmarks
+// peel the request apart layer by layer (MockMvc without security, the controller method, JWT parsing) so the
+// cost of each can be read off by difference.
+// Run with: java -cp <test classpath> com.demo.devops.authservice.web.SessionEndpointBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SessionEndpointBenchmark {
+  private static final JwtService JWT_SERVICE = new JwtService("01234567890123456789012345678901", 3600);
+
+  private AnnotationConfigWebApplicationContext context;
+  private MockMvc mockMvc;
+  private MockMvc mockMvcWithoutSecurity;
+  private AuthController controller;
+  private String accessToken;
+  private Authentication authentication;
+
+  @Setup
+  public void setUp() {
+    // Outside Spring Boot logback would default to DEBUG and the benchmark would mostly measure logging.
+    LoggingSystem.get(getClass().getClassLoader()).setLogLevel(LoggingSystem.ROOT_LOGGER_NAME, LogLevel.WARN);
+    context = new AnnotationConfigWebApplicationContext();
+    context.setServletContext(new MockServletContext());
+    context.register(SessionEndpointContext.class);
+    context.refresh();
+    mockMvc = MockMvcBuilders.webAppContextSetup(context)
+        .addFilters(context.getBean("springSecurityFilterChain", Filter.class))
+        .build();
+    mockMvcWithoutSecurity = MockMvcBuilders.webAppContextSetup(context).build();
+    controller = context.getBean(AuthController.class);
+    accessToken = JWT_SERVICE.generateAccessToken("user@example.com", "admin");
+    authentication = new UsernamePasswordAuthenticationToken(
+        "user@example.com", null, List.of(new SimpleGrantedAuthority("ROLE_ADMIN")));
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public MvcResult anonymousFirstVisit() throws Exception {
+    return mockMvc.perform(get("/auth/session")).andReturn();
+  }
+
+  @Benchmark
+  public MvcResult authenticatedWithCsrfCookie() throws Exception {
+    return mockMvc.perform(get("/auth/session")
+            .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
+            .cookie(new Cookie("XSRF-TOKEN", "csrf-token")))
+        .andReturn();
+  }
+
+  @Benchmark
+  public MvcResult authenticatedWithoutSecurityFilters() throws Exception {
+    return mockMvcWithoutSecurity.perform(get("/auth/session")
+            .principal(authentication)
+            .cookie(new Cookie("XSRF-TOKEN", "csrf-token")))
+        .andReturn();
+  }
+
+  @Benchmark
+  public SessionResponse controllerOnly() {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/auth/session");
+    request.setCookies(new Cookie("XSRF-TOKEN", "csrf-token"));
+    return controller.session(authentication, request, new MockHttpServletResponse(), null);
+  }
+
+  @Benchmark
+  public Claims parseAccessToken() {
+    return JWT_SERVICE.parseAccessToken(accessToken);
+  }
+
+  @Benchmark
+  public String csrfTokenFromBufferedRandom() {
+    return CsrfTokenGenerator.next();
+  }
+
+  @Benchmark
+  public String csrfTokenFromRandomUuid() {
+    return UUID.randomUUID().toString();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(SessionEndpointBenchmark.class.getSimpleName()).build()).run();
+  }
+
+  // Deliberately not a @Configuration, so the application's component scan does not pick it up in other tests.
+  @EnableWebMvc
+  @Import({SecurityConfig.class, JwtAuthFilter.class, AuthController.class})
+  static class SessionEndpointContext {
+    // Lets @Value bind Duration and DataSize properties the way Spring Boot does.
+    @Bean
+    static ConversionService conversionService() {
+      return ApplicationConversionService.getSharedInstance();
+    }
+
+    @Bean
+    JwtService jwtService() {
+      return JWT_SERVICE;
+    }
+
+    @Bean
+    RefreshTokenService refreshTokenService() {
+      return Mockito.mock(RefreshTokenService.class);
+    }
+
+    @Bean
+    UserRepository userRepository() {
+      return Mockito.mock(UserRepository.class);
+    }
+
+    @Bean
+    UserDirectory userDirectory() {
+      return Mockito.mock(UserDirectory.class);
+    }
+
+    @Bean
+    UserPrincipalCache userPrincipalCache() {
+      return Mockito.mock(UserPrincipalCache.class);
+    }
+
+    @Bean
+    AuditClient auditClient() {
+      return Mockito.mock(AuditClient.class);
+    }
+
+    @Bean
+    PasswordHashingExecutor passwordHashingExecutor() {
+      return Mockito.mock(PasswordHashingExecutor.class);
+    }
+
+    @Bean
+    LoginRateLimiter loginRateLimiter() {
+      return Mockito.mock(LoginRateLimiter.class);
+    }
+  }
+}
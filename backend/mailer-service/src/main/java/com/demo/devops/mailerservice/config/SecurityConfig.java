@@ -26,7 +26,8 @@ public class SecurityConfig {
             .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
             .requestMatchers("/health").permitAll()
             .requestMatchers(HttpMethod.GET, "/csrf").permitAll()
-            .requestMatchers(HttpMethod.POST, "/send").permitAll()
+            .requestMatchers(HttpMethod.POST, "/send", "/send/batch").permitAll()
+            .requestMatchers(HttpMethod.GET, "/messages/*", "/messages/*/deliveries", "/deliveries").permitAll()
             .requestMatchers("/v3/api-docs/**").permitAll()
             .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
             .requestMatchers("/actuator/info", "/actuator/prometheus").permitAll()
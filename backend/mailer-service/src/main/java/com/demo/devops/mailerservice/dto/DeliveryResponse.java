@@ -0,0 +1,28 @@
+package com.demo.devops.mailerservice.dto;
+
+import com.demo.devops.mailerservice.service.DeliveryRecord;
+import java.time.Instant;
+
+public record DeliveryResponse(
+    String id,
+    String to,
+    String outcome,
+    int attempt,
+    Instant at,
+    long durationMillis,
+    int batchSize,
+    String error) {
+
+  public static DeliveryResponse of(DeliveryRecord record) {
+    return new DeliveryResponse(
+        record.id(),
+        record.to(),
+        record.outcome().name().toLowerCase(),
+        record.attempt(),
+        record.at(),
+        record.durationMillis(),
+        // Records written before batch sizes were kept describe single sends.
+        Math.max(1, record.batchSize()),
+        record.error());
+  }
+}
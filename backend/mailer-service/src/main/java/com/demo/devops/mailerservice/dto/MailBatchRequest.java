@@ -0,0 +1,11 @@
+package com.demo.devops.mailerservice.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public record MailBatchRequest(
+    @NotEmpty @Size(max = 500) List<@Valid @NotNull MailRequest> messages
+) {}
@@ -0,0 +1,34 @@
+package com.demo.devops.mailerservice.dto;
+
+import java.util.List;
+
+public record MailBatchResponse(int accepted, int failed, List<Result> results) {
+
+  public static MailBatchResponse of(List<Result> results) {
+    int failed = (int) results.stream().filter(result -> result.error() != null).count();
+    return new MailBatchResponse(results.size() - failed, failed, results);
+  }
+
+  public record Result(int index, String id, String status, String error) {
+
+    public static Result of(int index, MailStatusResponse status) {
+      return new Result(index, status.id(), status.status(), null);
+    }
+
+    public static Result sent(int index, String id) {
+      return new Result(index, id, "sent", null);
+    }
+
+    public static Result sending(int index, String id) {
+      return new Result(index, id, "sending", null);
+    }
+
+    public static Result failed(int index, String error) {
+      return failed(index, null, error);
+    }
+
+    public static Result failed(int index, String id, String error) {
+      return new Result(index, id, "failed", error);
+    }
+  }
+}
@@ -1,11 +1,37 @@
 package com.demo.devops.mailerservice.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.AssertTrue;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import java.util.Map;
 
 public record MailRequest(
     @NotBlank @Email String to,
-    @NotBlank String subject,
-    @NotBlank String text
-) {}
+    String subject,
+    String text,
+    String template,
+    @Size(max = 50) Map<String, String> params,
+    @Size(max = 200) String idempotencyKey
+) {
+  public MailRequest(String to, String subject, String text) {
+    this(to, subject, text, null, null, null);
+  }
 
+  public static MailRequest fromTemplate(String to, String template, Map<String, String> params) {
+    return new MailRequest(to, null, null, template, params, null);
+  }
+
+  public MailRequest withIdempotencyKey(String key) {
+    return new MailRequest(to, subject, text, template, params, key);
+  }
+
+  @JsonIgnore
+  @AssertTrue(message = "either template or both subject and text must be provided")
+  public boolean isContentProvided() {
+    return template != null
+        ? !template.isBlank() && subject == null && text == null
+        : subject != null && !subject.isBlank() && text != null && !text.isBlank();
+  }
+}
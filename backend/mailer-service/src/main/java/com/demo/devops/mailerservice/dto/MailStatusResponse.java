@@ -0,0 +1,28 @@
+package com.demo.devops.mailerservice.dto;
+
+import com.demo.devops.mailerservice.service.QueuedMail;
+import java.time.Instant;
+
+public record MailStatusResponse(
+    String id,
+    String status,
+    int attempts,
+    Instant acceptedAt,
+    Instant nextAttemptAt,
+    String lastError) {
+
+  // A message sent directly, without the queue; it has no accept time or retry schedule.
+  public static MailStatusResponse direct(String id, String status) {
+    return new MailStatusResponse(id, status, 1, null, null, null);
+  }
+
+  public static MailStatusResponse of(QueuedMail mail) {
+    return new MailStatusResponse(
+        mail.id(),
+        mail.status().name().toLowerCase(),
+        mail.attempts(),
+        mail.acceptedAt(),
+        mail.nextAttemptAt(),
+        mail.lastError());
+  }
+}
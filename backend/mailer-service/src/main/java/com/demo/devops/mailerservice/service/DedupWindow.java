@@ -0,0 +1,170 @@
+package com.demo.devops.mailerservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+// Remembers recently accepted messages in a ring of time buckets; a key lives between
+// (buckets - 1) and buckets bucket-widths before its bucket is recycled.
+@Component
+public class DedupWindow {
+  private final boolean enabled;
+  private final long bucketNanos;
+  private final AtomicReferenceArray<Bucket> ring;
+  private final LongSupplier nanoTime;
+  private final Counter hitsCounter;
+
+  @Autowired
+  public DedupWindow(
+      MeterRegistry meterRegistry,
+      @Value("${mailer.dedup.enabled:true}") boolean enabled,
+      @Value("${mailer.dedup.window:PT10M}") Duration window,
+      @Value("${mailer.dedup.buckets:10}") int buckets) {
+    this(meterRegistry, enabled, window, buckets, System::nanoTime);
+  }
+
+  DedupWindow(MeterRegistry meterRegistry, boolean enabled, Duration window, int buckets, LongSupplier nanoTime) {
+    this.enabled = enabled;
+    this.bucketNanos = Math.max(1, window.toNanos() / Math.max(1, buckets));
+    this.ring = new AtomicReferenceArray<>(Math.max(1, buckets));
+    this.nanoTime = nanoTime;
+    this.hitsCounter = Counter.builder("mailer.dedup.hits")
+        .description("Messages acknowledged as duplicates of one accepted earlier in the dedup window")
+        .register(meterRegistry);
+    Gauge.builder("mailer.dedup.entries", this, DedupWindow::size)
+        .description("Message keys currently held in the dedup window")
+        .register(meterRegistry);
+  }
+
+  public static String keyOf(String idempotencyKey, String to, String subject, String text) {
+    if (StringUtils.hasText(idempotencyKey)) {
+      return "key:" + idempotencyKey.strip();
+    }
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      digest.update(to.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8));
+      digest.update((byte) 0);
+      digest.update(subject.getBytes(StandardCharsets.UTF_8));
+      digest.update((byte) 0);
+      digest.update(text.getBytes(StandardCharsets.UTF_8));
+      return "sha:" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest());
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException("SHA-256 is not available", ex);
+    }
+  }
+
+  // Records key -> value and returns empty, or returns the value already held for the key while it still stands.
+  // A held value that no longer stands (e.g. its mail failed) is replaced so the message goes out again. The
+  // decision is a single compute on the current bucket, so concurrent claims of one key cannot both win.
+  public Optional<String> claim(String key, String value, Predicate<String> stands) {
+    if (!enabled) {
+      return Optional.empty();
+    }
+    long epoch = epoch();
+    Bucket current = current(epoch);
+    for (int i = 0; i < ring.length(); i++) {
+      Bucket bucket = ring.get(i);
+      if (bucket == null || bucket == current || !isLive(bucket, epoch)) {
+        continue;
+      }
+      String older = bucket.entries.get(key);
+      if (older != null && stands.test(older)) {
+        hitsCounter.increment();
+        return Optional.of(older);
+      }
+      if (older != null) {
+        bucket.entries.remove(key, older);
+      }
+    }
+    String[] held = new String[1];
+    current.entries.compute(key, (ignored, existing) -> {
+      if (existing != null && stands.test(existing)) {
+        held[0] = existing;
+        return existing;
+      }
+      return value;
+    });
+    if (held[0] != null) {
+      hitsCounter.increment();
+      return Optional.of(held[0]);
+    }
+    return Optional.empty();
+  }
+
+  // Swaps the value held for a key, e.g. once an in-flight send has completed, without extending its lifetime.
+  public void replace(String key, String expected, String value) {
+    for (int i = 0; i < ring.length(); i++) {
+      Bucket bucket = ring.get(i);
+      if (bucket != null) {
+        bucket.entries.replace(key, expected, value);
+      }
+    }
+  }
+
+  public void remove(String key) {
+    for (int i = 0; i < ring.length(); i++) {
+      Bucket bucket = ring.get(i);
+      if (bucket != null) {
+        bucket.entries.remove(key);
+      }
+    }
+  }
+
+  int size() {
+    long epoch = epoch();
+    int size = 0;
+    for (int i = 0; i < ring.length(); i++) {
+      Bucket bucket = ring.get(i);
+      if (bucket != null && isLive(bucket, epoch)) {
+        size += bucket.entries.size();
+      }
+    }
+    return size;
+  }
+
+  private Bucket current(long epoch) {
+    int index = (int) Math.floorMod(epoch, (long) ring.length());
+    while (true) {
+      Bucket bucket = ring.get(index);
+      if (bucket != null && bucket.epoch == epoch) {
+        return bucket;
+      }
+      Bucket fresh = new Bucket(epoch);
+      if (ring.compareAndSet(index, bucket, fresh)) {
+        return fresh;
+      }
+    }
+  }
+
+  private boolean isLive(Bucket bucket, long epoch) {
+    return epoch - bucket.epoch < ring.length();
+  }
+
+  private long epoch() {
+    return Math.floorDiv(nanoTime.getAsLong(), bucketNanos);
+  }
+
+  private static final class Bucket {
+    private final long epoch;
+    private final ConcurrentHashMap<String, String> entries = new ConcurrentHashMap<>();
+
+    private Bucket(long epoch) {
+      this.epoch = epoch;
+    }
+  }
+}
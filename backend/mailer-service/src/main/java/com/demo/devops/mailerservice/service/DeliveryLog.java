@@ -0,0 +1,226 @@
+package com.demo.devops.mailerservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+// Append-only record of every delivery attempt. Senders only enqueue; one writer thread drains the buffer and
+// appends each batch with a single write, then indexes it by message id and recipient for the query endpoints.
+@Component
+public class DeliveryLog {
+  private static final Logger LOG = LoggerFactory.getLogger(DeliveryLog.class);
+  private static final DeliveryRecord STOP = new DeliveryRecord(null, null, null, 0, null, 0, 0, null);
+
+  private final boolean enabled;
+  private final ObjectMapper objectMapper;
+  private final DeliveryLogSegments segments;
+  private final BlockingQueue<DeliveryRecord> buffer;
+  private final int batchSize;
+  private final int recipientHistory;
+  private final ConcurrentHashMap<String, List<DeliveryLogSegments.Location>> byId = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String, List<DeliveryLogSegments.Location>> byRecipient = new ConcurrentHashMap<>();
+  private final Thread writer;
+  private final Counter writtenCounter;
+  private final Counter droppedCounter;
+  private final DistributionSummary batchSizes;
+  private long indexedFrom;
+
+  public DeliveryLog(
+      ObjectMapper objectMapper,
+      MeterRegistry meterRegistry,
+      @Value("${mailer.delivery-log.enabled:false}") boolean enabled,
+      @Value("${mailer.delivery-log.dir:${java.io.tmpdir}/mailer-delivery-log}") Path dir,
+      @Value("${mailer.delivery-log.segment-size:16MB}") DataSize segmentSize,
+      @Value("${mailer.delivery-log.retained-segments:4}") int retainedSegments,
+      @Value("${mailer.delivery-log.buffer:65536}") int bufferSize,
+      @Value("${mailer.delivery-log.batch-size:1024}") int batchSize,
+      @Value("${mailer.delivery-log.recipient-history:100}") int recipientHistory) {
+    this.enabled = enabled;
+    this.objectMapper = objectMapper;
+    this.segments = enabled ? new DeliveryLogSegments(dir, segmentSize.toBytes(), retainedSegments) : null;
+    this.buffer = new ArrayBlockingQueue<>(Math.max(1, bufferSize));
+    this.batchSize = Math.max(1, batchSize);
+    this.recipientHistory = Math.max(1, recipientHistory);
+    this.writtenCounter = recordCounter(meterRegistry, "written");
+    this.droppedCounter = recordCounter(meterRegistry, "dropped");
+    this.batchSizes = DistributionSummary.builder("mailer.delivery.batch")
+        .description("Delivery records appended per write")
+        .register(meterRegistry);
+    Gauge.builder("mailer.delivery.buffered", buffer, BlockingQueue::size)
+        .description("Delivery records waiting for the writer")
+        .register(meterRegistry);
+    if (enabled) {
+      rebuildIndex();
+      this.writer = new Thread(this::write, "delivery-log-writer");
+      this.writer.setDaemon(true);
+      this.writer.start();
+    } else {
+      this.writer = null;
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  // Never blocks a sender: when the writer cannot keep up the record is counted as dropped instead.
+  public void record(DeliveryRecord record) {
+    if (enabled && !buffer.offer(record)) {
+      droppedCounter.increment();
+    }
+  }
+
+  public List<DeliveryRecord> forMessage(String id) {
+    return read(byId.getOrDefault(id, List.of()), Integer.MAX_VALUE);
+  }
+
+  // Most recent first.
+  public List<DeliveryRecord> forRecipient(String address, int limit) {
+    List<DeliveryLogSegments.Location> locations =
+        new ArrayList<>(byRecipient.getOrDefault(address.toLowerCase(Locale.ROOT), List.of()));
+    Collections.reverse(locations);
+    return read(locations, limit);
+  }
+
+  @PreDestroy
+  public void shutdown() throws InterruptedException, IOException {
+    if (writer == null) {
+      return;
+    }
+    if (!buffer.offer(STOP, 5, TimeUnit.SECONDS)) {
+      LOG.warn("delivery_log_shutdown_timeout buffered={}", buffer.size());
+    }
+    writer.join(TimeUnit.SECONDS.toMillis(10));
+    segments.close();
+  }
+
+  private void write() {
+    List<DeliveryRecord> batch = new ArrayList<>(batchSize);
+    boolean stopping = false;
+    while (!stopping) {
+      try {
+        batch.add(buffer.take());
+      } catch (InterruptedException ex) {
+        return;
+      }
+      buffer.drainTo(batch, batchSize - 1);
+      stopping = batch.removeIf(record -> record == STOP);
+      if (!batch.isEmpty()) {
+        append(batch);
+        batch.clear();
+      }
+    }
+  }
+
+  private void append(List<DeliveryRecord> batch) {
+    try {
+      List<byte[]> lines = new ArrayList<>(batch.size());
+      for (DeliveryRecord record : batch) {
+        lines.add(objectMapper.writeValueAsBytes(record));
+      }
+      List<DeliveryLogSegments.Location> locations = segments.append(lines);
+      for (int i = 0; i < batch.size(); i++) {
+        index(batch.get(i), locations.get(i));
+      }
+      writtenCounter.increment(batch.size());
+      batchSizes.record(batch.size());
+    } catch (IOException | RuntimeException ex) {
+      droppedCounter.increment(batch.size());
+      LOG.warn("delivery_log_write_failed records={} reason={}", batch.size(), ex.getMessage());
+    }
+    pruneRotatedSegments();
+  }
+
+  private void index(DeliveryRecord record, DeliveryLogSegments.Location location) {
+    byId.merge(record.id(), List.of(location), (held, added) -> appendBounded(held, location, recipientHistory));
+    byRecipient.merge(
+        record.to().toLowerCase(Locale.ROOT),
+        List.of(location),
+        (held, added) -> appendBounded(held, location, recipientHistory));
+  }
+
+  // Index lists are small and replaced wholesale, so queries can read them without locking.
+  private static List<DeliveryLogSegments.Location> appendBounded(
+      List<DeliveryLogSegments.Location> held, DeliveryLogSegments.Location location, int limit) {
+    int from = held.size() >= limit ? held.size() - limit + 1 : 0;
+    List<DeliveryLogSegments.Location> updated = new ArrayList<>(held.size() - from + 1);
+    updated.addAll(held.subList(from, held.size()));
+    updated.add(location);
+    return List.copyOf(updated);
+  }
+
+  private void pruneRotatedSegments() {
+    long oldest = segments.oldestSegment();
+    if (oldest <= indexedFrom) {
+      return;
+    }
+    indexedFrom = oldest;
+    prune(byId, oldest);
+    prune(byRecipient, oldest);
+  }
+
+  private static void prune(ConcurrentHashMap<String, List<DeliveryLogSegments.Location>> index, long oldest) {
+    index.replaceAll((key, locations) -> locations.get(0).segment() >= oldest
+        ? locations
+        : locations.stream().filter(location -> location.segment() >= oldest).toList());
+    index.values().removeIf(List::isEmpty);
+  }
+
+  private void rebuildIndex() {
+    long[] records = new long[1];
+    segments.replay((location, line) -> {
+      try {
+        index(objectMapper.readValue(line, DeliveryRecord.class), location);
+        records[0]++;
+      } catch (IOException ex) {
+        LOG.warn("delivery_log_record_unreadable segment={} offset={}", location.segment(), location.offset());
+      }
+    });
+    indexedFrom = segments.oldestSegment();
+    LOG.info("delivery_log_recovered segments={} records={}", segments.segmentCount(), records[0]);
+  }
+
+  private List<DeliveryRecord> read(List<DeliveryLogSegments.Location> locations, int limit) {
+    List<DeliveryRecord> records = new ArrayList<>(Math.min(locations.size(), limit));
+    for (DeliveryLogSegments.Location location : locations) {
+      if (records.size() >= limit) {
+        break;
+      }
+      try {
+        byte[] line = segments.read(location);
+        if (line != null) {
+          records.add(objectMapper.readValue(line, DeliveryRecord.class));
+        }
+      } catch (IOException ex) {
+        LOG.warn("delivery_log_read_failed segment={} offset={} reason={}",
+            location.segment(), location.offset(), ex.getMessage());
+      }
+    }
+    return records;
+  }
+
+  private static Counter recordCounter(MeterRegistry meterRegistry, String result) {
+    return Counter.builder("mailer.delivery.records")
+        .description("Delivery records by whether they reached the log")
+        .tag("result", result)
+        .register(meterRegistry);
+  }
+}
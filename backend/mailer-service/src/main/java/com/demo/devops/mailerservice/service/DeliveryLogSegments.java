@@ -0,0 +1,158 @@
+package com.demo.devops.mailerservice.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.BiConsumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Newline-delimited records in numbered segment files. Only the writer thread appends; readers go through
+// positional reads, so they never contend with it.
+class DeliveryLogSegments implements AutoCloseable {
+  private static final Logger LOG = LoggerFactory.getLogger(DeliveryLogSegments.class);
+  private static final String PREFIX = "deliveries-";
+  private static final String SUFFIX = ".log";
+
+  record Location(long segment, long offset, int length) {}
+
+  private final Path dir;
+  private final long maxSegmentBytes;
+  private final int retainedSegments;
+  private final ConcurrentSkipListMap<Long, Path> segments = new ConcurrentSkipListMap<>();
+  private FileChannel active;
+  private long activeSegment;
+  private long activeSize;
+
+  DeliveryLogSegments(Path dir, long maxSegmentBytes, int retainedSegments) {
+    this.dir = dir;
+    this.maxSegmentBytes = Math.max(1, maxSegmentBytes);
+    this.retainedSegments = Math.max(1, retainedSegments);
+    try {
+      Files.createDirectories(dir);
+      try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, PREFIX + "*" + SUFFIX)) {
+        for (Path file : files) {
+          String name = file.getFileName().toString();
+          try {
+            segments.put(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())), file);
+          } catch (NumberFormatException ex) {
+            LOG.warn("delivery_log_segment_ignored file={}", name);
+          }
+        }
+      }
+    } catch (IOException ex) {
+      throw new UncheckedIOException("delivery log directory is not usable: " + dir, ex);
+    }
+  }
+
+  // Hands every complete record in the existing segments to the consumer, oldest first. A torn last line
+  // from a crash is skipped; appends always go to a fresh segment, so it is never extended.
+  void replay(BiConsumer<Location, byte[]> consumer) {
+    for (var segment : segments.entrySet()) {
+      try (InputStream in = Files.newInputStream(segment.getValue())) {
+        byte[] chunk = new byte[64 * 1024];
+        ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+        long offset = 0;
+        long lineStart = 0;
+        for (int read; (read = in.read(chunk)) != -1; offset += read) {
+          int from = 0;
+          for (int i = 0; i < read; i++) {
+            if (chunk[i] == '\n') {
+              line.write(chunk, from, i - from);
+              consumer.accept(new Location(segment.getKey(), lineStart, line.size()), line.toByteArray());
+              line.reset();
+              lineStart = offset + i + 1;
+              from = i + 1;
+            }
+          }
+          line.write(chunk, from, read - from);
+        }
+      } catch (IOException ex) {
+        LOG.warn("delivery_log_segment_unreadable file={} reason={}", segment.getValue().getFileName(), ex.getMessage());
+      }
+    }
+  }
+
+  // Writes the whole batch with a single sequential write and returns where each line landed.
+  List<Location> append(List<byte[]> lines) throws IOException {
+    if (active == null || activeSize >= maxSegmentBytes) {
+      roll();
+    }
+    int total = 0;
+    for (byte[] line : lines) {
+      total += line.length + 1;
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(total);
+    List<Location> locations = new ArrayList<>(lines.size());
+    for (byte[] line : lines) {
+      locations.add(new Location(activeSegment, activeSize + buffer.position(), line.length));
+      buffer.put(line).put((byte) '\n');
+    }
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      active.write(buffer);
+    }
+    activeSize += total;
+    return locations;
+  }
+
+  // Null when the segment has been rotated away since the location was handed out.
+  byte[] read(Location location) throws IOException {
+    Path file = segments.get(location.segment());
+    if (file == null) {
+      return null;
+    }
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      ByteBuffer buffer = ByteBuffer.allocate(location.length());
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer, location.offset() + buffer.position()) < 0) {
+          return null;
+        }
+      }
+      return buffer.array();
+    } catch (NoSuchFileException ex) {
+      return null;
+    }
+  }
+
+  long oldestSegment() {
+    return segments.isEmpty() ? 0 : segments.firstKey();
+  }
+
+  int segmentCount() {
+    return segments.size();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (active != null) {
+      active.force(false);
+      active.close();
+      active = null;
+    }
+  }
+
+  private void roll() throws IOException {
+    close();
+    activeSegment = segments.isEmpty() ? 1 : segments.lastKey() + 1;
+    Path file = dir.resolve(String.format("%s%016d%s", PREFIX, activeSegment, SUFFIX));
+    active = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    activeSize = 0;
+    segments.put(activeSegment, file);
+    while (segments.size() > retainedSegments) {
+      Path oldest = segments.pollFirstEntry().getValue();
+      Files.deleteIfExists(oldest);
+    }
+  }
+}
@@ -0,0 +1,40 @@
+package com.demo.devops.mailerservice.service;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+public record DeliveryRecord(
+    String id,
+    String to,
+    Outcome outcome,
+    int attempt,
+    Instant at,
+    long durationMillis,
+    int batchSize,
+    String error) {
+  private static final int MAX_ERROR_LENGTH = 500;
+
+  public enum Outcome {
+    SENT,
+    RETRYING,
+    FAILED
+  }
+
+  public static DeliveryRecord of(String id, String to, Outcome outcome, int attempt, long durationNanos, String error) {
+    return of(id, to, outcome, attempt, durationNanos, 1, error);
+  }
+
+  // Messages sent together share SMTP sessions and cannot be timed one by one, so durationMillis then covers the
+  // whole batch of batchSize messages.
+  public static DeliveryRecord ofBatch(String id, String to, Outcome outcome, long durationNanos, int batchSize,
+      String error) {
+    return of(id, to, outcome, 1, durationNanos, batchSize, error);
+  }
+
+  private static DeliveryRecord of(
+      String id, String to, Outcome outcome, int attempt, long durationNanos, int batchSize, String error) {
+    String trimmed = error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    return new DeliveryRecord(
+        id, to, outcome, attempt, Instant.now(), TimeUnit.NANOSECONDS.toMillis(durationNanos), batchSize, trimmed);
+  }
+}
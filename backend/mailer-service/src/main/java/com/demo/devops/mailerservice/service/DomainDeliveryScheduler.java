@@ -0,0 +1,205 @@
+package com.demo.devops.mailerservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class DomainDeliveryScheduler {
+  record Ticket(String domain, String id) {}
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition changed = lock.newCondition();
+  private final Map<String, Domain> domains = new HashMap<>();
+  private final ArrayDeque<Domain> rotation = new ArrayDeque<>();
+  private final AtomicInteger ready = new AtomicInteger();
+  private final int maxConcurrency;
+  private final double permitsPerNano;
+  private final double burst;
+  private final LongSupplier nanoTime;
+  private final Counter throttledCounter;
+  private long prunedAt;
+  private long nextWaitNanos;
+
+  @Autowired
+  public DomainDeliveryScheduler(
+      MeterRegistry meterRegistry,
+      @Value("${mailer.queue.domain.max-concurrency:2}") int maxConcurrency,
+      @Value("${mailer.queue.domain.rate-per-second:10}") double ratePerSecond,
+      @Value("${mailer.queue.domain.burst:20}") int burst) {
+    this(meterRegistry, maxConcurrency, ratePerSecond, burst, System::nanoTime);
+  }
+
+  DomainDeliveryScheduler(
+      MeterRegistry meterRegistry,
+      int maxConcurrency,
+      double ratePerSecond,
+      int burst,
+      LongSupplier nanoTime) {
+    this.maxConcurrency = Math.max(1, maxConcurrency);
+    this.permitsPerNano = ratePerSecond > 0 ? ratePerSecond / TimeUnit.SECONDS.toNanos(1) : 0;
+    this.burst = Math.max(1, burst);
+    this.nanoTime = nanoTime;
+    this.prunedAt = nanoTime.getAsLong();
+    this.throttledCounter = Counter.builder("mailer.queue.throttled")
+        .description("Times a worker found every domain with ready mail at its concurrency or rate limit")
+        .register(meterRegistry);
+    Gauge.builder("mailer.queue.ready", ready, AtomicInteger::get)
+        .description("Messages due for delivery that are waiting for a per-domain slot")
+        .register(meterRegistry);
+    Gauge.builder("mailer.queue.domains", this, DomainDeliveryScheduler::domainCount)
+        .description("Recipient domains tracked by the delivery scheduler")
+        .register(meterRegistry);
+  }
+
+  static String domainOf(String address) {
+    int at = address.lastIndexOf('@');
+    return (at >= 0 ? address.substring(at + 1) : address).toLowerCase(Locale.ROOT);
+  }
+
+  void offer(String domainName, String id) {
+    lock.lock();
+    try {
+      long now = nanoTime.getAsLong();
+      if (now - prunedAt >= TimeUnit.SECONDS.toNanos(1)) {
+        domains.values().removeIf(domain -> domain.isIdle(now));
+        prunedAt = now;
+      }
+      Domain domain = domains.computeIfAbsent(domainName, name -> new Domain(name, burst, now));
+      if (domain.ready.isEmpty()) {
+        rotation.addLast(domain);
+      }
+      domain.ready.addLast(id);
+      ready.incrementAndGet();
+      changed.signal();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  Ticket take() throws InterruptedException {
+    lock.lockInterruptibly();
+    try {
+      while (true) {
+        Ticket ticket = next(nanoTime.getAsLong());
+        if (ticket != null) {
+          return ticket;
+        }
+        if (!rotation.isEmpty()) {
+          throttledCounter.increment();
+        }
+        if (nextWaitNanos == Long.MAX_VALUE) {
+          changed.await();
+        } else {
+          changed.awaitNanos(nextWaitNanos);
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  Ticket poll() {
+    lock.lock();
+    try {
+      return next(nanoTime.getAsLong());
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  void complete(Ticket ticket) {
+    lock.lock();
+    try {
+      Domain domain = domains.get(ticket.domain());
+      if (domain == null) {
+        return;
+      }
+      domain.inFlight--;
+      if (domain.isIdle(nanoTime.getAsLong())) {
+        domains.remove(domain.name);
+      }
+      changed.signal();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // Walks the rotation once so every domain with ready mail gets a turn before any domain gets a second one.
+  private Ticket next(long now) {
+    nextWaitNanos = Long.MAX_VALUE;
+    for (int i = rotation.size(); i > 0; i--) {
+      Domain domain = rotation.pollFirst();
+      long domainWait = domain.waitNanos(now);
+      if (domainWait == 0) {
+        domain.inFlight++;
+        domain.tokens--;
+        String id = domain.ready.pollFirst();
+        ready.decrementAndGet();
+        if (!domain.ready.isEmpty()) {
+          rotation.addLast(domain);
+        }
+        return new Ticket(domain.name, id);
+      }
+      nextWaitNanos = Math.min(nextWaitNanos, domainWait);
+      rotation.addLast(domain);
+    }
+    return null;
+  }
+
+  int domainCount() {
+    lock.lock();
+    try {
+      return domains.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private final class Domain {
+    private final String name;
+    private final ArrayDeque<String> ready = new ArrayDeque<>();
+    private int inFlight;
+    private double tokens;
+    private long refilledAt;
+
+    private Domain(String name, double tokens, long now) {
+      this.name = name;
+      this.tokens = tokens;
+      this.refilledAt = now;
+    }
+
+    // Idle domains are only forgotten once their bucket has refilled, so emptying the queue does not reset the rate.
+    private boolean isIdle(long now) {
+      return inFlight == 0
+          && ready.isEmpty()
+          && (permitsPerNano == 0 || tokens + (now - refilledAt) * permitsPerNano >= burst);
+    }
+
+    // 0 when a message can go now, Long.MAX_VALUE when only a completion can free a slot.
+    private long waitNanos(long now) {
+      if (inFlight >= maxConcurrency) {
+        return Long.MAX_VALUE;
+      }
+      if (permitsPerNano == 0) {
+        tokens = burst;
+        return 0;
+      }
+      tokens = Math.min(burst, tokens + (now - refilledAt) * permitsPerNano);
+      refilledAt = now;
+      return tokens >= 1 ? 0 : Math.max(1, (long) Math.ceil((1 - tokens) / permitsPerNano));
+    }
+  }
+}
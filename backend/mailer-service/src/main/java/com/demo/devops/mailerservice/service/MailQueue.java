@@ -0,0 +1,293 @@
+package com.demo.devops.mailerservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.mail.MailParseException;
+import org.springframework.mail.MailPreparationException;
+import org.springframework.stereotype.Service;
+
+@Service
+public class MailQueue {
+  private static final Logger LOG = LoggerFactory.getLogger(MailQueue.class);
+
+  private final MailerService mailerService;
+  private final boolean enabled;
+  private final MailSpool spool;
+  private final DomainDeliveryScheduler scheduler;
+  private final DedupWindow dedupWindow;
+  private final DeliveryLog deliveryLog;
+  private final ScheduledExecutorService timer;
+  private final ExecutorService workers;
+  private final int workerCount;
+  private final int maxAttempts;
+  private final Duration initialBackoff;
+  private final Duration maxBackoff;
+  private final int maxPending;
+  private final ConcurrentHashMap<String, QueuedMail> pending = new ConcurrentHashMap<>();
+  private final Map<String, QueuedMail> finished;
+  private final Counter acceptedCounter;
+  private final Counter sentCounter;
+  private final Counter retriedCounter;
+  private final Counter failedCounter;
+
+  public MailQueue(
+      MailerService mailerService,
+      ObjectMapper objectMapper,
+      MeterRegistry meterRegistry,
+      DomainDeliveryScheduler scheduler,
+      DedupWindow dedupWindow,
+      DeliveryLog deliveryLog,
+      @Value("${mailer.queue.enabled:false}") boolean enabled,
+      @Value("${mailer.queue.spool-dir:/var/lib/mailer/spool}") Path spoolDir,
+      @Value("${mailer.queue.workers:4}") int workers,
+      @Value("${mailer.queue.max-attempts:6}") int maxAttempts,
+      @Value("${mailer.queue.initial-backoff:PT2S}") Duration initialBackoff,
+      @Value("${mailer.queue.max-backoff:PT5M}") Duration maxBackoff,
+      @Value("${mailer.queue.max-pending:10000}") int maxPending,
+      @Value("${mailer.queue.status-retention:10000}") int statusRetention) {
+    this.mailerService = mailerService;
+    this.enabled = enabled;
+    this.spool = enabled ? new MailSpool(spoolDir, objectMapper) : null;
+    this.scheduler = scheduler;
+    this.dedupWindow = dedupWindow;
+    this.deliveryLog = deliveryLog;
+    this.timer = enabled ? Executors.newSingleThreadScheduledExecutor(threads("mail-queue-timer")) : null;
+    this.workerCount = workers;
+    this.workers = enabled ? Executors.newFixedThreadPool(workers, threads("mail-queue-worker")) : null;
+    this.maxAttempts = maxAttempts;
+    this.initialBackoff = initialBackoff;
+    this.maxBackoff = maxBackoff;
+    this.maxPending = maxPending;
+    this.finished = Collections.synchronizedMap(new LinkedHashMap<>() {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, QueuedMail> eldest) {
+        return size() > statusRetention;
+      }
+    });
+    this.acceptedCounter = outcomeCounter(meterRegistry, "accepted");
+    this.sentCounter = outcomeCounter(meterRegistry, "sent");
+    this.retriedCounter = outcomeCounter(meterRegistry, "retried");
+    this.failedCounter = outcomeCounter(meterRegistry, "failed");
+    Gauge.builder("mailer.queue.pending", pending, Map::size)
+        .description("Accepted messages that have not been delivered or given up on yet")
+        .register(meterRegistry);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public QueuedMail enqueue(String to, String subject, String text) {
+    return enqueue(to, subject, text, null);
+  }
+
+  // A message matching one accepted within the dedup window (by idempotency key, or by content without one)
+  // is answered with the earlier message instead of being queued again, unless that one has failed.
+  public QueuedMail enqueue(String to, String subject, String text, String idempotencyKey) {
+    String key = DedupWindow.keyOf(idempotencyKey, to, subject, text);
+    QueuedMail mail = QueuedMail.accepted(UUID.randomUUID().toString(), to, subject, text, Instant.now());
+    // Held in pending before claiming, so a concurrent duplicate sees this message as standing.
+    pending.put(mail.id(), mail);
+    Optional<QueuedMail> duplicate = dedupWindow.claim(key, mail.id(), this::stands).flatMap(this::find);
+    if (duplicate.isPresent()) {
+      pending.remove(mail.id());
+      return duplicate.get();
+    }
+    try {
+      if (pending.size() > maxPending) {
+        throw new MailQueueFullException();
+      }
+      spool.write(mail);
+      acceptedCounter.increment();
+      schedule(mail.id(), Duration.ZERO);
+      return mail;
+    } catch (RuntimeException ex) {
+      pending.remove(mail.id());
+      dedupWindow.remove(key);
+      throw ex;
+    }
+  }
+
+  public Optional<QueuedMail> find(String id) {
+    QueuedMail mail = pending.get(id);
+    return mail != null ? Optional.of(mail) : Optional.ofNullable(finished.get(id));
+  }
+
+  // Workers start only once construction has finished, so they never see a partially assigned queue.
+  @PostConstruct
+  public void start() {
+    for (int i = 0; enabled && i < workerCount; i++) {
+      workers.execute(this::work);
+    }
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void recover() {
+    if (!enabled) {
+      return;
+    }
+    Instant now = Instant.now();
+    for (QueuedMail mail : spool.loadPending()) {
+      if (pending.putIfAbsent(mail.id(), mail) == null) {
+        Instant nextAttemptAt = mail.nextAttemptAt() != null ? mail.nextAttemptAt() : now;
+        schedule(mail.id(), Duration.between(now, nextAttemptAt));
+      }
+    }
+    LOG.info("mail_queue_recovered pending={}", pending.size());
+  }
+
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    if (workers != null) {
+      timer.shutdownNow();
+      workers.shutdownNow();
+      workers.awaitTermination(10, TimeUnit.SECONDS);
+    }
+  }
+
+  private boolean stands(String id) {
+    return find(id).filter(mail -> mail.status() != QueuedMail.Status.FAILED).isPresent();
+  }
+
+  void deliver(String id) {
+    QueuedMail mail = pending.get(id);
+    if (mail == null) {
+      return;
+    }
+    int attempts = mail.attempts() + 1;
+    long startedAt = System.nanoTime();
+    try {
+      mailerService.send(mail.to(), mail.subject(), mail.text());
+    } catch (RuntimeException ex) {
+      handleFailure(mail, attempts, System.nanoTime() - startedAt, ex);
+      return;
+    }
+    deliveryLog.record(DeliveryRecord.of(
+        id, mail.to(), DeliveryRecord.Outcome.SENT, attempts, System.nanoTime() - startedAt, null));
+    finish(mail.sent(attempts));
+    spool.remove(id);
+    sentCounter.increment();
+  }
+
+  private void handleFailure(QueuedMail mail, int attempts, long durationNanos, RuntimeException ex) {
+    boolean permanent = ex instanceof MailParseException || ex instanceof MailPreparationException;
+    boolean giveUp = permanent || attempts >= maxAttempts;
+    deliveryLog.record(DeliveryRecord.of(
+        mail.id(),
+        mail.to(),
+        giveUp ? DeliveryRecord.Outcome.FAILED : DeliveryRecord.Outcome.RETRYING,
+        attempts,
+        durationNanos,
+        ex.getMessage()));
+    if (giveUp) {
+      QueuedMail failed = mail.failed(attempts, ex.getMessage());
+      try {
+        spool.moveToFailed(failed);
+      } catch (UncheckedIOException spoolEx) {
+        LOG.warn("mail_spool_write_failed id={} reason={}", mail.id(), spoolEx.getMessage());
+      }
+      finish(failed);
+      failedCounter.increment();
+      LOG.warn("mail_delivery_failed id={} attempts={} reason={}", mail.id(), attempts, ex.getMessage());
+      return;
+    }
+    Duration delay = backoff(attempts);
+    QueuedMail retrying = mail.retrying(attempts, Instant.now().plus(delay), ex.getMessage());
+    // The retry still happens if the spool cannot record it; a restart would then replay the previous attempt count.
+    try {
+      spool.write(retrying);
+    } catch (UncheckedIOException spoolEx) {
+      LOG.warn("mail_spool_write_failed id={} reason={}", mail.id(), spoolEx.getMessage());
+    }
+    pending.put(mail.id(), retrying);
+    retriedCounter.increment();
+    LOG.info("mail_delivery_retry_scheduled id={} attempts={} delayMs={}", mail.id(), attempts, delay.toMillis());
+    schedule(mail.id(), delay);
+  }
+
+  Duration backoff(int attempts) {
+    long base = initialBackoff.toMillis() << Math.min(attempts - 1, 20);
+    long capped = Math.min(base, maxBackoff.toMillis());
+    return Duration.ofMillis(capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1));
+  }
+
+  private void finish(QueuedMail mail) {
+    finished.put(mail.id(), mail);
+    pending.remove(mail.id());
+  }
+
+  private void schedule(String id, Duration delay) {
+    if (delay.isNegative() || delay.isZero()) {
+      release(id);
+      return;
+    }
+    timer.schedule(() -> release(id), delay.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  private void release(String id) {
+    QueuedMail mail = pending.get(id);
+    if (mail != null) {
+      scheduler.offer(DomainDeliveryScheduler.domainOf(mail.to()), id);
+    }
+  }
+
+  private void work() {
+    while (!Thread.currentThread().isInterrupted()) {
+      DomainDeliveryScheduler.Ticket ticket;
+      try {
+        ticket = scheduler.take();
+      } catch (InterruptedException ex) {
+        return;
+      }
+      try {
+        deliver(ticket.id());
+      } catch (RuntimeException ex) {
+        LOG.error("mail_delivery_crashed id={}", ticket.id(), ex);
+      } finally {
+        scheduler.complete(ticket);
+      }
+    }
+  }
+
+  private static ThreadFactory threads(String prefix) {
+    AtomicInteger sequence = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, prefix + "-" + sequence.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+    return Counter.builder("mailer.queue.messages")
+        .description("Queued mail messages by delivery outcome")
+        .tag("outcome", outcome)
+        .register(meterRegistry);
+  }
+}
@@ -0,0 +1,11 @@
+package com.demo.devops.mailerservice.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class MailQueueFullException extends RuntimeException {
+  public MailQueueFullException() {
+    super("mail queue is full");
+  }
+}
@@ -0,0 +1,94 @@
+package com.demo.devops.mailerservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+class MailSpool {
+  private static final Logger LOG = LoggerFactory.getLogger(MailSpool.class);
+  private static final String SUFFIX = ".json";
+
+  private final Path pendingDir;
+  private final Path failedDir;
+  private final ObjectMapper objectMapper;
+
+  MailSpool(Path root, ObjectMapper objectMapper) {
+    this.pendingDir = root.resolve("pending");
+    this.failedDir = root.resolve("failed");
+    this.objectMapper = objectMapper;
+    try {
+      Files.createDirectories(pendingDir);
+      Files.createDirectories(failedDir);
+    } catch (IOException ex) {
+      throw new UncheckedIOException("mail spool directory is not writable: " + root, ex);
+    }
+  }
+
+  void write(QueuedMail mail) {
+    writeAtomically(pendingDir, mail);
+  }
+
+  void remove(String id) {
+    try {
+      Files.deleteIfExists(pendingDir.resolve(id + SUFFIX));
+    } catch (IOException ex) {
+      LOG.warn("mail_spool_delete_failed id={} reason={}", id, ex.getMessage());
+    }
+  }
+
+  void moveToFailed(QueuedMail mail) {
+    writeAtomically(failedDir, mail);
+    remove(mail.id());
+  }
+
+  List<QueuedMail> loadPending() {
+    List<QueuedMail> mails = new ArrayList<>();
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(pendingDir, "*" + SUFFIX)) {
+      for (Path file : files) {
+        try {
+          mails.add(objectMapper.readValue(file.toFile(), QueuedMail.class));
+        } catch (IOException ex) {
+          LOG.warn("mail_spool_entry_unreadable file={} reason={}", file.getFileName(), ex.getMessage());
+          Files.move(file, failedDir.resolve(file.getFileName() + ".corrupt"), StandardCopyOption.REPLACE_EXISTING);
+        }
+      }
+    } catch (IOException ex) {
+      throw new UncheckedIOException("mail spool could not be read: " + pendingDir, ex);
+    }
+    return mails;
+  }
+
+  // The temp file is forced before the rename so a crash cannot leave a renamed but empty entry, and the
+  // directory is forced after it so the rename itself survives a crash once the caller has been answered.
+  private void writeAtomically(Path dir, QueuedMail mail) {
+    Path target = dir.resolve(mail.id() + SUFFIX);
+    Path temp = dir.resolve(mail.id() + ".tmp");
+    try {
+      ByteBuffer bytes = ByteBuffer.wrap(objectMapper.writeValueAsBytes(mail));
+      try (FileChannel channel = FileChannel.open(
+          temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+        while (bytes.hasRemaining()) {
+          channel.write(bytes);
+        }
+        channel.force(true);
+      }
+      Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      try (FileChannel directory = FileChannel.open(dir, StandardOpenOption.READ)) {
+        directory.force(true);
+      }
+    } catch (IOException ex) {
+      throw new UncheckedIOException("mail spool write failed for " + mail.id(), ex);
+    }
+  }
+}
@@ -0,0 +1,116 @@
+package com.demo.devops.mailerservice.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+final class MailTemplate {
+  private static final String SUBJECT_HEADER = "Subject:";
+  private static final String OPEN = "{{";
+  private static final String CLOSE = "}}";
+
+  private final String name;
+  private final Part subject;
+  private final Part text;
+  private final Set<String> variables;
+
+  private MailTemplate(String name, Part subject, Part text) {
+    this.name = name;
+    this.subject = subject;
+    this.text = text;
+    Set<String> variables = new LinkedHashSet<>();
+    variables.addAll(List.of(subject.variables));
+    variables.addAll(List.of(text.variables));
+    this.variables = Set.copyOf(variables);
+  }
+
+  static MailTemplate compile(String name, String source) {
+    String normalized = source.replace("\r\n", "\n");
+    int headerEnd = normalized.indexOf('\n');
+    if (!normalized.startsWith(SUBJECT_HEADER) || headerEnd < 0) {
+      throw new IllegalArgumentException("mail template " + name + " must start with a Subject: line");
+    }
+    String subject = normalized.substring(SUBJECT_HEADER.length(), headerEnd).strip();
+    String body = normalized.substring(headerEnd + 1);
+    if (body.startsWith("\n")) {
+      body = body.substring(1);
+    }
+    return new MailTemplate(name, Part.compile(name, subject), Part.compile(name, body));
+  }
+
+  String name() {
+    return name;
+  }
+
+  Set<String> variables() {
+    return variables;
+  }
+
+  String renderSubject(Map<String, String> params) {
+    return subject.render(name, params);
+  }
+
+  String renderText(Map<String, String> params) {
+    return text.render(name, params);
+  }
+
+  private static final class Part {
+    private final String[] literals;
+    private final String[] variables;
+    private final int literalLength;
+
+    private Part(String[] literals, String[] variables) {
+      this.literals = literals;
+      this.variables = variables;
+      int length = 0;
+      for (String literal : literals) {
+        length += literal.length();
+      }
+      this.literalLength = length;
+    }
+
+    static Part compile(String template, String source) {
+      List<String> literals = new ArrayList<>();
+      List<String> variables = new ArrayList<>();
+      int position = 0;
+      for (int open; (open = source.indexOf(OPEN, position)) >= 0; ) {
+        int close = source.indexOf(CLOSE, open + OPEN.length());
+        if (close < 0) {
+          throw new IllegalArgumentException("mail template " + template + " has an unclosed " + OPEN);
+        }
+        String variable = source.substring(open + OPEN.length(), close).strip();
+        if (variable.isEmpty()) {
+          throw new IllegalArgumentException("mail template " + template + " has an empty variable");
+        }
+        literals.add(source.substring(position, open));
+        variables.add(variable);
+        position = close + CLOSE.length();
+      }
+      literals.add(source.substring(position));
+      return new Part(literals.toArray(String[]::new), variables.toArray(String[]::new));
+    }
+
+    String render(String template, Map<String, String> params) {
+      if (variables.length == 0) {
+        return literals[0];
+      }
+      String[] values = new String[variables.length];
+      int length = literalLength;
+      for (int i = 0; i < variables.length; i++) {
+        String value = params.get(variables[i]);
+        if (value == null) {
+          throw new MailTemplateException("mail template " + template + " requires parameter " + variables[i]);
+        }
+        values[i] = value;
+        length += value.length();
+      }
+      StringBuilder out = new StringBuilder(length);
+      for (int i = 0; i < variables.length; i++) {
+        out.append(literals[i]).append(values[i]);
+      }
+      return out.append(literals[variables.length]).toString();
+    }
+  }
+}
@@ -0,0 +1,11 @@
+package com.demo.devops.mailerservice.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class MailTemplateException extends RuntimeException {
+  public MailTemplateException(String message) {
+    super(message);
+  }
+}
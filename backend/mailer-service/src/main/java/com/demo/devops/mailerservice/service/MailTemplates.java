@@ -0,0 +1,69 @@
+package com.demo.devops.mailerservice.service;
+
+import com.demo.devops.mailerservice.dto.MailRequest;
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+@Component
+public class MailTemplates {
+  private static final Logger LOG = LoggerFactory.getLogger(MailTemplates.class);
+
+  private final Map<String, MailTemplate> templates;
+
+  public MailTemplates(@Value("${mailer.templates.location:classpath*:mail-templates/*.txt}") String location) {
+    this.templates = Map.copyOf(load(location));
+  }
+
+  public MailRequest resolve(MailRequest request) {
+    if (request.template() == null) {
+      return request;
+    }
+    MailTemplate template = templates.get(request.template());
+    if (template == null) {
+      throw new MailTemplateException("unknown mail template " + request.template());
+    }
+    Map<String, String> params = request.params() != null ? request.params() : Map.of();
+    return new MailRequest(request.to(), template.renderSubject(params), template.renderText(params))
+        .withIdempotencyKey(request.idempotencyKey());
+  }
+
+  @PostConstruct
+  public void warmUp() {
+    long started = System.nanoTime();
+    for (MailTemplate template : templates.values()) {
+      Map<String, String> sample = new HashMap<>();
+      template.variables().forEach(variable -> sample.put(variable, variable));
+      template.renderSubject(sample);
+      template.renderText(sample);
+    }
+    LOG.info("mail_templates_warmed count={} elapsedMs={}",
+        templates.size(), (System.nanoTime() - started) / 1_000_000);
+  }
+
+  private static Map<String, MailTemplate> load(String location) {
+    Map<String, MailTemplate> loaded = new HashMap<>();
+    try {
+      for (Resource resource : new PathMatchingResourcePatternResolver().getResources(location)) {
+        String name = StringUtils.stripFilenameExtension(resource.getFilename());
+        String source = resource.getContentAsString(StandardCharsets.UTF_8);
+        if (loaded.put(name, MailTemplate.compile(name, source)) != null) {
+          throw new IllegalStateException("duplicate mail template " + name);
+        }
+      }
+    } catch (IOException ex) {
+      throw new UncheckedIOException("failed to load mail templates from " + location, ex);
+    }
+    return loaded;
+  }
+}
@@ -1,27 +1,134 @@
 package com.demo.devops.mailerservice.service;
 
+import com.demo.devops.mailerservice.dto.MailRequest;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.internet.MimeMessage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMailMessage;
 import org.springframework.stereotype.Service;
 
 @Service
 public class MailerService {
   private final JavaMailSender mailSender;
+  private final SmtpConnectionPool connectionPool;
   private final String fromAddress;
+  private final boolean pooled;
+  private final int batchSessions;
+  private final ExecutorService batchExecutor;
 
   public MailerService(JavaMailSender mailSender,
-                       @Value("${spring.mail.from:no-reply@example.com}") String fromAddress) {
+                       SmtpConnectionPool connectionPool,
+                       @Value("${spring.mail.from:no-reply@example.com}") String fromAddress,
+                       @Value("${mailer.smtp.pool.enabled:true}") boolean pooled,
+                       @Value("${mailer.batch.sessions:2}") int batchSessions) {
     this.mailSender = mailSender;
+    this.connectionPool = connectionPool;
     this.fromAddress = fromAddress;
+    this.pooled = pooled;
+    this.batchSessions = Math.max(1, batchSessions);
+    this.batchExecutor = Executors.newFixedThreadPool(this.batchSessions, batchThreads());
   }
 
   public void send(String to, String subject, String text) {
+    SimpleMailMessage message = message(to, subject, text);
+    if (!pooled) {
+      mailSender.send(message);
+      return;
+    }
+    connectionPool.send(toMimeMessage(message));
+  }
+
+  public List<MailException> sendBatch(List<MailRequest> requests) {
+    MailException[] failures = new MailException[requests.size()];
+    List<Integer> indexes = new ArrayList<>(requests.size());
+    List<MimeMessage> messages = new ArrayList<>(requests.size());
+    for (int i = 0; i < requests.size(); i++) {
+      MailRequest request = requests.get(i);
+      try {
+        messages.add(toMimeMessage(message(request.to(), request.subject(), request.text())));
+        indexes.add(i);
+      } catch (MailException ex) {
+        failures[i] = ex;
+      }
+    }
+
+    int sliceSize = Math.max(1, (messages.size() + batchSessions - 1) / batchSessions);
+    List<CompletableFuture<List<MailException>>> slices = new ArrayList<>();
+    for (int from = 0; from < messages.size(); from += sliceSize) {
+      List<MimeMessage> slice = messages.subList(from, Math.min(from + sliceSize, messages.size()));
+      slices.add(CompletableFuture.supplyAsync(() -> sendSlice(slice), batchExecutor));
+    }
+    int next = 0;
+    for (CompletableFuture<List<MailException>> slice : slices) {
+      for (MailException failure : slice.join()) {
+        failures[indexes.get(next++)] = failure;
+      }
+    }
+    return Arrays.asList(failures);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    batchExecutor.shutdownNow();
+  }
+
+  private List<MailException> sendSlice(List<MimeMessage> slice) {
+    if (pooled) {
+      return connectionPool.sendBatch(slice);
+    }
+    List<MailException> failures = new ArrayList<>(slice.size());
+    try {
+      mailSender.send(slice.toArray(MimeMessage[]::new));
+      slice.forEach(message -> failures.add(null));
+    } catch (MailSendException ex) {
+      Map<Object, Exception> failed = new IdentityHashMap<>(ex.getFailedMessages());
+      for (MimeMessage message : slice) {
+        Exception cause = failed.get(message);
+        failures.add(cause == null ? null
+            : cause instanceof MailException mailException ? mailException
+            : new MailSendException("SMTP send failed", cause));
+      }
+    } catch (MailException ex) {
+      slice.forEach(message -> failures.add(ex));
+    }
+    return failures;
+  }
+
+  private SimpleMailMessage message(String to, String subject, String text) {
     SimpleMailMessage message = new SimpleMailMessage();
     message.setFrom(fromAddress);
     message.setTo(to);
     message.setSubject(subject);
     message.setText(text);
-    mailSender.send(message);
+    return message;
+  }
+
+  private MimeMessage toMimeMessage(SimpleMailMessage message) {
+    MimeMessage mimeMessage = mailSender.createMimeMessage();
+    message.copyTo(new MimeMailMessage(mimeMessage));
+    return mimeMessage;
+  }
+
+  private static ThreadFactory batchThreads() {
+    AtomicInteger sequence = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, "mail-batch-" + sequence.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
   }
 }
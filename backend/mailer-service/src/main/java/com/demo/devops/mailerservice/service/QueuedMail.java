@@ -0,0 +1,38 @@
+package com.demo.devops.mailerservice.service;
+
+import java.time.Instant;
+
+public record QueuedMail(
+    String id,
+    String to,
+    String subject,
+    String text,
+    Status status,
+    int attempts,
+    Instant acceptedAt,
+    Instant nextAttemptAt,
+    String lastError) {
+
+  public enum Status {
+    QUEUED,
+    RETRYING,
+    SENT,
+    FAILED
+  }
+
+  static QueuedMail accepted(String id, String to, String subject, String text, Instant now) {
+    return new QueuedMail(id, to, subject, text, Status.QUEUED, 0, now, now, null);
+  }
+
+  QueuedMail retrying(int attempts, Instant nextAttemptAt, String error) {
+    return new QueuedMail(id, to, subject, text, Status.RETRYING, attempts, acceptedAt, nextAttemptAt, error);
+  }
+
+  QueuedMail sent(int attempts) {
+    return new QueuedMail(id, to, subject, text, Status.SENT, attempts, acceptedAt, null, lastError);
+  }
+
+  QueuedMail failed(int attempts, String error) {
+    return new QueuedMail(id, to, subject, text, Status.FAILED, attempts, acceptedAt, null, error);
+  }
+}
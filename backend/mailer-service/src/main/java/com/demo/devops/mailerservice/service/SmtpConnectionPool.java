@@ -0,0 +1,310 @@
+package com.demo.devops.mailerservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+@Component
+public class SmtpConnectionPool {
+  private static final Logger LOG = LoggerFactory.getLogger(SmtpConnectionPool.class);
+
+  interface TransportFactory {
+    Transport open() throws MessagingException;
+  }
+
+  private final TransportFactory transportFactory;
+  private final LongSupplier nanoTime;
+  private final Semaphore permits;
+  private final LinkedBlockingDeque<PooledTransport> idle = new LinkedBlockingDeque<>();
+  private final long idleTimeoutNanos;
+  private final long validateAfterNanos;
+  private final long borrowTimeoutNanos;
+  private final Counter createdCounter;
+  private final Counter closedCounter;
+  private final Counter reusedCounter;
+  private final Counter exhaustedCounter;
+
+  @Autowired
+  public SmtpConnectionPool(
+      JavaMailSenderImpl mailSender,
+      MeterRegistry meterRegistry,
+      @Value("${mailer.smtp.pool.max-size:4}") int maxSize,
+      @Value("${mailer.smtp.pool.idle-timeout:PT1M}") Duration idleTimeout,
+      @Value("${mailer.smtp.pool.validate-after:PT10S}") Duration validateAfter,
+      @Value("${mailer.smtp.pool.borrow-timeout:PT5S}") Duration borrowTimeout) {
+    this(
+        () -> connect(mailSender),
+        meterRegistry,
+        maxSize,
+        idleTimeout,
+        validateAfter,
+        borrowTimeout,
+        System::nanoTime);
+  }
+
+  SmtpConnectionPool(
+      TransportFactory transportFactory,
+      MeterRegistry meterRegistry,
+      int maxSize,
+      Duration idleTimeout,
+      Duration validateAfter,
+      Duration borrowTimeout,
+      LongSupplier nanoTime) {
+    this.transportFactory = transportFactory;
+    this.nanoTime = nanoTime;
+    this.permits = new Semaphore(maxSize, true);
+    this.idleTimeoutNanos = idleTimeout.toNanos();
+    this.validateAfterNanos = validateAfter.toNanos();
+    this.borrowTimeoutNanos = borrowTimeout.toNanos();
+    this.createdCounter = connectionCounter(meterRegistry, "created");
+    this.closedCounter = connectionCounter(meterRegistry, "closed");
+    this.reusedCounter = connectionCounter(meterRegistry, "reused");
+    this.exhaustedCounter = connectionCounter(meterRegistry, "exhausted");
+    Gauge.builder("mailer.smtp.pool.idle", idle, LinkedBlockingDeque::size)
+        .description("Open SMTP connections waiting in the pool")
+        .register(meterRegistry);
+    Gauge.builder("mailer.smtp.pool.active", permits, available -> maxSize - available.availablePermits())
+        .description("SMTP connections currently borrowed for a send")
+        .register(meterRegistry);
+  }
+
+  public void send(MimeMessage message) {
+    PooledTransport connection = borrow();
+    try {
+      sendAndRelease(connection, message);
+    } catch (MessagingException ex) {
+      if (!connection.reused || ex instanceof SendFailedException) {
+        throw new MailSendException("SMTP send failed", ex);
+      }
+      try {
+        sendAndRelease(open(), message);
+      } catch (MessagingException retryEx) {
+        throw new MailSendException("SMTP send failed", retryEx);
+      }
+    }
+  }
+
+  // Once no connection can be had (pool exhausted, connect failed), the rest of the batch fails with the same
+  // error instead of each message waiting out its own borrow timeout.
+  public List<MailException> sendBatch(List<MimeMessage> messages) {
+    List<MailException> failures = new ArrayList<>(messages.size());
+    PooledTransport connection = null;
+    MailException unavailable = null;
+    try {
+      for (MimeMessage message : messages) {
+        if (unavailable != null) {
+          failures.add(unavailable);
+          continue;
+        }
+        MailException failure = null;
+        try {
+          if (connection == null) {
+            connection = borrow();
+          }
+          transmit(connection, message);
+          connection.reused = true;
+        } catch (SendFailedException ex) {
+          failure = new MailSendException("SMTP rejected the message", ex);
+        } catch (MessagingException ex) {
+          boolean retry = connection.reused;
+          discard(connection);
+          connection = null;
+          failure = new MailSendException("SMTP send failed", ex);
+          if (retry) {
+            try {
+              connection = open();
+              transmit(connection, message);
+              connection.reused = true;
+              failure = null;
+            } catch (MessagingException retryEx) {
+              discard(connection);
+              connection = null;
+              failure = new MailSendException("SMTP send failed", retryEx);
+            } catch (MailException retryEx) {
+              failure = retryEx;
+              unavailable = retryEx;
+            }
+          }
+        } catch (MailException ex) {
+          failure = ex;
+          unavailable = ex;
+        }
+        failures.add(failure);
+      }
+    } finally {
+      if (connection != null) {
+        release(connection);
+      }
+    }
+    return failures;
+  }
+
+  @Scheduled(fixedDelayString = "${mailer.smtp.pool.sweep-interval:PT30S}")
+  public void evictIdle() {
+    long now = nanoTime.getAsLong();
+    idle.removeIf(connection -> {
+      if (now - connection.lastUsedNanos < idleTimeoutNanos) {
+        return false;
+      }
+      close(connection);
+      return true;
+    });
+  }
+
+  @PreDestroy
+  public void close() {
+    for (PooledTransport connection; (connection = idle.pollFirst()) != null; ) {
+      close(connection);
+    }
+  }
+
+  int idleCount() {
+    return idle.size();
+  }
+
+  private PooledTransport borrow() {
+    acquirePermit();
+    try {
+      for (PooledTransport connection; (connection = idle.pollFirst()) != null; ) {
+        long idleNanos = nanoTime.getAsLong() - connection.lastUsedNanos;
+        if (idleNanos >= idleTimeoutNanos
+            || (idleNanos >= validateAfterNanos && !connection.transport.isConnected())) {
+          close(connection);
+          continue;
+        }
+        connection.reused = true;
+        reusedCounter.increment();
+        return connection;
+      }
+      return openUnderPermit();
+    } catch (RuntimeException ex) {
+      permits.release();
+      throw ex;
+    }
+  }
+
+  private PooledTransport open() {
+    acquirePermit();
+    try {
+      return openUnderPermit();
+    } catch (RuntimeException ex) {
+      permits.release();
+      throw ex;
+    }
+  }
+
+  private void acquirePermit() {
+    try {
+      if (!permits.tryAcquire(borrowTimeoutNanos, TimeUnit.NANOSECONDS)) {
+        exhaustedCounter.increment();
+        throw new MailSendException("SMTP connection pool exhausted");
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new MailSendException("Interrupted while waiting for an SMTP connection");
+    }
+  }
+
+  private PooledTransport openUnderPermit() {
+    try {
+      PooledTransport connection = new PooledTransport(transportFactory.open());
+      createdCounter.increment();
+      return connection;
+    } catch (MessagingException ex) {
+      throw new MailSendException("SMTP connect failed", ex);
+    }
+  }
+
+  private void sendAndRelease(PooledTransport connection, MimeMessage message) throws MessagingException {
+    try {
+      transmit(connection, message);
+    } catch (SendFailedException ex) {
+      // The server refused the recipients but the session itself is still usable.
+      release(connection);
+      throw ex;
+    } catch (MessagingException | RuntimeException ex) {
+      discard(connection);
+      throw ex;
+    }
+    release(connection);
+  }
+
+  private static void transmit(PooledTransport connection, MimeMessage message) throws MessagingException {
+    if (message.getSentDate() == null) {
+      message.setSentDate(new Date());
+    }
+    message.saveChanges();
+    connection.transport.sendMessage(message, message.getAllRecipients());
+  }
+
+  private void release(PooledTransport connection) {
+    connection.lastUsedNanos = nanoTime.getAsLong();
+    idle.offerFirst(connection);
+    permits.release();
+  }
+
+  private void discard(PooledTransport connection) {
+    close(connection);
+    permits.release();
+  }
+
+  private void close(PooledTransport connection) {
+    closedCounter.increment();
+    try {
+      connection.transport.close();
+    } catch (MessagingException ex) {
+      LOG.debug("smtp_connection_close_failed reason={}", ex.getMessage());
+    }
+  }
+
+  private static Transport connect(JavaMailSenderImpl mailSender) throws MessagingException {
+    Transport transport = mailSender.getSession().getTransport(
+        mailSender.getProtocol() != null ? mailSender.getProtocol() : "smtp");
+    transport.connect(
+        mailSender.getHost(),
+        mailSender.getPort(),
+        StringUtils.hasLength(mailSender.getUsername()) ? mailSender.getUsername() : null,
+        StringUtils.hasLength(mailSender.getPassword()) ? mailSender.getPassword() : null);
+    return transport;
+  }
+
+  private static Counter connectionCounter(MeterRegistry meterRegistry, String event) {
+    return Counter.builder("mailer.smtp.pool.connections")
+        .description("SMTP connection pool lifecycle events")
+        .tag("event", event)
+        .register(meterRegistry);
+  }
+
+  private final class PooledTransport {
+    private final Transport transport;
+    private long lastUsedNanos = nanoTime.getAsLong();
+    private boolean reused;
+
+    private PooledTransport(Transport transport) {
+      this.transport = transport;
+    }
+  }
+}
@@ -0,0 +1,217 @@
+package com.demo.devops.mailerservice.sink;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Minimal SMTP server that accepts and discards mail, for tests and local load runs. Not for production use.
+public class SmtpSink implements AutoCloseable {
+  private static final Logger LOG = LoggerFactory.getLogger(SmtpSink.class);
+
+  public record Received(String from, List<String> recipients, String data) {}
+
+  public record Stats(long connections, long messages, long injectedFailures) {}
+
+  private final int requestedPort;
+  private final int retained;
+  private final LongConsumer transactionNanos;
+  private final ConcurrentLinkedDeque<Received> received = new ConcurrentLinkedDeque<>();
+  private final AtomicInteger receivedCount = new AtomicInteger();
+  private final AtomicLong connections = new AtomicLong();
+  private final AtomicLong messages = new AtomicLong();
+  private final AtomicLong injectedFailures = new AtomicLong();
+  private volatile Duration responseDelay = Duration.ZERO;
+  private volatile double failureRate;
+  private ServerSocket serverSocket;
+  private ExecutorService sessions;
+
+  public SmtpSink(int port, int retained, LongConsumer transactionNanos) {
+    this.requestedPort = port;
+    this.retained = retained;
+    this.transactionNanos = transactionNanos;
+  }
+
+  public synchronized SmtpSink start() {
+    try {
+      serverSocket = new ServerSocket(requestedPort, 256, InetAddress.getLoopbackAddress());
+    } catch (IOException ex) {
+      throw new UncheckedIOException("failed to bind SMTP sink on port " + requestedPort, ex);
+    }
+    AtomicInteger sequence = new AtomicInteger();
+    sessions = Executors.newCachedThreadPool(runnable -> {
+      Thread thread = new Thread(runnable, "smtp-sink-" + sequence.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    sessions.execute(this::acceptLoop);
+    LOG.info("smtp_sink_started port={}", port());
+    return this;
+  }
+
+  public int port() {
+    return serverSocket.getLocalPort();
+  }
+
+  public void setResponseDelay(Duration responseDelay) {
+    this.responseDelay = responseDelay;
+  }
+
+  public void setFailureRate(double failureRate) {
+    this.failureRate = failureRate;
+  }
+
+  public List<Received> received() {
+    return new ArrayList<>(received);
+  }
+
+  public Stats stats() {
+    return new Stats(connections.get(), messages.get(), injectedFailures.get());
+  }
+
+  @Override
+  public synchronized void close() {
+    if (serverSocket == null) {
+      return;
+    }
+    try {
+      serverSocket.close();
+    } catch (IOException ex) {
+      LOG.debug("smtp_sink_close_failed reason={}", ex.getMessage());
+    }
+    sessions.shutdownNow();
+    Stats stats = stats();
+    LOG.info("smtp_sink_stopped connections={} messages={} injectedFailures={}",
+        stats.connections(), stats.messages(), stats.injectedFailures());
+    serverSocket = null;
+  }
+
+  private void acceptLoop() {
+    while (!serverSocket.isClosed()) {
+      try {
+        Socket socket = serverSocket.accept();
+        connections.incrementAndGet();
+        sessions.execute(() -> session(socket));
+      } catch (SocketException ex) {
+        return;
+      } catch (IOException ex) {
+        LOG.warn("smtp_sink_accept_failed reason={}", ex.getMessage());
+      }
+    }
+  }
+
+  private void session(Socket socket) {
+    try (socket;
+         BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+         OutputStream out = socket.getOutputStream()) {
+      reply(out, "220 smtp-sink ready");
+      String from = null;
+      List<String> recipients = new ArrayList<>();
+      long startedAt = 0;
+      for (String line; (line = in.readLine()) != null; ) {
+        String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase(Locale.ROOT) : line.toUpperCase(Locale.ROOT);
+        switch (command) {
+          case "EHLO" -> reply(out, "250-smtp-sink\r\n250-8BITMIME\r\n250 SIZE 10485760");
+          case "HELO" -> reply(out, "250 smtp-sink");
+          case "MAIL" -> {
+            startedAt = System.nanoTime();
+            from = argument(line);
+            recipients.clear();
+            reply(out, "250 2.1.0 OK");
+          }
+          case "RCPT" -> {
+            recipients.add(argument(line));
+            reply(out, "250 2.1.5 OK");
+          }
+          case "DATA" -> {
+            reply(out, "354 End data with <CR><LF>.<CR><LF>");
+            String data = readData(in);
+            pause();
+            if (failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate) {
+              injectedFailures.incrementAndGet();
+              reply(out, "451 4.3.0 Injected failure");
+            } else {
+              record(new Received(from, List.copyOf(recipients), data));
+              transactionNanos.accept(System.nanoTime() - startedAt);
+              reply(out, "250 2.0.0 OK");
+            }
+            from = null;
+            recipients.clear();
+          }
+          case "RSET" -> {
+            from = null;
+            recipients.clear();
+            reply(out, "250 2.0.0 OK");
+          }
+          case "NOOP" -> reply(out, "250 2.0.0 OK");
+          case "QUIT" -> {
+            reply(out, "221 2.0.0 Bye");
+            return;
+          }
+          default -> reply(out, "502 5.5.2 Command not recognized");
+        }
+      }
+    } catch (IOException ex) {
+      LOG.debug("smtp_sink_session_closed reason={}", ex.getMessage());
+    }
+  }
+
+  private void record(Received message) {
+    messages.incrementAndGet();
+    if (retained > 0) {
+      received.addLast(message);
+      if (receivedCount.incrementAndGet() > retained && received.pollFirst() != null) {
+        receivedCount.decrementAndGet();
+      }
+    }
+  }
+
+  private void pause() {
+    Duration delay = responseDelay;
+    if (!delay.isZero()) {
+      try {
+        Thread.sleep(delay.toMillis());
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private static String readData(BufferedReader in) throws IOException {
+    StringBuilder data = new StringBuilder();
+    for (String line; (line = in.readLine()) != null && !line.equals("."); ) {
+      data.append(line.startsWith(".") ? line.substring(1) : line).append("\r\n");
+    }
+    return data.toString();
+  }
+
+  private static String argument(String line) {
+    int open = line.indexOf('<');
+    int close = line.indexOf('>', open + 1);
+    return open >= 0 && close > open ? line.substring(open + 1, close) : "";
+  }
+
+  private static void reply(OutputStream out, String response) throws IOException {
+    out.write((response + "\r\n").getBytes(StandardCharsets.US_ASCII));
+    out.flush();
+  }
+}
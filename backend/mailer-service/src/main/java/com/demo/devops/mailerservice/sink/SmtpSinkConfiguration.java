@@ -0,0 +1,32 @@
+package com.demo.devops.mailerservice.sink;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+@Configuration
+@Profile("smtp-sink")
+public class SmtpSinkConfiguration {
+
+  @Bean(destroyMethod = "close")
+  public SmtpSink smtpSink(
+      MeterRegistry meterRegistry,
+      @Value("${mailer.sink.port:2525}") int port,
+      @Value("${mailer.sink.retained:0}") int retained,
+      @Value("${mailer.sink.response-delay:PT0S}") Duration responseDelay,
+      @Value("${mailer.sink.failure-rate:0}") double failureRate) {
+    Timer transactions = Timer.builder("mailer.sink.transactions")
+        .description("Time the local SMTP sink spent on each accepted message, from MAIL FROM to the final reply")
+        .publishPercentiles(0.5, 0.9, 0.99)
+        .register(meterRegistry);
+    SmtpSink sink = new SmtpSink(port, retained, nanos -> transactions.record(nanos, TimeUnit.NANOSECONDS));
+    sink.setResponseDelay(responseDelay);
+    sink.setFailureRate(failureRate);
+    return sink.start();
+  }
+}
@@ -1,28 +1,66 @@
 package com.demo.devops.mailerservice.web;
 
+import com.demo.devops.mailerservice.dto.DeliveryResponse;
+import com.demo.devops.mailerservice.dto.MailBatchRequest;
+import com.demo.devops.mailerservice.dto.MailBatchResponse;
 import com.demo.devops.mailerservice.dto.MailRequest;
+import com.demo.devops.mailerservice.dto.MailStatusResponse;
 import com.demo.devops.mailerservice.dto.StatusResponse;
+import com.demo.devops.mailerservice.service.DedupWindow;
+import com.demo.devops.mailerservice.service.DeliveryLog;
+import com.demo.devops.mailerservice.service.DeliveryRecord;
+import com.demo.devops.mailerservice.service.MailQueue;
+import com.demo.devops.mailerservice.service.MailQueueFullException;
+import com.demo.devops.mailerservice.service.MailTemplateException;
+import com.demo.devops.mailerservice.service.MailTemplates;
 import com.demo.devops.mailerservice.service.MailerService;
+import com.demo.devops.mailerservice.service.QueuedMail;
 import jakarta.validation.Valid;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mail.MailException;
 import org.springframework.security.web.csrf.CsrfToken;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
 @RequestMapping
 public class MailerController {
+  private static final String SENDING = "sending";
+  private static final String SENT = "sent";
+  private static final char STATE_SEPARATOR = ':';
+
   private final MailerService mailerService;
+  private final MailQueue mailQueue;
+  private final MailTemplates mailTemplates;
+  private final DedupWindow dedupWindow;
+  private final DeliveryLog deliveryLog;
   private final String apiKey;
 
-  public MailerController(MailerService mailerService, @Value("${mailer.api-key}") String apiKey) {
+  public MailerController(
+      MailerService mailerService,
+      MailQueue mailQueue,
+      MailTemplates mailTemplates,
+      DedupWindow dedupWindow,
+      DeliveryLog deliveryLog,
+      @Value("${mailer.api-key}") String apiKey) {
     this.mailerService = mailerService;
+    this.mailQueue = mailQueue;
+    this.mailTemplates = mailTemplates;
+    this.dedupWindow = dedupWindow;
+    this.deliveryLog = deliveryLog;
     this.apiKey = apiKey;
   }
 
@@ -37,20 +75,186 @@ public class MailerController {
   }
 
   @PostMapping("/send")
-  @ResponseStatus(HttpStatus.OK)
-  public StatusResponse send(
+  public ResponseEntity<?> send(
+      @RequestHeader(name = "x-mailer-key", required = false) String providedKey,
+      @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
+      @Valid @RequestBody MailRequest body) {
+    requireApiKey(providedKey);
+    MailRequest request = mailTemplates.resolve(body);
+    String requestKey = StringUtils.hasText(idempotencyKey) ? idempotencyKey : request.idempotencyKey();
+
+    if (mailQueue.isEnabled()) {
+      return ResponseEntity.accepted().body(MailStatusResponse.of(
+          mailQueue.enqueue(request.to(), request.subject(), request.text(), requestKey)));
+    }
+    String key = DedupWindow.keyOf(requestKey, request.to(), request.subject(), request.text());
+    String id = deliveryId(requestKey);
+    String held = claim(key, id);
+    if (held != null) {
+      return SENDING.equals(stateOf(held))
+          ? ResponseEntity.accepted().body(MailStatusResponse.direct(idOf(held), SENDING))
+          : ResponseEntity.ok(MailStatusResponse.direct(idOf(held), SENT));
+    }
+    long startedAt = System.nanoTime();
+    try {
+      mailerService.send(request.to(), request.subject(), request.text());
+    } catch (RuntimeException ex) {
+      dedupWindow.remove(key);
+      deliveryLog.record(DeliveryRecord.of(
+          id, request.to(), DeliveryRecord.Outcome.FAILED, 1, System.nanoTime() - startedAt, ex.getMessage()));
+      throw ex;
+    }
+    dedupWindow.replace(key, held(SENDING, id), held(SENT, id));
+    deliveryLog.record(DeliveryRecord.of(
+        id, request.to(), DeliveryRecord.Outcome.SENT, 1, System.nanoTime() - startedAt, null));
+    return ResponseEntity.ok(MailStatusResponse.direct(id, SENT));
+  }
+
+  @PostMapping("/send/batch")
+  public ResponseEntity<MailBatchResponse> sendBatch(
+      @RequestHeader(name = "x-mailer-key", required = false) String providedKey,
+      @Valid @RequestBody MailBatchRequest request) {
+    requireApiKey(providedKey);
+
+    List<MailRequest> requested = request.messages();
+    MailBatchResponse.Result[] results = new MailBatchResponse.Result[requested.size()];
+    List<Integer> indexes = new ArrayList<>(requested.size());
+    List<MailRequest> messages = new ArrayList<>(requested.size());
+    for (int i = 0; i < requested.size(); i++) {
+      try {
+        messages.add(mailTemplates.resolve(requested.get(i)));
+        indexes.add(i);
+      } catch (MailTemplateException ex) {
+        results[i] = MailBatchResponse.Result.failed(i, ex.getMessage());
+      }
+    }
+
+    if (mailQueue.isEnabled()) {
+      for (int i = 0; i < messages.size(); i++) {
+        MailRequest message = messages.get(i);
+        int index = indexes.get(i);
+        try {
+          QueuedMail mail =
+              mailQueue.enqueue(message.to(), message.subject(), message.text(), message.idempotencyKey());
+          results[index] = MailBatchResponse.Result.of(index, MailStatusResponse.of(mail));
+        } catch (MailQueueFullException ex) {
+          results[index] = MailBatchResponse.Result.failed(index, ex.getMessage());
+        }
+      }
+      return ResponseEntity.accepted().body(MailBatchResponse.of(List.of(results)));
+    }
+    List<Integer> sendIndexes = new ArrayList<>(messages.size());
+    List<MailRequest> toSend = new ArrayList<>(messages.size());
+    List<String> keys = new ArrayList<>(messages.size());
+    List<String> ids = new ArrayList<>(messages.size());
+    for (int i = 0; i < messages.size(); i++) {
+      MailRequest message = messages.get(i);
+      String key = DedupWindow.keyOf(message.idempotencyKey(), message.to(), message.subject(), message.text());
+      String id = deliveryId(message.idempotencyKey());
+      String held = claim(key, id);
+      if (held == null) {
+        sendIndexes.add(indexes.get(i));
+        toSend.add(message);
+        keys.add(key);
+        ids.add(id);
+      } else if (SENDING.equals(stateOf(held))) {
+        results[indexes.get(i)] = MailBatchResponse.Result.sending(indexes.get(i), idOf(held));
+      } else {
+        results[indexes.get(i)] = MailBatchResponse.Result.sent(indexes.get(i), idOf(held));
+      }
+    }
+    long startedAt = System.nanoTime();
+    List<MailException> failures = toSend.isEmpty() ? List.of() : mailerService.sendBatch(toSend);
+    long elapsed = System.nanoTime() - startedAt;
+    for (int i = 0; i < failures.size(); i++) {
+      MailException failure = failures.get(i);
+      int index = sendIndexes.get(i);
+      String id = ids.get(i);
+      if (failure != null) {
+        dedupWindow.remove(keys.get(i));
+      } else {
+        dedupWindow.replace(keys.get(i), held(SENDING, id), held(SENT, id));
+      }
+      deliveryLog.record(DeliveryRecord.ofBatch(
+          id,
+          toSend.get(i).to(),
+          failure == null ? DeliveryRecord.Outcome.SENT : DeliveryRecord.Outcome.FAILED,
+          elapsed,
+          toSend.size(),
+          failure == null ? null : failure.getMessage()));
+      results[index] = failure == null
+          ? MailBatchResponse.Result.sent(index, id)
+          : MailBatchResponse.Result.failed(index, id, failure.getMessage());
+    }
+    return ResponseEntity.ok(MailBatchResponse.of(List.of(results)));
+  }
+
+  @GetMapping("/messages/{id}")
+  public MailStatusResponse status(
+      @RequestHeader(name = "x-mailer-key", required = false) String providedKey,
+      @PathVariable String id) {
+    requireApiKey(providedKey);
+    return mailQueue.find(id).map(MailStatusResponse::of).orElseThrow(MessageNotFoundException::new);
+  }
+
+  @GetMapping("/messages/{id}/deliveries")
+  public List<DeliveryResponse> deliveries(
       @RequestHeader(name = "x-mailer-key", required = false) String providedKey,
-      @Valid @RequestBody MailRequest request) {
+      @PathVariable String id) {
+    requireApiKey(providedKey);
+    List<DeliveryRecord> records = deliveryLog.forMessage(id);
+    if (records.isEmpty()) {
+      throw new MessageNotFoundException();
+    }
+    return records.stream().map(DeliveryResponse::of).toList();
+  }
+
+  @GetMapping("/deliveries")
+  public List<DeliveryResponse> recipientHistory(
+      @RequestHeader(name = "x-mailer-key", required = false) String providedKey,
+      @RequestParam String recipient,
+      @RequestParam(defaultValue = "50") int limit) {
+    requireApiKey(providedKey);
+    return deliveryLog.forRecipient(recipient, Math.max(1, Math.min(limit, 500))).stream()
+        .map(DeliveryResponse::of)
+        .toList();
+  }
+
+  // Without the queue the window holds "state:id" for each key. A repeat within the window is answered with the
+  // first message's id: "sending" while that send is still in flight, so the caller keeps it until the outcome
+  // is known, and "sent" once it has gone out. Returns null when this call claimed the key.
+  private String claim(String key, String id) {
+    return dedupWindow.claim(key, held(SENDING, id), held -> true).orElse(null);
+  }
+
+  // The caller's idempotency key names the delivery when there is one, so its records can be looked up by it.
+  private static String deliveryId(String idempotencyKey) {
+    return StringUtils.hasText(idempotencyKey) ? idempotencyKey.strip() : UUID.randomUUID().toString();
+  }
+
+  private static String held(String state, String id) {
+    return state + STATE_SEPARATOR + id;
+  }
+
+  private static String stateOf(String held) {
+    return held.substring(0, held.indexOf(STATE_SEPARATOR));
+  }
+
+  private static String idOf(String held) {
+    return held.substring(held.indexOf(STATE_SEPARATOR) + 1);
+  }
+
+  private void requireApiKey(String providedKey) {
     if (providedKey == null || !providedKey.equals(apiKey)) {
       throw new InvalidKeyException();
     }
-
-    mailerService.send(request.to(), request.subject(), request.text());
-    return new StatusResponse("ok");
   }
 
   @ResponseStatus(HttpStatus.UNAUTHORIZED)
   private static class InvalidKeyException extends RuntimeException {}
 
+  @ResponseStatus(HttpStatus.NOT_FOUND)
+  private static class MessageNotFoundException extends RuntimeException {}
+
   public record CsrfTokenResponse(String token) {}
 }
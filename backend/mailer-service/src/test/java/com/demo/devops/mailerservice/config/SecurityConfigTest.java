@@ -6,6 +6,10 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.demo.devops.mailerservice.service.DedupWindow;
+import com.demo.devops.mailerservice.service.DeliveryLog;
+import com.demo.devops.mailerservice.service.MailQueue;
+import com.demo.devops.mailerservice.service.MailTemplates;
 import com.demo.devops.mailerservice.service.MailerService;
 import com.demo.devops.mailerservice.web.MailerController;
 import org.junit.jupiter.api.Test;
@@ -18,7 +22,7 @@ import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
 @WebMvcTest(controllers = MailerController.class, properties = "mailer.api-key=test-mailer-access-value")
-@Import(SecurityConfig.class)
+@Import({SecurityConfig.class, MailTemplates.class})
 @AutoConfigureMockMvc
 class SecurityConfigTest {
 
@@ -28,6 +32,15 @@ class SecurityConfigTest {
   @MockitoBean
   private MailerService mailerService;
 
+  @MockitoBean
+  private MailQueue mailQueue;
+
+  @MockitoBean
+  private DedupWindow dedupWindow;
+
+  @MockitoBean
+  private DeliveryLog deliveryLog;
+
   @Test
   void sendRequiresCsrfWhenApiKeyHeaderIsMissing() throws Exception {
     mockMvc.perform(post("/send")
@@ -74,6 +87,60 @@ class SecurityConfigTest {
         .andExpect(status().isOk());
   }
 
+  @Test
+  void sendBatchRequiresCsrfAndValidatesTheBatch() throws Exception {
+    mockMvc.perform(post("/send/batch")
+            .header("x-mailer-key", "test-mailer-access-value")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("""
+                {"messages":[{"to":"user@example.com","subject":"hello","text":"world"}]}
+                """))
+        .andExpect(status().isForbidden());
+
+    mockMvc.perform(post("/send/batch")
+            .with(csrf())
+            .header("x-mailer-key", "test-mailer-access-value")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("""
+                {"messages":[{"to":"not-an-address","subject":"hello","text":"world"}]}
+                """))
+        .andExpect(status().isBadRequest());
+
+    then(mailerService).shouldHaveNoInteractions();
+  }
+
+  @Test
+  void sendRejectsRequestsWithNeitherContentNorTemplate() throws Exception {
+    mockMvc.perform(post("/send")
+            .with(csrf())
+            .header("x-mailer-key", "test-mailer-access-value")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("""
+                {"to":"user@example.com","subject":"hello"}
+                """))
+        .andExpect(status().isBadRequest());
+
+    then(mailerService).shouldHaveNoInteractions();
+  }
+
+  @Test
+  void sendRendersNamedTemplates() throws Exception {
+    mockMvc.perform(post("/send")
+            .with(csrf())
+            .header("x-mailer-key", "test-mailer-access-value")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("""
+                {"to":"user@example.com","template":"welcome",
+                 "params":{"name":"Ada","email":"user@example.com","loginUrl":"https://example.com"}}
+                """))
+        .andExpect(status().isOk());
+
+    then(mailerService).should().send(
+        "user@example.com",
+        "Welcome, Ada",
+        "Hi Ada,\n\nYour account user@example.com is ready. Sign in at https://example.com to get started.\n");
+  }
+
   @Test
   void csrfEndpointProvidesToken() throws Exception {
     mockMvc.perform(get("/csrf"))
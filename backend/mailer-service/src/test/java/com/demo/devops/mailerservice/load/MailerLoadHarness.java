@@ -0,0 +1,221 @@
+package com.demo.devops.mailerservice.load;
+
+import com.demo.devops.mailerservice.MailerServiceApplication;
+import com.demo.devops.mailerservice.sink.SmtpSink;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+// Drives POST /send at a fixed rate, spread over harness.domains recipient domains, and reports throughput
+// and latency percentiles after a harness.warmup phase.
+// Run with: java -cp <test classpath> [-Dharness.*=...] com.demo.devops.mailerservice.load.MailerLoadHarness
+// Without -Dharness.url it boots the service in-process on the smtp-sink profile, so any mailer.* setting
+// can be tuned offline with -D flags, e.g. -Dmailer.smtp.pool.max-size=8 -Dmailer.sink.response-delay=PT0.02S.
+public final class MailerLoadHarness {
+  private static final Pattern CSRF_TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+
+  private final HttpClient client;
+  private final URI sendUri;
+  private final String apiKey;
+  private final String csrfToken;
+  private final long[] latencies;
+  private final AtomicInteger recorded = new AtomicInteger();
+  private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+  private final LongAdder errors = new LongAdder();
+  private final LongAdder skipped = new LongAdder();
+
+  private MailerLoadHarness(HttpClient client, String baseUrl, String apiKey, int capacity) throws Exception {
+    this.client = client;
+    this.sendUri = URI.create(baseUrl + "/send");
+    this.apiKey = apiKey;
+    this.csrfToken = fetchCsrfToken(client, URI.create(baseUrl + "/csrf"));
+    this.latencies = new long[capacity];
+  }
+
+  public static void main(String[] args) throws Exception {
+    int rate = Integer.getInteger("harness.rate", 200);
+    Duration duration = Duration.parse(System.getProperty("harness.duration", "PT30S"));
+    int concurrency = Integer.getInteger("harness.concurrency", 64);
+    int domains = Integer.getInteger("harness.domains", 10);
+    Duration warmup = Duration.parse(System.getProperty("harness.warmup", "PT5S"));
+    String baseUrl = System.getProperty("harness.url");
+    String apiKey = System.getProperty("harness.api-key", "load-harness-key");
+
+    ConfigurableApplicationContext context = null;
+    if (baseUrl == null) {
+      context = startEmbedded(apiKey);
+      baseUrl = "http://127.0.0.1:" + context.getEnvironment().getProperty("local.server.port");
+    }
+    ExecutorService httpThreads = Executors.newFixedThreadPool(concurrency);
+    try {
+      HttpClient client = HttpClient.newBuilder()
+          .executor(httpThreads)
+          .connectTimeout(Duration.ofSeconds(5))
+          .build();
+      if (!warmup.isZero()) {
+        new MailerLoadHarness(client, baseUrl, apiKey, capacity(rate, warmup)).run(rate, warmup, concurrency, domains);
+      }
+      long deliveredBefore = context != null ? context.getBean(SmtpSink.class).stats().messages() : 0;
+      MailerLoadHarness harness = new MailerLoadHarness(client, baseUrl, apiKey, capacity(rate, duration));
+      long elapsedNanos = harness.run(rate, duration, concurrency, domains);
+      harness.report(rate, elapsedNanos);
+      if (context != null) {
+        reportDelivery(context.getBean(SmtpSink.class), deliveredBefore + harness.accepted());
+      }
+    } finally {
+      httpThreads.shutdownNow();
+      if (context != null) {
+        context.close();
+      }
+    }
+  }
+
+  private static ConfigurableApplicationContext startEmbedded(String apiKey) {
+    SpringApplication application = new SpringApplication(MailerServiceApplication.class);
+    application.setAdditionalProfiles("smtp-sink");
+    ConfigurableApplicationContext context = application.run(
+        "--server.port=0",
+        "--mailer.api-key=" + apiKey,
+        "--mailer.sink.port=0",
+        "--mailer.queue.enabled=true",
+        "--mailer.queue.spool-dir=" + System.getProperty("java.io.tmpdir") + "/mailer-load-spool-" + System.nanoTime(),
+        "--mailer.delivery-log.dir=" + System.getProperty("java.io.tmpdir") + "/mailer-load-deliveries-" + System.nanoTime());
+    // The sink binds an ephemeral port, so point the sender at wherever it landed.
+    int sinkPort = context.getBean(SmtpSink.class).port();
+    context.getBean(JavaMailSenderImpl.class).setPort(sinkPort);
+    return context;
+  }
+
+  private static int capacity(int rate, Duration duration) {
+    return Math.toIntExact((long) rate * Math.max(1, duration.toSeconds()) + rate);
+  }
+
+  private long run(int rate, Duration duration, int concurrency, int domains) throws InterruptedException {
+    int domainCount = Math.max(1, domains);
+    String text = "x".repeat(512);
+    Semaphore inFlight = new Semaphore(concurrency);
+    ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor();
+    long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+    long total = rate * duration.toNanos() / TimeUnit.SECONDS.toNanos(1);
+    AtomicLong issued = new AtomicLong();
+    long started = System.nanoTime();
+    ticker.scheduleAtFixedRate(() -> {
+      long sequence = issued.incrementAndGet();
+      if (sequence > total) {
+        return;
+      }
+      // Open-loop: a tick that finds every slot busy is counted, not queued, so latency is not hidden.
+      if (!inFlight.tryAcquire()) {
+        skipped.increment();
+        return;
+      }
+      long sentAt = System.nanoTime();
+      // The sequence keeps every subject distinct so the mailer's dedup window does not coalesce the load.
+      String body = "{\"to\":\"load@d" + (sequence % domainCount) + ".sink.test\",\"subject\":\"load test "
+          + sequence + "\",\"text\":\"" + text + "\"}";
+      client.sendAsync(request(body), HttpResponse.BodyHandlers.discarding())
+          .whenComplete((response, failure) -> {
+            record(System.nanoTime() - sentAt, response, failure);
+            inFlight.release();
+          });
+    }, 0, intervalNanos, TimeUnit.NANOSECONDS);
+    while (issued.get() < total) {
+      Thread.sleep(50);
+    }
+    ticker.shutdownNow();
+    inFlight.acquire(concurrency);
+    inFlight.release(concurrency);
+    return System.nanoTime() - started;
+  }
+
+  private HttpRequest request(String body) {
+    return HttpRequest.newBuilder(sendUri)
+        .timeout(Duration.ofSeconds(30))
+        .header("Content-Type", "application/json")
+        .header("x-mailer-key", apiKey)
+        .header("X-XSRF-TOKEN", csrfToken)
+        .header("Cookie", "XSRF-TOKEN=" + csrfToken)
+        .POST(HttpRequest.BodyPublishers.ofString(body))
+        .build();
+  }
+
+  private void record(long nanos, HttpResponse<Void> response, Throwable failure) {
+    int slot = recorded.getAndIncrement();
+    if (slot < latencies.length) {
+      latencies[slot] = nanos;
+    }
+    if (failure != null) {
+      errors.increment();
+    } else {
+      statuses.computeIfAbsent(response.statusCode(), code -> new LongAdder()).increment();
+    }
+  }
+
+  private long accepted() {
+    LongAdder accepted = statuses.get(202);
+    return accepted != null ? accepted.sum() : 0;
+  }
+
+  private void report(int rate, long elapsedNanos) {
+    long[] sorted = Arrays.copyOf(latencies, Math.min(recorded.get(), latencies.length));
+    Arrays.sort(sorted);
+    double seconds = elapsedNanos / 1e9;
+    Map<Integer, Long> byStatus = new TreeMap<>();
+    statuses.forEach((status, count) -> byStatus.put(status, count.sum()));
+    System.out.printf("target rate      %d req/s%n", rate);
+    System.out.printf("completed        %d in %.1f s (%.1f req/s)%n", sorted.length, seconds, sorted.length / seconds);
+    System.out.printf("statuses         %s, errors %d, skipped %d%n", byStatus, errors.sum(), skipped.sum());
+    System.out.printf("latency ms       p50 %.2f  p90 %.2f  p99 %.2f  p99.9 %.2f  max %.2f%n",
+        percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+        percentile(sorted, 0.999), percentile(sorted, 1.0));
+  }
+
+  private static void reportDelivery(SmtpSink sink, long delivered) throws InterruptedException {
+    long started = System.nanoTime();
+    long deadline = started + TimeUnit.SECONDS.toNanos(Long.getLong("harness.drain-seconds", 60));
+    while (sink.stats().messages() < delivered && System.nanoTime() < deadline) {
+      Thread.sleep(20);
+    }
+    SmtpSink.Stats stats = sink.stats();
+    System.out.printf("sink             %d delivered over %d SMTP connections, %d injected failures%n",
+        stats.messages(), stats.connections(), stats.injectedFailures());
+    System.out.printf("queue drain      %.1f s after the last request%n", (System.nanoTime() - started) / 1e9);
+  }
+
+  private static double percentile(long[] sorted, double quantile) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    int index = (int) Math.ceil(quantile * sorted.length) - 1;
+    return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+  }
+
+  private static String fetchCsrfToken(HttpClient client, URI csrfUri) throws Exception {
+    HttpResponse<String> response = client.send(
+        HttpRequest.newBuilder(csrfUri).GET().build(), HttpResponse.BodyHandlers.ofString());
+    Matcher matcher = CSRF_TOKEN.matcher(response.body());
+    if (response.statusCode() != 200 || !matcher.find()) {
+      throw new IllegalStateException("could not fetch a CSRF token from " + csrfUri + ": " + response.statusCode());
+    }
+    return matcher.group(1);
+  }
+}
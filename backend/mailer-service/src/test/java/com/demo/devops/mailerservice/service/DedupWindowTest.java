@@ -0,0 +1,105 @@
+package com.demo.devops.mailerservice.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class DedupWindowTest {
+  private final AtomicLong now = new AtomicLong();
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final DedupWindow window =
+      new DedupWindow(meterRegistry, true, Duration.ofSeconds(10), 10, now::get);
+
+  @Test
+  void repeatsWithinTheWindowReturnTheFirstValue() {
+    assertEquals(Optional.empty(), window.claim("key", "first", held -> true));
+    now.addAndGet(Duration.ofSeconds(5).toNanos());
+
+    assertEquals(Optional.of("first"), window.claim("key", "second", held -> true));
+    assertEquals(1, window.size());
+    assertEquals(1.0, meterRegistry.get("mailer.dedup.hits").counter().count());
+  }
+
+  @Test
+  void keysExpireWhenTheirBucketLeavesTheWindow() {
+    window.claim("key", "first", held -> true);
+    now.addAndGet(Duration.ofSeconds(10).toNanos());
+
+    assertEquals(Optional.empty(), window.claim("key", "second", held -> true));
+    now.addAndGet(Duration.ofSeconds(9).toNanos());
+    assertEquals(Optional.of("second"), window.claim("key", "third", held -> true));
+  }
+
+  @Test
+  void aHeldValueThatNoLongerStandsIsReplaced() {
+    window.claim("key", "failed-id", held -> true);
+
+    assertEquals(Optional.empty(), window.claim("key", "retry-id", held -> !held.equals("failed-id")));
+    assertEquals(Optional.of("retry-id"), window.claim("key", "other", held -> true));
+    assertEquals(1, window.size());
+  }
+
+  @Test
+  void concurrentClaimsReplacingAStaleValueLetOnlyOneThrough() throws Exception {
+    window.claim("key", "failed-id", held -> true);
+    now.addAndGet(Duration.ofSeconds(2).toNanos());
+    ExecutorService threads = Executors.newFixedThreadPool(8);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Optional<String>>> claims = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      String value = "retry-" + i;
+      claims.add(threads.submit(() -> {
+        start.await();
+        return window.claim("key", value, held -> !held.equals("failed-id"));
+      }));
+    }
+    start.countDown();
+
+    int winners = 0;
+    for (Future<Optional<String>> claim : claims) {
+      winners += claim.get(5, TimeUnit.SECONDS).isEmpty() ? 1 : 0;
+    }
+    threads.shutdown();
+    assertEquals(1, winners);
+    assertEquals(1, window.size());
+  }
+
+  @Test
+  void removedKeysCanBeClaimedAgain() {
+    window.claim("key", "first", held -> true);
+    window.remove("key");
+
+    assertEquals(Optional.empty(), window.claim("key", "second", held -> true));
+  }
+
+  @Test
+  void disabledWindowNeverReportsDuplicates() {
+    DedupWindow disabled = new DedupWindow(meterRegistry, false, Duration.ofSeconds(10), 10, now::get);
+
+    disabled.claim("key", "first", held -> true);
+    assertEquals(Optional.empty(), disabled.claim("key", "second", held -> true));
+  }
+
+  @Test
+  void keysPreferTheIdempotencyKeyAndOtherwiseHashTheContent() {
+    assertEquals("key:click-1", DedupWindow.keyOf(" click-1 ", "a@example.com", "s", "t"));
+    assertEquals(
+        DedupWindow.keyOf(null, "A@Example.com", "s", "t"),
+        DedupWindow.keyOf("", "a@example.com", "s", "t"));
+    assertNotEquals(DedupWindow.keyOf(null, "a@example.com", "s", "t"), DedupWindow.keyOf(null, "a@example.com", "st", ""));
+    assertTrue(DedupWindow.keyOf(null, "a@example.com", "s", "t").startsWith("sha:"));
+  }
+}
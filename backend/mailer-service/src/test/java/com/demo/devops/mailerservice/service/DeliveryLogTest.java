@@ -0,0 +1,100 @@
+package com.demo.devops.mailerservice.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+class DeliveryLogTest {
+  private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @TempDir
+  Path dir;
+
+  private DeliveryLog log;
+
+  @AfterEach
+  void tearDown() throws Exception {
+    if (log != null) {
+      log.shutdown();
+    }
+  }
+
+  @Test
+  void recordsAreQueryableByMessageAndRecipient() throws Exception {
+    log = open(DataSize.ofMegabytes(1), 4);
+    log.record(DeliveryRecord.of("mail-1", "user@example.com", DeliveryRecord.Outcome.RETRYING, 1, 5_000_000, "timeout"));
+    log.record(DeliveryRecord.of("mail-1", "user@example.com", DeliveryRecord.Outcome.SENT, 2, 7_000_000, null));
+    log.record(DeliveryRecord.of("mail-2", "User@Example.com", DeliveryRecord.Outcome.SENT, 1, 1_000_000, null));
+
+    List<DeliveryRecord> attempts = await(() -> log.forMessage("mail-1"), 2);
+    assertEquals(DeliveryRecord.Outcome.RETRYING, attempts.get(0).outcome());
+    assertEquals("timeout", attempts.get(0).error());
+    assertEquals(7, attempts.get(1).durationMillis());
+
+    List<DeliveryRecord> history = await(() -> log.forRecipient("user@example.com", 10), 3);
+    assertEquals("mail-2", history.get(0).id());
+    assertEquals(2, log.forRecipient("USER@example.com", 2).size());
+    assertEquals(3.0, meterRegistry.get("mailer.delivery.records").tag("result", "written").counter().count());
+  }
+
+  @Test
+  void theIndexIsRebuiltFromTheSegmentsOnRestart() throws Exception {
+    log = open(DataSize.ofMegabytes(1), 4);
+    log.record(DeliveryRecord.of("mail-1", "user@example.com", DeliveryRecord.Outcome.SENT, 1, 0, null));
+    await(() -> log.forMessage("mail-1"), 1);
+    log.shutdown();
+    Files.writeString(dir.resolve("deliveries-0000000000000001.log"), "{\"id\":\"torn", StandardOpenOption.APPEND);
+
+    log = open(DataSize.ofMegabytes(1), 4);
+
+    assertEquals(1, log.forMessage("mail-1").size());
+    log.record(DeliveryRecord.of("mail-2", "user@example.com", DeliveryRecord.Outcome.SENT, 1, 0, null));
+    assertEquals(2, await(() -> log.forRecipient("user@example.com", 10), 2).size());
+  }
+
+  @Test
+  void rotatedSegmentsAreDeletedAndDroppedFromTheIndex() throws Exception {
+    log = open(DataSize.ofBytes(1), 2);
+    for (int i = 1; i <= 5; i++) {
+      log.record(DeliveryRecord.of("mail-" + i, "user@example.com", DeliveryRecord.Outcome.SENT, 1, 0, null));
+      String id = "mail-" + i;
+      await(() -> log.forMessage(id), 1);
+    }
+
+    try (var files = Files.list(dir)) {
+      assertEquals(2, files.count());
+    }
+    assertTrue(log.forMessage("mail-1").isEmpty());
+    assertEquals(List.of("mail-5", "mail-4"),
+        log.forRecipient("user@example.com", 10).stream().map(DeliveryRecord::id).toList());
+  }
+
+  private DeliveryLog open(DataSize segmentSize, int retainedSegments) {
+    return new DeliveryLog(objectMapper, meterRegistry, true, dir, segmentSize, retainedSegments, 1000, 100, 100);
+  }
+
+  private static List<DeliveryRecord> await(Supplier<List<DeliveryRecord>> query, int expected) throws InterruptedException {
+    long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+    while (System.nanoTime() < deadline) {
+      List<DeliveryRecord> records = query.get();
+      if (records.size() >= expected) {
+        return records;
+      }
+      Thread.sleep(5);
+    }
+    throw new AssertionError("delivery log did not record " + expected + " entries in time");
+  }
+}
@@ -0,0 +1,86 @@
+package com.demo.devops.mailerservice.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class DomainDeliverySchedulerTest {
+  private final AtomicLong clock = new AtomicLong();
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Test
+  void domainsAreInterleavedInsteadOfDrainedOneAtATime() {
+    DomainDeliveryScheduler scheduler = scheduler(10, 0, 1);
+    scheduler.offer("a.com", "a1");
+    scheduler.offer("a.com", "a2");
+    scheduler.offer("a.com", "a3");
+    scheduler.offer("b.com", "b1");
+    scheduler.offer("c.com", "c1");
+
+    List<String> order = new ArrayList<>();
+    for (DomainDeliveryScheduler.Ticket ticket; (ticket = scheduler.poll()) != null; ) {
+      order.add(ticket.id());
+    }
+
+    assertEquals(List.of("a1", "b1", "c1", "a2", "a3"), order);
+  }
+
+  @Test
+  void aDomainAtItsConcurrencyLimitWaitsForACompletion() {
+    DomainDeliveryScheduler scheduler = scheduler(1, 0, 1);
+    scheduler.offer("a.com", "a1");
+    scheduler.offer("a.com", "a2");
+
+    DomainDeliveryScheduler.Ticket first = scheduler.poll();
+    assertNull(scheduler.poll());
+
+    scheduler.complete(first);
+    assertEquals("a2", scheduler.poll().id());
+  }
+
+  @Test
+  void aDomainIsHeldToItsRateOnceTheBurstIsSpent() {
+    DomainDeliveryScheduler scheduler = scheduler(10, 2, 2);
+    for (int i = 1; i <= 4; i++) {
+      scheduler.offer("a.com", "a" + i);
+    }
+    scheduler.offer("b.com", "b1");
+
+    assertEquals("a1", scheduler.poll().id());
+    assertEquals("b1", scheduler.poll().id());
+    assertEquals("a2", scheduler.poll().id());
+    assertNull(scheduler.poll());
+
+    clock.addAndGet(Duration.ofMillis(500).toNanos());
+    assertEquals("a3", scheduler.poll().id());
+    assertNull(scheduler.poll());
+  }
+
+  @Test
+  void emptyingADomainDoesNotResetItsRate() {
+    DomainDeliveryScheduler scheduler = scheduler(10, 1, 1);
+    scheduler.offer("a.com", "a1");
+    scheduler.complete(scheduler.poll());
+
+    scheduler.offer("a.com", "a2");
+
+    assertNull(scheduler.poll());
+    clock.addAndGet(Duration.ofSeconds(1).toNanos());
+    assertEquals("a2", scheduler.poll().id());
+  }
+
+  @Test
+  void domainOfLowercasesTheRecipientDomain() {
+    assertEquals("example.com", DomainDeliveryScheduler.domainOf("User@Example.COM"));
+  }
+
+  private DomainDeliveryScheduler scheduler(int maxConcurrency, double ratePerSecond, int burst) {
+    return new DomainDeliveryScheduler(meterRegistry, maxConcurrency, ratePerSecond, burst, clock::get);
+  }
+}
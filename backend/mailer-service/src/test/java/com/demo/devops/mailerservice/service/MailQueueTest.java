@@ -0,0 +1,201 @@
+package com.demo.devops.mailerservice.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mail.MailSendException;
+
+class MailQueueTest {
+  private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+  @TempDir
+  Path spoolDir;
+
+  private MailerService mailerService;
+  private DeliveryLog deliveryLog;
+  private SimpleMeterRegistry meterRegistry;
+  private MailQueue queue;
+
+  @BeforeEach
+  void setUp() {
+    mailerService = mock(MailerService.class);
+    deliveryLog = mock(DeliveryLog.class);
+    meterRegistry = new SimpleMeterRegistry();
+    queue = new MailQueue(
+        mailerService,
+        objectMapper,
+        meterRegistry,
+        new DomainDeliveryScheduler(meterRegistry, 2, 0, 1),
+        new DedupWindow(meterRegistry, true, Duration.ofMinutes(10), 10),
+        deliveryLog,
+        true,
+        spoolDir,
+        2,
+        3,
+        Duration.ofMillis(10),
+        Duration.ofMillis(20),
+        100,
+        100);
+    queue.start();
+  }
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    queue.shutdown();
+  }
+
+  @Test
+  void enqueueSpoolsTheMessageAndDeliversItInTheBackground() throws Exception {
+    QueuedMail mail = queue.enqueue("user@example.com", "hello", "world");
+
+    assertEquals(QueuedMail.Status.QUEUED, mail.status());
+    assertEquals(QueuedMail.Status.SENT, awaitFinished(mail.id()).status());
+    verify(mailerService).send("user@example.com", "hello", "world");
+    assertTrue(isEmpty(spoolDir.resolve("pending")));
+  }
+
+  @Test
+  void transientFailuresAreRetriedWithBackoff() throws Exception {
+    doThrow(new MailSendException("connection refused"))
+        .doThrow(new MailSendException("connection refused"))
+        .doNothing()
+        .when(mailerService).send("user@example.com", "hello", "world");
+
+    QueuedMail mail = queue.enqueue("user@example.com", "hello", "world");
+    QueuedMail finished = awaitFinished(mail.id());
+
+    assertEquals(QueuedMail.Status.SENT, finished.status());
+    assertEquals(3, finished.attempts());
+    assertEquals(2.0, meterRegistry.get("mailer.queue.messages").tag("outcome", "retried").counter().count());
+    ArgumentCaptor<DeliveryRecord> records = ArgumentCaptor.forClass(DeliveryRecord.class);
+    verify(deliveryLog, times(3)).record(records.capture());
+    assertEquals(
+        List.of(DeliveryRecord.Outcome.RETRYING, DeliveryRecord.Outcome.RETRYING, DeliveryRecord.Outcome.SENT),
+        records.getAllValues().stream().map(DeliveryRecord::outcome).toList());
+    assertEquals("connection refused", records.getAllValues().get(0).error());
+  }
+
+  @Test
+  void messagesAreMovedToTheFailedSpoolAfterTheLastAttempt() throws Exception {
+    doThrow(new MailSendException("mailbox unavailable")).when(mailerService).send("user@example.com", "hello", "world");
+
+    QueuedMail mail = queue.enqueue("user@example.com", "hello", "world");
+    QueuedMail finished = awaitFinished(mail.id());
+
+    assertEquals(QueuedMail.Status.FAILED, finished.status());
+    assertEquals(3, finished.attempts());
+    assertEquals("mailbox unavailable", finished.lastError());
+    assertTrue(Files.exists(spoolDir.resolve("failed").resolve(mail.id() + ".json")));
+    assertTrue(isEmpty(spoolDir.resolve("pending")));
+  }
+
+  @Test
+  void aRetryIsStillScheduledWhenTheSpoolCannotRecordIt() throws Exception {
+    Path pendingDir = spoolDir.resolve("pending");
+    doAnswer(invocation -> {
+      // Replacing the directory with a plain file makes every later spool write fail.
+      try (var files = Files.list(pendingDir)) {
+        for (Path file : files.toList()) {
+          Files.delete(file);
+        }
+      }
+      Files.delete(pendingDir);
+      Files.createFile(pendingDir);
+      throw new MailSendException("connection refused");
+    }).doNothing().when(mailerService).send("user@example.com", "hello", "world");
+
+    QueuedMail mail = queue.enqueue("user@example.com", "hello", "world");
+    QueuedMail finished = awaitFinished(mail.id());
+
+    assertEquals(QueuedMail.Status.SENT, finished.status());
+    assertEquals(2, finished.attempts());
+  }
+
+  @Test
+  void duplicatesWithinTheWindowAreAnsweredWithTheOriginalMessage() throws Exception {
+    QueuedMail first = queue.enqueue("user@example.com", "hello", "world");
+    QueuedMail repeated = queue.enqueue("USER@example.com", "hello", "world");
+    QueuedMail keyed = queue.enqueue("user@example.com", "hello", "world", "click-1");
+    QueuedMail retried = queue.enqueue("user@example.com", "hello again", "world", "click-1");
+
+    assertEquals(first.id(), repeated.id());
+    assertEquals(keyed.id(), retried.id());
+    assertNotEquals(first.id(), keyed.id());
+    awaitFinished(first.id());
+    awaitFinished(keyed.id());
+    verify(mailerService, times(2)).send("user@example.com", "hello", "world");
+    assertEquals(2.0, meterRegistry.get("mailer.dedup.hits").counter().count());
+  }
+
+  @Test
+  void aDuplicateOfAFailedMessageIsQueuedAgain() throws Exception {
+    doThrow(new MailSendException("mailbox unavailable"))
+        .doThrow(new MailSendException("mailbox unavailable"))
+        .doThrow(new MailSendException("mailbox unavailable"))
+        .doNothing()
+        .when(mailerService).send("user@example.com", "hello", "world");
+    QueuedMail failed = queue.enqueue("user@example.com", "hello", "world");
+    assertEquals(QueuedMail.Status.FAILED, awaitFinished(failed.id()).status());
+
+    QueuedMail again = queue.enqueue("user@example.com", "hello", "world");
+
+    assertNotEquals(failed.id(), again.id());
+    assertEquals(QueuedMail.Status.SENT, awaitFinished(again.id()).status());
+  }
+
+  @Test
+  void recoverDeliversMessagesLeftInTheSpoolByAPreviousProcess() throws Exception {
+    doNothing().when(mailerService).send("user@example.com", "hello", "world");
+    new MailSpool(spoolDir, objectMapper)
+        .write(QueuedMail.accepted("left-over", "user@example.com", "hello", "world", Instant.now()));
+
+    queue.recover();
+
+    assertEquals(QueuedMail.Status.SENT, awaitFinished("left-over").status());
+  }
+
+  @Test
+  void backoffGrowsExponentiallyUpToTheCap() {
+    for (int i = 0; i < 20; i++) {
+      assertTrue(queue.backoff(1).toMillis() >= 5 && queue.backoff(1).toMillis() <= 10);
+      assertTrue(queue.backoff(10).toMillis() >= 10 && queue.backoff(10).toMillis() <= 20);
+    }
+  }
+
+  private QueuedMail awaitFinished(String id) throws InterruptedException {
+    long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+    while (System.nanoTime() < deadline) {
+      QueuedMail mail = queue.find(id).orElseThrow();
+      if (mail.status() == QueuedMail.Status.SENT || mail.status() == QueuedMail.Status.FAILED) {
+        return mail;
+      }
+      Thread.sleep(5);
+    }
+    throw new AssertionError("message " + id + " was not delivered in time");
+  }
+
+  private static boolean isEmpty(Path dir) throws Exception {
+    try (var files = Files.list(dir)) {
+      return files.findAny().isEmpty();
+    }
+  }
+}
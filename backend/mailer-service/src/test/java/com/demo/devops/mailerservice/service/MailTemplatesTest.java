@@ -0,0 +1,45 @@
+package com.demo.devops.mailerservice.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.demo.devops.mailerservice.dto.MailRequest;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class MailTemplatesTest {
+  private final MailTemplates templates = new MailTemplates("classpath*:mail-templates/*.txt");
+
+  @Test
+  void resolveRendersSubjectAndBodyFromTheNamedTemplate() {
+    MailRequest rendered = templates.resolve(MailRequest.fromTemplate(
+        "user@example.com", "welcome", Map.of("name", "Ada", "email", "ada@example.com", "loginUrl", "https://x")));
+
+    assertEquals("user@example.com", rendered.to());
+    assertEquals("Welcome, Ada", rendered.subject());
+    assertEquals("Hi Ada,\n\nYour account ada@example.com is ready. Sign in at https://x to get started.\n", rendered.text());
+  }
+
+  @Test
+  void resolvePassesPlainRequestsThrough() {
+    MailRequest request = new MailRequest("user@example.com", "hello", "world");
+
+    assertSame(request, templates.resolve(request));
+  }
+
+  @Test
+  void resolveRejectsUnknownTemplatesAndMissingParameters() {
+    assertThrows(MailTemplateException.class,
+        () -> templates.resolve(MailRequest.fromTemplate("user@example.com", "missing", Map.of())));
+    assertThrows(MailTemplateException.class,
+        () -> templates.resolve(MailRequest.fromTemplate("user@example.com", "welcome", Map.of("name", "Ada"))));
+  }
+
+  @Test
+  void compileRejectsMalformedTemplates() {
+    assertThrows(IllegalArgumentException.class, () -> MailTemplate.compile("broken", "no subject line\n"));
+    assertThrows(IllegalArgumentException.class, () -> MailTemplate.compile("broken", "Subject: {{name\n\nbody"));
+    assertThrows(IllegalArgumentException.class, () -> MailTemplate.compile("broken", "Subject: x\n\nHi {{ }}"));
+  }
+}
@@ -0,0 +1,237 @@
+package com.demo.devops.mailerservice.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+
+class SmtpConnectionPoolTest {
+  private final AtomicLong clock = new AtomicLong();
+  private final Deque<Transport> opened = new ArrayDeque<>();
+  private SimpleMeterRegistry meterRegistry;
+  private SmtpConnectionPool pool;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    pool = pool(2, Duration.ofSeconds(5));
+  }
+
+  @Test
+  void sendsReuseAnOpenConnection() throws Exception {
+    pool.send(message());
+    pool.send(message());
+
+    assertEquals(1, opened.size());
+    verify(opened.peek(), times(2)).sendMessage(any(), any());
+    assertEquals(1.0, connections("created"));
+    assertEquals(1.0, connections("reused"));
+    assertEquals(1, pool.idleCount());
+  }
+
+  @Test
+  void connectionsIdleBeyondTheTimeoutAreReplaced() throws Exception {
+    pool.send(message());
+    Transport first = opened.peek();
+    clock.addAndGet(Duration.ofMinutes(2).toNanos());
+
+    pool.send(message());
+
+    assertEquals(2, opened.size());
+    verify(first).close();
+  }
+
+  @Test
+  void connectionsIdleBeyondValidateAfterAreHealthChecked() throws Exception {
+    pool.send(message());
+    Transport first = opened.peek();
+    when(first.isConnected()).thenReturn(false);
+    clock.addAndGet(Duration.ofSeconds(20).toNanos());
+
+    pool.send(message());
+
+    assertEquals(2, opened.size());
+    verify(first).close();
+  }
+
+  @Test
+  void aFailedSendOnAReusedConnectionIsRetriedOnAFreshOne() throws Exception {
+    pool.send(message());
+    Transport stale = opened.peek();
+    doThrow(new MessagingException("421 closing connection")).when(stale).sendMessage(any(), any());
+
+    pool.send(message());
+
+    assertEquals(2, opened.size());
+    verify(stale).close();
+    verify(opened.peekLast()).sendMessage(any(), any());
+    assertEquals(1, pool.idleCount());
+  }
+
+  @Test
+  void aRejectedMessageKeepsTheConnectionInThePool() throws Exception {
+    MimeMessage rejected = message();
+    pool.send(message());
+    Transport first = opened.peek();
+    doThrow(new SendFailedException("550 mailbox unavailable")).when(first).sendMessage(eq(rejected), any());
+
+    assertThrows(MailSendException.class, () -> pool.send(rejected));
+    pool.send(message());
+
+    assertEquals(1, opened.size());
+    verify(first, never()).close();
+    assertEquals(1, pool.idleCount());
+  }
+
+  @Test
+  void sendBatchCarriesEveryMessageOverOneConnection() throws Exception {
+    List<MailException> failures = pool.sendBatch(List.of(message(), message(), message()));
+
+    assertEquals(Arrays.asList(null, null, null), failures);
+    assertEquals(1, opened.size());
+    verify(opened.peek(), times(3)).sendMessage(any(), any());
+    assertEquals(1, pool.idleCount());
+  }
+
+  @Test
+  void sendBatchReportsRejectedMessagesAndReconnectsAfterABrokenSession() throws Exception {
+    MimeMessage rejected = message();
+    MimeMessage broken = message();
+    pool.send(message());
+    Transport first = opened.peek();
+    doThrow(new SendFailedException("550 mailbox unavailable")).when(first).sendMessage(eq(rejected), any());
+    doThrow(new MessagingException("421 closing connection")).when(first).sendMessage(eq(broken), any());
+
+    List<MailException> failures = pool.sendBatch(List.of(message(), rejected, broken, message()));
+
+    assertNull(failures.get(0));
+    assertInstanceOf(MailSendException.class, failures.get(1));
+    assertNull(failures.get(2));
+    assertNull(failures.get(3));
+    assertEquals(2, opened.size());
+    verify(first).close();
+    verify(opened.peekLast(), times(2)).sendMessage(any(), any());
+    assertEquals(1, pool.idleCount());
+  }
+
+  @Test
+  void borrowFailsWhenEveryConnectionIsInUse() throws Exception {
+    SmtpConnectionPool single = pool(1, Duration.ofMillis(50));
+    CountDownLatch sending = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Thread holder = new Thread(() -> single.send(message()));
+    single.send(message());
+    doAnswer(invocation -> {
+      sending.countDown();
+      release.await(5, TimeUnit.SECONDS);
+      return null;
+    }).when(opened.peek()).sendMessage(any(), any());
+    holder.start();
+    sending.await(5, TimeUnit.SECONDS);
+
+    assertThrows(MailSendException.class, () -> single.send(message()));
+
+    release.countDown();
+    holder.join();
+    assertEquals(1.0, connections("exhausted"));
+  }
+
+  @Test
+  void sendBatchFailsTheRestOfTheBatchOnceThePoolIsExhausted() throws Exception {
+    SmtpConnectionPool single = pool(1, Duration.ofMillis(50));
+    CountDownLatch sending = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Thread holder = new Thread(() -> single.send(message()));
+    single.send(message());
+    doAnswer(invocation -> {
+      sending.countDown();
+      release.await(5, TimeUnit.SECONDS);
+      return null;
+    }).when(opened.peek()).sendMessage(any(), any());
+    holder.start();
+    sending.await(5, TimeUnit.SECONDS);
+
+    List<MailException> failures = single.sendBatch(List.of(message(), message(), message()));
+
+    release.countDown();
+    holder.join();
+    assertEquals(3, failures.size());
+    failures.forEach(failure -> assertInstanceOf(MailSendException.class, failure));
+    assertEquals(1.0, connections("exhausted"));
+  }
+
+  @Test
+  void evictIdleClosesExpiredConnections() throws Exception {
+    pool.send(message());
+    clock.addAndGet(Duration.ofMinutes(2).toNanos());
+
+    pool.evictIdle();
+
+    assertEquals(0, pool.idleCount());
+    verify(opened.peek()).close();
+  }
+
+  private SmtpConnectionPool pool(int maxSize, Duration borrowTimeout) {
+    return new SmtpConnectionPool(
+        () -> {
+          Transport transport = mock(Transport.class);
+          when(transport.isConnected()).thenReturn(true);
+          opened.add(transport);
+          return transport;
+        },
+        meterRegistry,
+        maxSize,
+        Duration.ofMinutes(1),
+        Duration.ofSeconds(10),
+        borrowTimeout,
+        clock::get);
+  }
+
+  private double connections(String event) {
+    return meterRegistry.get("mailer.smtp.pool.connections").tag("event", event).counter().count();
+  }
+
+  private static MimeMessage message() {
+    try {
+      MimeMessage message = new MimeMessage(Session.getInstance(new Properties()));
+      message.setFrom(new InternetAddress("noreply@test.local"));
+      message.setRecipient(Message.RecipientType.TO, new InternetAddress("user@test.local"));
+      message.setSubject("hello");
+      message.setText("world");
+      return message;
+    } catch (MessagingException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+}
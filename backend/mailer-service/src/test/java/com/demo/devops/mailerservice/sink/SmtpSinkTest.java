@@ -0,0 +1,87 @@
+package com.demo.devops.mailerservice.sink;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.demo.devops.mailerservice.service.SmtpConnectionPool;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMailMessage;
+
+class SmtpSinkTest {
+  private final AtomicLong transactions = new AtomicLong();
+  private SmtpSink sink;
+  private JavaMailSenderImpl mailSender;
+
+  @BeforeEach
+  void setUp() {
+    sink = new SmtpSink(0, 100, nanos -> transactions.incrementAndGet()).start();
+    mailSender = new JavaMailSenderImpl();
+    mailSender.setHost("127.0.0.1");
+    mailSender.setPort(sink.port());
+  }
+
+  @AfterEach
+  void tearDown() {
+    sink.close();
+  }
+
+  @Test
+  void acceptsAndRecordsMessages() {
+    mailSender.send(message("user@sink.test"));
+
+    List<SmtpSink.Received> received = sink.received();
+    assertEquals(1, received.size());
+    assertEquals("noreply@sink.test", received.get(0).from());
+    assertEquals(List.of("user@sink.test"), received.get(0).recipients());
+    assertTrue(received.get(0).data().contains("Subject: hello"));
+    assertEquals(1, transactions.get());
+  }
+
+  @Test
+  void injectedFailuresAreReportedAsTransientErrors() {
+    sink.setFailureRate(1.0);
+
+    assertThrows(MailSendException.class, () -> mailSender.send(message("user@sink.test")));
+    assertEquals(1, sink.stats().injectedFailures());
+    assertEquals(0, sink.stats().messages());
+  }
+
+  @Test
+  void pooledSendsShareOneSmtpConnection() {
+    sink.setResponseDelay(Duration.ofMillis(5));
+    SmtpConnectionPool pool = new SmtpConnectionPool(
+        mailSender, new SimpleMeterRegistry(), 2, Duration.ofMinutes(1), Duration.ofSeconds(10), Duration.ofSeconds(5));
+    try {
+      for (int i = 0; i < 3; i++) {
+        MimeMessage mime = mailSender.createMimeMessage();
+        message("user" + i + "@sink.test").copyTo(new MimeMailMessage(mime));
+        pool.send(mime);
+      }
+    } finally {
+      pool.close();
+    }
+
+    assertEquals(3, sink.stats().messages());
+    assertEquals(1, sink.stats().connections());
+  }
+
+  private static SimpleMailMessage message(String to) {
+    SimpleMailMessage message = new SimpleMailMessage();
+    message.setFrom("noreply@sink.test");
+    message.setTo(to);
+    message.setSubject("hello");
+    message.setText("world");
+    return message;
+  }
+}
@@ -1,39 +1,304 @@
 package com.demo.devops.mailerservice.web;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import com.demo.devops.mailerservice.dto.MailBatchRequest;
+import com.demo.devops.mailerservice.dto.MailBatchResponse;
 import com.demo.devops.mailerservice.dto.MailRequest;
-import com.demo.devops.mailerservice.dto.StatusResponse;
+import com.demo.devops.mailerservice.dto.MailStatusResponse;
+import com.demo.devops.mailerservice.service.DedupWindow;
+import com.demo.devops.mailerservice.service.DeliveryLog;
+import com.demo.devops.mailerservice.service.DeliveryRecord;
+import com.demo.devops.mailerservice.service.MailQueue;
+import com.demo.devops.mailerservice.service.MailQueueFullException;
+import com.demo.devops.mailerservice.service.MailTemplates;
 import com.demo.devops.mailerservice.service.MailerService;
+import com.demo.devops.mailerservice.service.QueuedMail;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 
 class MailerControllerTest {
   private MailerService mailerService;
+  private MailQueue mailQueue;
+  private DeliveryLog deliveryLog;
   private MailerController controller;
 
   @BeforeEach
   void setUp() {
     mailerService = Mockito.mock(MailerService.class);
-    controller = new MailerController(mailerService, "mailer-key");
+    mailQueue = Mockito.mock(MailQueue.class);
+    deliveryLog = Mockito.mock(DeliveryLog.class);
+    controller = new MailerController(
+        mailerService,
+        mailQueue,
+        new MailTemplates("classpath*:mail-templates/*.txt"),
+        new DedupWindow(new SimpleMeterRegistry(), true, Duration.ofMinutes(10), 10),
+        deliveryLog,
+        "mailer-key");
   }
 
   @Test
   void sendRejectsInvalidApiKeys() {
     assertThrows(
         RuntimeException.class,
-        () -> controller.send("wrong-key", new MailRequest("user@example.com", "hello", "world")));
+        () -> controller.send("wrong-key", null, new MailRequest("user@example.com", "hello", "world")));
   }
 
   @Test
   void sendDelegatesToMailerServiceWhenAuthorized() {
-    StatusResponse response =
-        controller.send("mailer-key", new MailRequest("user@example.com", "hello", "world"));
+    ResponseEntity<?> response =
+        controller.send("mailer-key", null, new MailRequest("user@example.com", "hello", "world"));
 
-    assertEquals("ok", response.status());
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    MailStatusResponse body = assertInstanceOf(MailStatusResponse.class, response.getBody());
+    assertEquals("sent", body.status());
+    assertNotNull(body.id());
     verify(mailerService).send("user@example.com", "hello", "world");
   }
+
+  @Test
+  void sendAcknowledgesRepeatsWithinTheDedupWindowWithoutSendingAgain() {
+    MailRequest request = new MailRequest("user@example.com", "hello", "world");
+
+    ResponseEntity<?> first = controller.send("mailer-key", null, request);
+    ResponseEntity<?> repeated = controller.send("mailer-key", null, request);
+    controller.send("mailer-key", "click-1", request);
+    controller.send("mailer-key", "click-1", new MailRequest("user@example.com", "hello", "edited"));
+
+    assertEquals(HttpStatus.OK, repeated.getStatusCode());
+    assertEquals(
+        assertInstanceOf(MailStatusResponse.class, first.getBody()).id(),
+        assertInstanceOf(MailStatusResponse.class, repeated.getBody()).id());
+    verify(mailerService, times(2)).send("user@example.com", "hello", "world");
+    verify(mailerService, never()).send("user@example.com", "hello", "edited");
+  }
+
+  @Test
+  void sendForgetsMessagesThatFailedSoARetryGoesOut() {
+    MailRequest request = new MailRequest("user@example.com", "hello", "world");
+    doThrow(new MailSendException("connection refused")).doNothing()
+        .when(mailerService).send("user@example.com", "hello", "world");
+
+    assertThrows(MailSendException.class, () -> controller.send("mailer-key", null, request));
+    controller.send("mailer-key", null, request);
+
+    verify(mailerService, times(2)).send("user@example.com", "hello", "world");
+  }
+
+  @Test
+  void sendQueuesAndAcceptsWhenTheQueueIsEnabled() {
+    QueuedMail queued = new QueuedMail(
+        "mail-1", "user@example.com", "hello", "world", QueuedMail.Status.QUEUED, 0, Instant.now(), Instant.now(), null);
+    when(mailQueue.isEnabled()).thenReturn(true);
+    when(mailQueue.enqueue("user@example.com", "hello", "world", null)).thenReturn(queued);
+
+    ResponseEntity<?> response =
+        controller.send("mailer-key", null, new MailRequest("user@example.com", "hello", "world"));
+
+    assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+    MailStatusResponse body = assertInstanceOf(MailStatusResponse.class, response.getBody());
+    assertEquals("mail-1", body.id());
+    assertEquals("queued", body.status());
+    verify(mailerService, never()).send("user@example.com", "hello", "world");
+  }
+
+  @Test
+  void sendBatchReportsPerMessageResults() {
+    List<MailRequest> messages = List.of(
+        new MailRequest("first@example.com", "hello", "world"),
+        new MailRequest("second@example.com", "hello", "world"));
+    when(mailerService.sendBatch(messages))
+        .thenReturn(Arrays.asList(null, new MailSendException("550 mailbox unavailable")));
+
+    ResponseEntity<MailBatchResponse> response = controller.sendBatch("mailer-key", new MailBatchRequest(messages));
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    MailBatchResponse body = response.getBody();
+    assertEquals(1, body.accepted());
+    assertEquals(1, body.failed());
+    assertEquals("sent", body.results().get(0).status());
+    assertEquals("failed", body.results().get(1).status());
+    assertEquals("550 mailbox unavailable", body.results().get(1).error());
+  }
+
+  @Test
+  void sendBatchSkipsMessagesAlreadySentWithinTheDedupWindow() {
+    controller.send("mailer-key", null, new MailRequest("first@example.com", "hello", "world"));
+    when(mailerService.sendBatch(any())).thenReturn(Arrays.asList((MailException) null));
+
+    MailBatchResponse body = controller.sendBatch("mailer-key", new MailBatchRequest(List.of(
+        new MailRequest("first@example.com", "hello", "world"),
+        new MailRequest("second@example.com", "hello", "world")))).getBody();
+
+    assertEquals(2, body.accepted());
+    assertEquals("sent", body.results().get(0).status());
+    assertEquals("sent", body.results().get(1).status());
+    verify(mailerService).sendBatch(List.of(new MailRequest("second@example.com", "hello", "world")));
+  }
+
+  @Test
+  void aRepeatWhileTheFirstSendIsInFlightIsAnsweredSendingUntilItCompletes() {
+    MailRequest request = new MailRequest("user@example.com", "hello", "world");
+    MailBatchResponse[] duringSend = new MailBatchResponse[1];
+    doAnswer(invocation -> {
+      duringSend[0] = controller.sendBatch("mailer-key", new MailBatchRequest(List.of(request))).getBody();
+      return null;
+    }).when(mailerService).send("user@example.com", "hello", "world");
+
+    controller.send("mailer-key", null, request);
+    MailBatchResponse afterSend =
+        controller.sendBatch("mailer-key", new MailBatchRequest(List.of(request))).getBody();
+
+    assertEquals("sending", duringSend[0].results().get(0).status());
+    assertEquals("sent", afterSend.results().get(0).status());
+    assertEquals(duringSend[0].results().get(0).id(), afterSend.results().get(0).id());
+    verify(mailerService, never()).sendBatch(any());
+  }
+
+  @Test
+  void sendBatchDeduplicatesByEachMessagesIdempotencyKey() {
+    controller.send(
+        "mailer-key", null, new MailRequest("first@example.com", "hello", "world").withIdempotencyKey("item-1"));
+    when(mailerService.sendBatch(any())).thenReturn(Arrays.asList((MailException) null));
+
+    MailBatchResponse body = controller.sendBatch("mailer-key", new MailBatchRequest(List.of(
+        new MailRequest("first@example.com", "hello again", "world").withIdempotencyKey("item-1"),
+        new MailRequest("first@example.com", "hello again", "world").withIdempotencyKey("item-2")))).getBody();
+
+    assertEquals("sent", body.results().get(0).status());
+    assertEquals("item-1", body.results().get(0).id());
+    assertEquals("sent", body.results().get(1).status());
+    assertEquals("item-2", body.results().get(1).id());
+    verify(mailerService).sendBatch(List.of(
+        new MailRequest("first@example.com", "hello again", "world").withIdempotencyKey("item-2")));
+  }
+
+  @Test
+  void sendBatchQueuesEachMessageWhenTheQueueIsEnabled() {
+    QueuedMail queued = new QueuedMail(
+        "mail-1", "first@example.com", "hello", "world", QueuedMail.Status.QUEUED, 0, Instant.now(), Instant.now(), null);
+    when(mailQueue.isEnabled()).thenReturn(true);
+    when(mailQueue.enqueue("first@example.com", "hello", "world", "item-1")).thenReturn(queued);
+    when(mailQueue.enqueue("second@example.com", "hello", "world", null)).thenThrow(new MailQueueFullException());
+
+    ResponseEntity<MailBatchResponse> response = controller.sendBatch("mailer-key", new MailBatchRequest(List.of(
+        new MailRequest("first@example.com", "hello", "world").withIdempotencyKey("item-1"),
+        new MailRequest("second@example.com", "hello", "world"))));
+
+    assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+    MailBatchResponse body = response.getBody();
+    assertEquals("mail-1", body.results().get(0).id());
+    assertEquals("queued", body.results().get(0).status());
+    assertEquals("failed", body.results().get(1).status());
+    verify(mailerService, never()).sendBatch(any());
+  }
+
+  @Test
+  void sendBatchFailsOnlyMessagesWithUnknownTemplates() {
+    List<MailRequest> messages = List.of(
+        MailRequest.fromTemplate("first@example.com", "missing", Map.of()),
+        MailRequest.fromTemplate("second@example.com", "test-email", Map.of("sender", "ops", "message", "ping")));
+    when(mailerService.sendBatch(any())).thenReturn(Arrays.asList((MailException) null));
+
+    MailBatchResponse body = controller.sendBatch("mailer-key", new MailBatchRequest(messages)).getBody();
+
+    assertEquals("failed", body.results().get(0).status());
+    assertEquals("unknown mail template missing", body.results().get(0).error());
+    assertEquals("sent", body.results().get(1).status());
+    verify(mailerService).sendBatch(List.of(new MailRequest(
+        "second@example.com",
+        "Test email from ops",
+        "Hello,\n\nThis is a test message sent by ops through the demo platform.\n\nping\n")));
+  }
+
+  @Test
+  void statusReportsQueuedMessagesAndRejectsUnknownIds() {
+    QueuedMail sent = new QueuedMail(
+        "mail-1", "user@example.com", "hello", "world", QueuedMail.Status.SENT, 2, Instant.now(), null, "timeout");
+    when(mailQueue.find("mail-1")).thenReturn(Optional.of(sent));
+    when(mailQueue.find("missing")).thenReturn(Optional.empty());
+
+    MailStatusResponse status = controller.status("mailer-key", "mail-1");
+
+    assertEquals("sent", status.status());
+    assertEquals(2, status.attempts());
+    assertThrows(RuntimeException.class, () -> controller.status("mailer-key", "missing"));
+    assertThrows(RuntimeException.class, () -> controller.status("wrong-key", "mail-1"));
+  }
+
+  @Test
+  void deliveryHistoryIsServedFromTheDeliveryLog() {
+    DeliveryRecord sent = new DeliveryRecord(
+        "mail-1", "user@example.com", DeliveryRecord.Outcome.SENT, 2, Instant.now(), 40, 1, null);
+    when(deliveryLog.forMessage("mail-1")).thenReturn(List.of(sent));
+    when(deliveryLog.forMessage("missing")).thenReturn(List.of());
+    when(deliveryLog.forRecipient("user@example.com", 500)).thenReturn(List.of(sent));
+
+    assertEquals("sent", controller.deliveries("mailer-key", "mail-1").get(0).outcome());
+    assertEquals(40, controller.recipientHistory("mailer-key", "user@example.com", 10_000).get(0).durationMillis());
+    assertThrows(RuntimeException.class, () -> controller.deliveries("mailer-key", "missing"));
+    assertThrows(RuntimeException.class, () -> controller.recipientHistory("wrong-key", "user@example.com", 10));
+  }
+
+  @Test
+  void directSendsAreRecordedInTheDeliveryLog() {
+    controller.send("mailer-key", null, new MailRequest("user@example.com", "hello", "world"));
+
+    ArgumentCaptor<DeliveryRecord> record = ArgumentCaptor.forClass(DeliveryRecord.class);
+    verify(deliveryLog).record(record.capture());
+    assertEquals("user@example.com", record.getValue().to());
+    assertEquals(DeliveryRecord.Outcome.SENT, record.getValue().outcome());
+  }
+
+  @Test
+  void directSendsAreRecordedUnderTheCallersIdempotencyKey() {
+    ResponseEntity<?> response = controller.send(
+        "mailer-key", "click-1", new MailRequest("user@example.com", "hello", "world"));
+
+    ArgumentCaptor<DeliveryRecord> record = ArgumentCaptor.forClass(DeliveryRecord.class);
+    verify(deliveryLog).record(record.capture());
+    assertEquals("click-1", assertInstanceOf(MailStatusResponse.class, response.getBody()).id());
+    assertEquals("click-1", record.getValue().id());
+    assertEquals(1, record.getValue().batchSize());
+  }
+
+  @Test
+  void batchRecordsCarryTheReturnedIdsAndAreLabelledWithTheBatchSize() {
+    when(mailerService.sendBatch(any())).thenReturn(Arrays.asList(null, null));
+
+    MailBatchResponse body = controller.sendBatch("mailer-key", new MailBatchRequest(List.of(
+        new MailRequest("first@example.com", "hello", "world").withIdempotencyKey("item-1"),
+        new MailRequest("second@example.com", "hello", "world")))).getBody();
+
+    ArgumentCaptor<DeliveryRecord> records = ArgumentCaptor.forClass(DeliveryRecord.class);
+    verify(deliveryLog, times(2)).record(records.capture());
+    assertEquals("item-1", records.getAllValues().get(0).id());
+    assertEquals(body.results().get(1).id(), records.getAllValues().get(1).id());
+    assertNotNull(body.results().get(1).id());
+    assertEquals(2, records.getAllValues().get(0).batchSize());
+    assertEquals(2, records.getAllValues().get(1).batchSize());
+  }
 }